@@ -0,0 +1,358 @@
+package unluac;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import unluac.decompile.Decompiler;
+import unluac.decompile.Disassembler;
+import unluac.parse.LConstants;
+import unluac.parse.LFunction;
+import unluac.parse.LJHeader;
+import unluac.parse.LString;
+
+/*
+ * Names and strings are the constants' bytes decoded as UTF-8 when the bytes
+ * are valid UTF-8. Otherwise each byte above 127 is written as a \xNN escape
+ * and each backslash is doubled, so the original bytes can be read back.
+ */
+public class Analysis {
+
+  interface Listener {
+
+    void function(String path);
+
+    void read(String global);
+
+    void write(String name);
+
+    void call(String name);
+
+    void string(String string);
+
+  }
+
+  private final Map<String, Integer> globalsRead = new TreeMap<String, Integer>();
+  private final Map<String, Integer> globalsWritten = new TreeMap<String, Integer>();
+  private final Map<String, Integer> keys = new TreeMap<String, Integer>();
+  private final Map<String, Integer> calls = new TreeMap<String, Integer>();
+  private final Set<String> strings = new LinkedHashSet<String>();
+  private final long[] opcodes = new long[64];
+  private int functions = 0;
+  private long instructions = 0;
+
+  /* What each register was last loaded with, in straight-line code */
+  private String[] names = new String[0];
+
+  private final CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder();
+
+  private final Listener listener;
+
+  private Analysis(Listener listener) {
+    this.listener = listener;
+  }
+
+  public static String analyze(ByteBuffer buffer, String name) {
+    boolean luajit = LJHeader.isLuaJIT(buffer);
+    Analysis analysis = new Analysis(null);
+    analysis.add(Main.buffer_to_function(buffer, null), "main");
+    return analysis.toJson(name, luajit ? "luajit" : "lua51");
+  }
+
+  static void scan(ByteBuffer buffer, Listener listener) {
+    new Analysis(listener).add(Main.buffer_to_function(buffer, null), "main");
+  }
+
+  public static String error(String name, String message) {
+    StringBuilder s = new StringBuilder();
+    s.append("{\"file\":");
+    quote(s, name);
+    s.append(",\"error\":");
+    quote(s, message != null ? message : "unknown error");
+    s.append('}');
+    return s.toString();
+  }
+
+  private void add(LFunction function, String path) {
+    if(listener != null) {
+      listener.function(path);
+    }
+    functions++;
+    int[] code = function.code;
+    instructions += code.length;
+    if(names.length < function.maximumStackSize) {
+      names = new String[function.maximumStackSize];
+    } else {
+      Arrays.fill(names, null);
+    }
+    boolean[] targets = targets(code);
+    LConstants constants = function.constants;
+    for(int i = 0; i < constants.length(); i++) {
+      if(constants.type(i) == LConstants.STRING) {
+        String string = text(constants.string(i));
+        strings.add(string);
+        if(listener != null) {
+          listener.string(string);
+        }
+      }
+    }
+    for(int line = 1; line <= code.length; line++) {
+      int codepoint = code[line - 1];
+      int op = codepoint & 0x3F;
+      int A = (codepoint >> 6) & 0xFF;
+      int B = codepoint >>> 23;
+      int C = (codepoint >> 14) & 0x1FF;
+      int Bx = codepoint >>> 14;
+      opcodes[op]++;
+      if(targets[line]) {
+        Arrays.fill(names, null);
+      }
+      String name = null;
+      switch(op) {
+        case Decompiler.GETGLOBAL:
+          name = string(constants, Bx);
+          count(globalsRead, name);
+          if(listener != null && name != null) {
+            listener.read(name);
+          }
+          break;
+        case Decompiler.SETGLOBAL: {
+          String global = string(constants, Bx);
+          count(globalsWritten, global);
+          if(listener != null && global != null) {
+            listener.write(global);
+          }
+          continue;
+        }
+        case Decompiler.SETTABLE: {
+          String key = B >= 256 ? string(constants, B - 256) : null;
+          if(listener != null && key != null && register(A) != null) {
+            listener.write(register(A) + "." + key);
+          }
+          continue;
+        }
+        case Decompiler.GETTABLE: {
+          String key = C >= 256 ? string(constants, C - 256) : null;
+          count(keys, key);
+          if(key != null && register(B) != null) {
+            name = register(B) + "." + key;
+          }
+          break;
+        }
+        case Decompiler.SELF: {
+          String key = C >= 256 ? string(constants, C - 256) : null;
+          count(keys, key);
+          if(key != null) {
+            name = (register(B) != null ? register(B) : "") + ":" + key;
+          }
+          set(A + 1, register(B));
+          break;
+        }
+        case Decompiler.MOVE:
+          name = register(B);
+          break;
+        case Decompiler.CALL:
+        case Decompiler.TAILCALL:
+          count(calls, register(A));
+          if(listener != null && register(A) != null) {
+            listener.call(register(A));
+          }
+          clearFrom(A);
+          continue;
+        case Decompiler.LOADNIL:
+        case Decompiler.VARARG:
+        case Decompiler.TFORLOOP:
+          clearFrom(A);
+          continue;
+        case Decompiler.CLOSURE: {
+          /* The instructions after it only say where its upvalues come from */
+          int upvalues = Bx < function.functions.length ? function.functions[Bx].numUpvalues : 0;
+          for(int i = 0; i < upvalues && line < code.length; i++) {
+            opcodes[code[line++] & 0x3F]++;
+          }
+          break;
+        }
+        case Decompiler.SETLIST:
+        case Decompiler.SETLISTN:
+          if(C == 0) {
+            /* The next word is C itself */
+            line++;
+          }
+          continue;
+        default:
+          if(!writesA(op)) {
+            continue;
+          }
+          break;
+      }
+      set(A, name);
+    }
+    for(int i = 0; i < function.functions.length; i++) {
+      add(function.functions[i], path + "/" + i);
+    }
+  }
+
+  private static boolean writesA(int op) {
+    switch(op) {
+      case Decompiler.LOADK:
+      case Decompiler.LOADBOOL:
+      case Decompiler.GETUPVAL:
+      case Decompiler.NEWTABLE:
+      case Decompiler.ADD:
+      case Decompiler.SUB:
+      case Decompiler.MUL:
+      case Decompiler.DIV:
+      case Decompiler.MOD:
+      case Decompiler.POW:
+      case Decompiler.UNM:
+      case Decompiler.NOT:
+      case Decompiler.LEN:
+      case Decompiler.CONCAT:
+      case Decompiler.TESTSET:
+      case Decompiler.FORLOOP:
+      case Decompiler.FORPREP:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private String register(int register) {
+    return register < names.length ? names[register] : null;
+  }
+
+  private void set(int register, String name) {
+    if(register < names.length) {
+      names[register] = name;
+    }
+  }
+
+  private void clearFrom(int register) {
+    for(int i = register; i < names.length; i++) {
+      names[i] = null;
+    }
+  }
+
+  private static boolean[] targets(int[] code) {
+    boolean[] targets = new boolean[code.length + 2];
+    for(int line = 1; line <= code.length; line++) {
+      int op = code[line - 1] & 0x3F;
+      int target = 0;
+      if(op == Decompiler.JMP || op == Decompiler.FORLOOP || op == Decompiler.FORPREP) {
+        target = line + 1 + (code[line - 1] >>> 14) - 131071;
+      } else if(op == Decompiler.LOADBOOL && ((code[line - 1] >> 14) & 0x1FF) != 0) {
+        target = line + 2;
+      }
+      if(target >= 1 && target <= code.length) {
+        targets[target] = true;
+      }
+    }
+    return targets;
+  }
+
+  private String string(LConstants constants, int index) {
+    if(index < constants.length() && constants.type(index) == LConstants.STRING) {
+      return text(constants.string(index));
+    }
+    return null;
+  }
+
+  private String text(LString string) {
+    try {
+      return utf8.decode(ByteBuffer.wrap(string.bytes)).toString();
+    } catch(CharacterCodingException e) {
+      StringBuilder s = new StringBuilder(string.bytes.length + 16);
+      for(byte b : string.bytes) {
+        if(b == '\\') {
+          s.append("\\\\");
+        } else if(b < 0) {
+          s.append(String.format("\\x%02x", b & 0xFF));
+        } else {
+          s.append((char) b);
+        }
+      }
+      return s.toString();
+    }
+  }
+
+  private static void count(Map<String, Integer> map, String name) {
+    if(name != null) {
+      Integer count = map.get(name);
+      map.put(name, count == null ? 1 : count + 1);
+    }
+  }
+
+  private String toJson(String name, String format) {
+    StringBuilder s = new StringBuilder(256);
+    s.append("{\"file\":");
+    quote(s, name);
+    s.append(",\"format\":\"").append(format).append('"');
+    s.append(",\"functions\":").append(functions);
+    s.append(",\"instructions\":").append(instructions);
+    s.append(",\"globalsRead\":");
+    counts(s, globalsRead);
+    s.append(",\"globalsWritten\":");
+    counts(s, globalsWritten);
+    s.append(",\"keys\":");
+    counts(s, keys);
+    s.append(",\"calls\":");
+    counts(s, calls);
+    s.append(",\"strings\":[");
+    boolean first = true;
+    for(String string : strings) {
+      if(!first) s.append(',');
+      first = false;
+      quote(s, string);
+    }
+    s.append("],\"opcodes\":{");
+    first = true;
+    for(int op = 0; op < opcodes.length; op++) {
+      if(opcodes[op] != 0) {
+        if(!first) s.append(',');
+        first = false;
+        quote(s, Disassembler.opcodeName(op));
+        s.append(':').append(opcodes[op]);
+      }
+    }
+    s.append("}}");
+    return s.toString();
+  }
+
+  private static void counts(StringBuilder s, Map<String, Integer> map) {
+    s.append('{');
+    boolean first = true;
+    for(Map.Entry<String, Integer> entry : map.entrySet()) {
+      if(!first) s.append(',');
+      first = false;
+      quote(s, entry.getKey());
+      s.append(':').append(entry.getValue());
+    }
+    s.append('}');
+  }
+
+  private static void quote(StringBuilder s, String string) {
+    s.append('"');
+    for(int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      if(c == '"' || c == '\\') {
+        s.append('\\').append(c);
+      } else if(c == '\n') {
+        s.append("\\n");
+      } else if(c == '\t') {
+        s.append("\\t");
+      } else if(c < 32 || c > 126) {
+        s.append(String.format("\\u%04x", (int) c));
+      } else {
+        s.append(c);
+      }
+    }
+    s.append('"');
+  }
+
+}
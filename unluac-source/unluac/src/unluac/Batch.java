@@ -0,0 +1,298 @@
+package unluac;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import unluac.parse.BHeader;
+import unluac.parse.LFunctionIndex;
+import unluac.parse.LJHeader;
+import unluac.util.BufferLoader;
+
+public class Batch {
+
+  private static class Job implements Comparable<Job> {
+
+    public final File input;
+    public final File output;
+    public long weight;
+
+    public Job(File input, File output) {
+      this.input = input;
+      this.output = output;
+    }
+
+    @Override
+    public int compareTo(Job job) {
+      /* Heaviest first, so the slowest file is not the tail of the run */
+      if(weight > job.weight) {
+        return -1;
+      } else if(weight == job.weight) {
+        return 0;
+      } else {
+        return 1;
+      }
+    }
+
+  }
+
+  private final Configuration config;
+  private final File outputDirectory;
+  private final int threads;
+  private final ForkJoinPool closurePool;
+  private final List<Job> jobs;
+  private final Map<File, File> claimed = new HashMap<File, File>();
+  private boolean weighBySize = false;
+  private OutputStream analysis = null;
+
+  public Batch(Configuration config, File outputDirectory, int threads, ForkJoinPool closurePool) {
+    this.config = config;
+    this.outputDirectory = outputDirectory;
+    this.threads = threads;
+    this.closurePool = closurePool;
+    jobs = new ArrayList<Job>();
+  }
+
+  public void setWeighBySize(boolean weighBySize) {
+    this.weighBySize = weighBySize;
+  }
+
+  public void setAnalysis(OutputStream analysis) {
+    this.analysis = analysis;
+  }
+
+  public void add(File input) throws IOException {
+    if(input.isDirectory()) {
+      addDirectory(input, input);
+    } else if(input.exists()) {
+      add(input, output(input, input.getName()));
+    } else {
+      throw new IOException(input.getPath() + " (No such file or directory)");
+    }
+  }
+
+  public void addList(File list) throws IOException {
+    BufferedReader reader = new BufferedReader(new FileReader(list));
+    try {
+      String line;
+      while((line = reader.readLine()) != null) {
+        line = line.trim();
+        if(line.length() != 0) {
+          add(new File(line));
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  private void addDirectory(File root, File directory) throws IOException {
+    File[] files = directory.listFiles();
+    if(files == null) {
+      throw new IOException("cannot list directory " + directory.getPath());
+    }
+    for(File file : files) {
+      if(file.isDirectory()) {
+        addDirectory(root, file);
+      } else if(isBytecode(file)) {
+        String relative = root.toURI().relativize(file.toURI()).getPath();
+        add(file, output(file, relative));
+      }
+    }
+  }
+
+  /* Inputs that would write the same output are refused, and repeated inputs skipped */
+  private void add(File input, File output) throws IOException {
+    File key = output.getAbsoluteFile().toPath().normalize().toFile();
+    File source = input.getAbsoluteFile().toPath().normalize().toFile();
+    File previous = claimed.get(key);
+    if(previous != null) {
+      if(previous.equals(source)) {
+        return;
+      }
+      if(outputDirectory != null) {
+        throw new IOException(previous.getPath() + " and " + source.getPath() + " would both be written to " + output.getPath());
+      }
+    }
+    claimed.put(key, source);
+    jobs.add(new Job(input, output));
+  }
+
+  private File output(File input, String relative) {
+    String name = relative.endsWith(".luac") ? relative.substring(0, relative.length() - 1) : relative + ".lua";
+    if(outputDirectory != null) {
+      return new File(outputDirectory, name);
+    } else {
+      return new File(input.getParentFile(), new File(name).getName());
+    }
+  }
+
+  List<File> inputs() {
+    List<File> inputs = new ArrayList<File>(jobs.size());
+    for(Job job : jobs) {
+      inputs.add(job.input);
+    }
+    return inputs;
+  }
+
+  private static boolean isBytecode(File file) {
+    if(!file.isFile() || file.length() < 4) {
+      return false;
+    }
+    byte[] signature = new byte[4];
+    try {
+      DataInputStream in = new DataInputStream(new FileInputStream(file));
+      try {
+        in.readFully(signature);
+      } finally {
+        in.close();
+      }
+    } catch(IOException e) {
+      System.err.println("  error: skipping " + file.getPath() + ": " + e.getMessage());
+      return false;
+    }
+    return signature[0] == 0x1B && signature[1] == 'L' && (signature[2] == 'u' && signature[3] == 'a' || signature[2] == 'J');
+  }
+
+  private static long weight(LFunctionIndex index) {
+    long weight = index.instructions;
+    for(LFunctionIndex child : index.children) {
+      weight += weight(child);
+    }
+    return weight;
+  }
+
+  public int run() {
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      plan(pool);
+      return execute(pool);
+    } finally {
+      pool.shutdown();
+      if(analysis != null) {
+        try {
+          analysis.flush();
+        } catch(IOException e) {
+          System.err.println("  error: " + e.getMessage());
+        }
+      }
+    }
+  }
+
+  private void plan(ExecutorService pool) {
+    if(weighBySize || analysis != null) {
+      for(Job job : jobs) {
+        job.weight = job.input.length();
+      }
+      Collections.sort(jobs);
+      return;
+    }
+    List<Future<Long>> weights = new ArrayList<Future<Long>>(jobs.size());
+    for(final Job job : jobs) {
+      weights.add(pool.submit(new Callable<Long>() {
+
+        @Override
+        public Long call() throws Exception {
+          ByteBuffer buffer = BufferLoader.load(job.input);
+          if(LJHeader.isLuaJIT(buffer)) {
+            /* Roughly the instruction count, without lowering it twice */
+            return (long) buffer.remaining() / 4;
+          }
+          return weight(LFunctionIndex.scan(buffer, new BHeader(buffer)));
+        }
+
+      }));
+    }
+    for(int i = 0; i < jobs.size(); i++) {
+      try {
+        jobs.get(i).weight = weights.get(i).get();
+      } catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch(ExecutionException e) {
+        /* Reported when the job itself fails */
+        jobs.get(i).weight = Long.MAX_VALUE;
+      }
+    }
+    Collections.sort(jobs);
+  }
+
+  private void analyze(File input) throws IOException {
+    String line;
+    RuntimeException failure = null;
+    try {
+      line = Analysis.analyze(BufferLoader.load(input), input.getPath());
+    } catch(RuntimeException e) {
+      line = Analysis.error(input.getPath(), e.getMessage());
+      failure = e;
+    }
+    byte[] bytes = (line + "\n").getBytes(StandardCharsets.US_ASCII);
+    synchronized(analysis) {
+      analysis.write(bytes);
+    }
+    if(failure != null) {
+      throw failure;
+    }
+  }
+
+  private int execute(ExecutorService pool) {
+    List<Future<Object>> results = new ArrayList<Future<Object>>(jobs.size());
+    for(final Job job : jobs) {
+      results.add(pool.submit(new Callable<Object>() {
+
+        @Override
+        public Object call() throws Exception {
+          if(analysis != null) {
+            analyze(job.input);
+            return null;
+          }
+          File parent = job.output.getParentFile();
+          if(parent != null && !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("cannot create directory " + parent.getPath());
+          }
+          try {
+            Main.decompile(config, job.input.getPath(), job.output.getPath(), closurePool);
+          } catch(Exception e) {
+            /* Leave no partial output behind */
+            job.output.delete();
+            throw e;
+          }
+          return null;
+        }
+
+      }));
+    }
+    int failed = 0;
+    for(int i = 0; i < jobs.size(); i++) {
+      try {
+        results.get(i).get();
+      } catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return failed + jobs.size() - i;
+      } catch(ExecutionException e) {
+        Throwable cause = e.getCause();
+        System.err.println("  error: " + jobs.get(i).input.getPath() + ": " + (cause.getMessage() != null ? cause.getMessage() : cause.toString()));
+        failed++;
+      }
+    }
+    return failed;
+  }
+
+}
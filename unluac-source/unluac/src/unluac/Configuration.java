@@ -0,0 +1,31 @@
+package unluac;
+
+import unluac.decompile.Budget;
+import unluac.decompile.FragmentCache;
+import unluac.util.DiskCache;
+
+public class Configuration {
+
+  public final FragmentCache cache = new FragmentCache(Runtime.getRuntime().maxMemory() / 16);
+
+  public DiskCache diskCache = null;
+
+  public boolean stats = false;
+
+  public boolean disassemble = false;
+
+  public long functionBudget = 10000;
+
+  public Budget budget() {
+    return new Budget(functionBudget);
+  }
+
+  public String cacheReport() {
+    String report = cache.report() + "\n";
+    if(diskCache != null) {
+      report += diskCache.report() + "\n";
+    }
+    return report;
+  }
+
+}
@@ -0,0 +1,194 @@
+package unluac;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import unluac.parse.BHeader;
+import unluac.parse.LFunctionIndex;
+import unluac.parse.LJHeader;
+import unluac.util.CSourceInputStream;
+
+public class Extractor {
+
+  public interface Handler {
+
+    public void chunk(long offset, ByteBuffer chunk) throws IOException;
+
+  }
+
+  public static final int MAX_CHUNK = 64 * 1024 * 1024;
+
+  private static final int WINDOW = 64 * 1024;
+
+  /* Bytes wanted in the window before trying a header */
+  private static final int HEADER = 64;
+
+  private static final byte[] lua = {
+    0x1B, 0x4C, 0x75, 0x61, 0x51,
+  };
+
+  private static final String[] sourceExtensions = {
+    ".c", ".h", ".cc", ".cpp", ".cxx", ".hh", ".hpp", ".inc", ".m", ".mm",
+  };
+
+  private final Handler handler;
+  private InputStream in;
+  private byte[] data;
+  private int start;
+  private int end;
+  private long base;
+  private boolean eof;
+
+  public Extractor(Handler handler) {
+    this.handler = handler;
+  }
+
+  public static InputStream open(File file) throws IOException {
+    InputStream in = new FileInputStream(file);
+    String name = file.getName().toLowerCase();
+    for(String extension : sourceExtensions) {
+      if(name.endsWith(extension)) {
+        return new CSourceInputStream(new BufferedInputStream(in));
+      }
+    }
+    return in;
+  }
+
+  public int extract(InputStream in) throws IOException {
+    this.in = in;
+    data = new byte[WINDOW];
+    start = 0;
+    end = 0;
+    base = 0;
+    eof = false;
+    int count = 0;
+    while(true) {
+      while(start < end && data[start] != 0x1B) {
+        start++;
+      }
+      if(start == end) {
+        if(eof) {
+          break;
+        }
+        base += end;
+        start = 0;
+        end = 0;
+        if(data.length > WINDOW) {
+          data = new byte[WINDOW];
+        }
+        fill();
+        continue;
+      }
+      if(end - start < HEADER && !eof) {
+        fill();
+        continue;
+      }
+      int length = extent();
+      if(length == 0) {
+        if(!eof && (start > 0 || end < data.length || grow())) {
+          fill();
+          continue;
+        }
+        length = -1;
+      }
+      if(length < 0) {
+        start++;
+        continue;
+      }
+      ByteBuffer chunk = ByteBuffer.wrap(data, start, length).slice();
+      chunk.order(ByteOrder.LITTLE_ENDIAN);
+      handler.chunk(base + start, chunk);
+      count++;
+      start += length;
+    }
+    data = null;
+    this.in = null;
+    return count;
+  }
+
+  private int extent() {
+    ByteBuffer buffer = ByteBuffer.wrap(data, start, end - start).slice();
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    boolean luajit = LJHeader.isLuaJIT(buffer);
+    if(!luajit && !isLua(buffer)) {
+      return -1;
+    }
+    LJHeader ljheader = null;
+    BHeader header = null;
+    try {
+      if(luajit) {
+        ljheader = new LJHeader(buffer);
+      } else {
+        header = new BHeader(buffer);
+      }
+    } catch(BufferUnderflowException e) {
+      return 0;
+    } catch(IllegalStateException e) {
+      return -1;
+    }
+    /* Failures past the header are taken to be truncation at first */
+    try {
+      if(luajit) {
+        ljheader.skip(buffer);
+      } else {
+        LFunctionIndex.scan(buffer, header);
+      }
+    } catch(BufferUnderflowException e) {
+      return 0;
+    } catch(IllegalStateException e) {
+      return 0;
+    } catch(IllegalArgumentException e) {
+      return 0;
+    }
+    return buffer.position();
+  }
+
+  private static boolean isLua(ByteBuffer buffer) {
+    if(buffer.remaining() < lua.length) {
+      return false;
+    }
+    for(int i = 0; i < lua.length; i++) {
+      if(buffer.get(buffer.position() + i) != lua[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean grow() {
+    if(data.length >= MAX_CHUNK) {
+      return false;
+    }
+    byte[] grown = new byte[Math.min(data.length * 2, MAX_CHUNK)];
+    System.arraycopy(data, start, grown, 0, end - start);
+    base += start;
+    end -= start;
+    start = 0;
+    data = grown;
+    return true;
+  }
+
+  private void fill() throws IOException {
+    if(end == data.length && start > 0) {
+      System.arraycopy(data, start, data, 0, end - start);
+      base += start;
+      end -= start;
+      start = 0;
+    }
+    while(end < data.length) {
+      int read = in.read(data, end, data.length - end);
+      if(read < 0) {
+        eof = true;
+        return;
+      }
+      end += read;
+    }
+  }
+
+}
@@ -0,0 +1,513 @@
+package unluac;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import unluac.util.BufferLoader;
+
+public class Index {
+
+  /* "ULIX" */
+  private static final int MAGIC = 0x554C4958;
+  private static final int VERSION = 1;
+
+  private static final int HEADER = 16;
+
+  public static final String[] KINDS = {"read", "write", "call", "string"};
+
+  /* Longer strings are indexed by their beginning only */
+  private static final int MAX_TERM = 256;
+
+  private static class Scan implements Analysis.Listener {
+
+    public final String path;
+    public final long size;
+    public final long modified;
+    public final List<String> functions = new ArrayList<String>();
+    public final List<Set<String>> terms = new ArrayList<Set<String>>();
+    private Set<String> current;
+
+    public Scan(File file) {
+      path = file.getPath();
+      size = file.length();
+      modified = file.lastModified();
+    }
+
+    @Override
+    public void function(String path) {
+      functions.add(path);
+      current = new HashSet<String>();
+      terms.add(current);
+    }
+
+    @Override
+    public void read(String global) {
+      add("read:", global);
+    }
+
+    @Override
+    public void write(String name) {
+      add("write:", name);
+    }
+
+    @Override
+    public void call(String name) {
+      add("call:", name);
+    }
+
+    @Override
+    public void string(String string) {
+      add("string:", string);
+    }
+
+    private void add(String kind, String name) {
+      if(name.length() > MAX_TERM) {
+        name = name.substring(0, MAX_TERM);
+      }
+      current.add(kind + name);
+    }
+
+  }
+
+  private static class Postings {
+
+    public long[] postings = new long[4];
+    public int size = 0;
+
+    public void add(long posting) {
+      if(size == postings.length) {
+        postings = Arrays.copyOf(postings, size * 2);
+      }
+      postings[size++] = posting;
+    }
+
+  }
+
+  private final ByteBuffer buffer;
+  private final int files;
+  private final int terms;
+
+  private Index(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if(buffer.remaining() < HEADER || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+      throw new IOException("not an index, or made by another version");
+    }
+    files = buffer.getInt(8);
+    terms = buffer.getInt(12);
+  }
+
+  public static Index open(File file) throws IOException {
+    RandomAccessFile in = new RandomAccessFile(file, "r");
+    try {
+      MappedByteBuffer buffer = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length());
+      return new Index(buffer);
+    } finally {
+      in.close();
+    }
+  }
+
+  public int files() {
+    return files;
+  }
+
+  public int terms() {
+    return terms;
+  }
+
+  private int fileOffset(int file) {
+    return buffer.getInt(HEADER + 4 * file);
+  }
+
+  private int termOffset(int term) {
+    return buffer.getInt(HEADER + 4 * files + 4 * term);
+  }
+
+  public String file(int file) {
+    ByteBuffer b = buffer.duplicate();
+    b.position(fileOffset(file));
+    return readString(b);
+  }
+
+  public String function(int file, int function) {
+    ByteBuffer b = buffer.duplicate();
+    b.position(fileOffset(file));
+    readString(b);
+    b.position(b.position() + 16 + 4);
+    for(int i = 0; i < function; i++) {
+      readString(b);
+    }
+    return readString(b);
+  }
+
+  public String term(int term) {
+    ByteBuffer b = buffer.duplicate();
+    b.position(termOffset(term));
+    return readString(b);
+  }
+
+  private int search(String term) {
+    int low = 0;
+    int high = terms;
+    while(low < high) {
+      int middle = (low + high) >>> 1;
+      if(term(middle).compareTo(term) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private long[] postings(int term) {
+    ByteBuffer b = buffer.duplicate();
+    b.position(termOffset(term));
+    readString(b);
+    int count = readVarint(b);
+    long[] postings = new long[count];
+    int file = 0;
+    for(int i = 0; i < count; i++) {
+      file += readVarint(b);
+      postings[i] = (long) file << 32 | readVarint(b);
+    }
+    return postings;
+  }
+
+  public long[] lookup(String term) {
+    boolean prefix = term.endsWith("*");
+    if(prefix) {
+      term = term.substring(0, term.length() - 1);
+    }
+    List<String> queries = new ArrayList<String>();
+    if(term.indexOf(':') < 0 || !isKind(term.substring(0, term.indexOf(':')))) {
+      for(String kind : KINDS) {
+        queries.add(kind + ":" + term);
+      }
+    } else {
+      queries.add(term);
+    }
+    Postings found = new Postings();
+    for(String query : queries) {
+      for(int i = search(query); i < terms; i++) {
+        String next = term(i);
+        if(prefix ? !next.startsWith(query) : !next.equals(query)) {
+          break;
+        }
+        for(long posting : postings(i)) {
+          found.add(posting);
+        }
+      }
+    }
+    long[] list = found.postings;
+    Arrays.sort(list, 0, found.size);
+    int n = 0;
+    for(int i = 0; i < found.size; i++) {
+      if(n == 0 || list[i] != list[n - 1]) {
+        list[n++] = list[i];
+      }
+    }
+    return Arrays.copyOf(list, n);
+  }
+
+  private static boolean isKind(String kind) {
+    for(String k : KINDS) {
+      if(k.equals(kind)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public static long[] intersect(long[] a, long[] b) {
+    long[] result = new long[Math.min(a.length, b.length)];
+    int i = 0, j = 0, n = 0;
+    while(i < a.length && j < b.length) {
+      if(a[i] < b[j]) {
+        i++;
+      } else if(b[j] < a[i]) {
+        j++;
+      } else {
+        result[n++] = a[i++];
+        j++;
+      }
+    }
+    return Arrays.copyOf(result, n);
+  }
+
+  public static int update(File file, List<File> inputs, int threads) throws IOException {
+    Index old = file.exists() ? open(file) : null;
+    Map<String, Integer> oldFiles = new HashMap<String, Integer>();
+    if(old != null) {
+      for(int i = 0; i < old.files; i++) {
+        oldFiles.put(old.file(i), i);
+      }
+    }
+
+    /* Scan what is new or changed */
+    Set<String> changedPaths = new HashSet<String>();
+    List<File> changed = new ArrayList<File>();
+    for(File input : inputs) {
+      Integer i = oldFiles.get(input.getPath());
+      if((i == null || !old.isCurrent(i, input)) && changedPaths.add(input.getPath())) {
+        changed.add(input);
+      }
+    }
+    int failed = 0;
+    List<Scan> scans = new ArrayList<Scan>(changed.size());
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Scan>> results = new ArrayList<Future<Scan>>(changed.size());
+      for(final File input : changed) {
+        results.add(pool.submit(new Callable<Scan>() {
+
+          @Override
+          public Scan call() throws Exception {
+            Scan scan = new Scan(input);
+            Analysis.scan(BufferLoader.load(input), scan);
+            return scan;
+          }
+
+        }));
+      }
+      for(int i = 0; i < changed.size(); i++) {
+        try {
+          scans.add(results.get(i).get());
+        } catch(InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("interrupted");
+        } catch(ExecutionException e) {
+          Throwable cause = e.getCause();
+          System.err.println("  error: " + changed.get(i).getPath() + ": " + (cause.getMessage() != null ? cause.getMessage() : cause.toString()));
+          failed++;
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    /* Number the files by path, dropping changed ones that failed to scan */
+    Map<String, Scan> scanned = new HashMap<String, Scan>();
+    for(Scan scan : scans) {
+      scanned.put(scan.path, scan);
+    }
+    List<String> paths = new ArrayList<String>(scanned.keySet());
+    List<Integer> kept = new ArrayList<Integer>();
+    for(Map.Entry<String, Integer> entry : oldFiles.entrySet()) {
+      String path = entry.getKey();
+      if(!changedPaths.contains(path) && new File(path).isFile()) {
+        paths.add(path);
+        kept.add(entry.getValue());
+      }
+    }
+    Collections.sort(paths);
+    Map<String, Integer> numbers = new HashMap<String, Integer>();
+    for(int i = 0; i < paths.size(); i++) {
+      numbers.put(paths.get(i), i);
+    }
+
+    /* Gather the postings, from the old index for the files kept */
+    TreeMap<String, Postings> postings = new TreeMap<String, Postings>();
+    if(!kept.isEmpty()) {
+      int[] renumber = new int[old.files];
+      Arrays.fill(renumber, -1);
+      for(int i : kept) {
+        renumber[i] = numbers.get(old.file(i));
+      }
+      for(int t = 0; t < old.terms; t++) {
+        Postings list = null;
+        for(long posting : old.postings(t)) {
+          int number = renumber[(int) (posting >>> 32)];
+          if(number >= 0) {
+            if(list == null) {
+              list = postings(postings, old.term(t));
+            }
+            list.add((long) number << 32 | (posting & 0xFFFFFFFFL));
+          }
+        }
+      }
+    }
+    for(Scan scan : scans) {
+      long number = numbers.get(scan.path);
+      for(int f = 0; f < scan.terms.size(); f++) {
+        for(String term : scan.terms.get(f)) {
+          postings(postings, term).add(number << 32 | f);
+        }
+      }
+    }
+
+    /* Write the new index beside the old, then move it into place */
+    File temporary = new File(file.getPath() + ".tmp");
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary), 64 * 1024));
+    try {
+      byte[][] records = new byte[paths.size()][];
+      for(int i = 0; i < paths.size(); i++) {
+        String path = paths.get(i);
+        Scan scan = scanned.get(path);
+        records[i] = scan != null ? record(scan) : old.record(oldFiles.get(path));
+      }
+      long offset = HEADER + 4L * paths.size() + 4L * postings.size();
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(paths.size());
+      out.writeInt(postings.size());
+      for(byte[] record : records) {
+        out.writeInt(checkOffset(offset));
+        offset += record.length;
+      }
+      List<byte[]> entries = new ArrayList<byte[]>(postings.size());
+      for(Map.Entry<String, Postings> entry : postings.entrySet()) {
+        byte[] bytes = entry(entry.getKey(), entry.getValue());
+        entries.add(bytes);
+        out.writeInt(checkOffset(offset));
+        offset += bytes.length;
+      }
+      for(byte[] record : records) {
+        out.write(record);
+      }
+      for(byte[] bytes : entries) {
+        out.write(bytes);
+      }
+    } finally {
+      out.close();
+    }
+    try {
+      Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch(AtomicMoveNotSupportedException e) {
+      Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    int dropped = oldFiles.size() - kept.size();
+    for(String path : scanned.keySet()) {
+      if(oldFiles.containsKey(path)) {
+        dropped--;
+      }
+    }
+    System.err.println("  indexed " + paths.size() + " files (" + scans.size() + " scanned, " + dropped + " dropped), " + postings.size() + " terms");
+    return failed;
+  }
+
+  private static Postings postings(Map<String, Postings> postings, String term) {
+    Postings list = postings.get(term);
+    if(list == null) {
+      list = new Postings();
+      postings.put(term, list);
+    }
+    return list;
+  }
+
+  private static int checkOffset(long offset) throws IOException {
+    if(offset > Integer.MAX_VALUE) {
+      throw new IOException("index too large");
+    }
+    return (int) offset;
+  }
+
+  private boolean isCurrent(int file, File input) {
+    ByteBuffer b = buffer.duplicate();
+    b.position(fileOffset(file));
+    readString(b);
+    return b.getLong() == input.length() && b.getLong() == input.lastModified();
+  }
+
+  private byte[] record(int file) {
+    int begin = fileOffset(file);
+    int end = file + 1 < files ? fileOffset(file + 1) : terms > 0 ? termOffset(0) : buffer.limit();
+    byte[] record = new byte[end - begin];
+    ByteBuffer b = buffer.duplicate();
+    b.position(begin);
+    b.get(record);
+    return record;
+  }
+
+  private static byte[] record(Scan scan) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    writeString(out, scan.path);
+    out.writeLong(scan.size);
+    out.writeLong(scan.modified);
+    out.writeInt(scan.functions.size());
+    for(String function : scan.functions) {
+      writeString(out, function);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] entry(String term, Postings postings) throws IOException {
+    long[] list = postings.postings;
+    Arrays.sort(list, 0, postings.size);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    writeString(out, term);
+    writeVarint(out, postings.size);
+    int file = 0;
+    for(int i = 0; i < postings.size; i++) {
+      int next = (int) (list[i] >>> 32);
+      writeVarint(out, next - file);
+      writeVarint(out, (int) list[i]);
+      file = next;
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    if(bytes.length > 0xFFFF) {
+      throw new IOException("term or path too long: " + string.substring(0, 40) + "...");
+    }
+    out.writeShort(bytes.length);
+    out.write(bytes);
+  }
+
+  private static void writeVarint(DataOutputStream out, int value) throws IOException {
+    while((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  private static String readString(ByteBuffer b) {
+    int length = b.getShort() & 0xFFFF;
+    byte[] bytes = new byte[length];
+    b.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static int readVarint(ByteBuffer b) {
+    int value = 0;
+    int shift = 0;
+    int next;
+    do {
+      next = b.get();
+      value |= (next & 0x7F) << shift;
+      shift += 7;
+    } while((next & 0x80) != 0);
+    return value;
+  }
+
+}
@@ -1,80 +1,495 @@
 package unluac;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
-import java.io.RandomAccessFile;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
+import unluac.decompile.Budget;
+import unluac.decompile.ChannelOutputProvider;
 import unluac.decompile.Decompiler;
+import unluac.decompile.Disassembler;
+import unluac.decompile.FragmentCache;
+import unluac.decompile.JfrListener;
+import unluac.decompile.LJLowering;
 import unluac.decompile.Output;
-import unluac.decompile.OutputProvider;
+import unluac.decompile.expression.ClosureExpression;
 import unluac.parse.BHeader;
+import unluac.parse.LJHeader;
 import unluac.parse.LFunction;
+import unluac.parse.LFunctionIndex;
+import unluac.util.BufferLoader;
+import unluac.util.DiskCache;
 
 public class Main {
 
   public static String version = "1.0";
   
   public static void main(String[] args) {
-    if(args.length == 0 || args.length > 1) {
-      System.err.println("unluac v" + version);
-      if(args.length == 0) {
-        System.err.println("  error: no input file provided");
+    Configuration config = new Configuration();
+    boolean analyze = false;
+    File outputDirectory = null;
+    File list = null;
+    File cacheDirectory = null;
+    File index = null;
+    boolean query = false;
+    long cacheSize = 1024;
+    int port = -1;
+    long timeout = 30;
+    String path = null;
+    boolean parallel = false;
+    boolean extract = false;
+    int threads = Runtime.getRuntime().availableProcessors();
+    List<String> inputs = new ArrayList<String>();
+    for(int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if(arg.equals("-o") || arg.equals("-j") || arg.equals("-l") || arg.equals("-f") || arg.equals("-c") || arg.equals("-cs") || arg.equals("-d") || arg.equals("-t") || arg.equals("-b") || arg.equals("-i")) {
+        if(i + 1 == args.length) {
+          error("option " + arg + " requires an argument");
+        }
+        String value = args[++i];
+        if(arg.equals("-o")) {
+          outputDirectory = new File(value);
+        } else if(arg.equals("-l")) {
+          list = new File(value);
+        } else if(arg.equals("-f")) {
+          path = value;
+        } else if(arg.equals("-c")) {
+          cacheDirectory = new File(value);
+        } else if(arg.equals("-i")) {
+          index = new File(value);
+        } else if(arg.equals("-cs")) {
+          try {
+            cacheSize = Long.parseLong(value);
+          } catch(NumberFormatException e) {
+            cacheSize = 0;
+          }
+          if(cacheSize < 1) {
+            error("invalid cache size: " + value);
+          }
+        } else if(arg.equals("-d")) {
+          try {
+            port = Integer.parseInt(value);
+          } catch(NumberFormatException e) {
+            port = -1;
+          }
+          if(port < 0 || port > 65535) {
+            error("invalid port: " + value);
+          }
+        } else if(arg.equals("-t")) {
+          try {
+            timeout = Long.parseLong(value);
+          } catch(NumberFormatException e) {
+            timeout = 0;
+          }
+          if(timeout < 1) {
+            error("invalid timeout: " + value);
+          }
+        } else if(arg.equals("-b")) {
+          try {
+            config.functionBudget = Long.parseLong(value);
+          } catch(NumberFormatException e) {
+            config.functionBudget = -1;
+          }
+          if(config.functionBudget < 0) {
+            error("invalid budget: " + value);
+          }
+        } else {
+          try {
+            threads = Integer.parseInt(value);
+          } catch(NumberFormatException e) {
+            threads = 0;
+          }
+          if(threads < 1) {
+            error("invalid thread count: " + value);
+          }
+        }
+      } else if(arg.equals("-p")) {
+        parallel = true;
+      } else if(arg.equals("-x")) {
+        extract = true;
+      } else if(arg.equals("-s")) {
+        config.stats = true;
+      } else if(arg.equals("-dis")) {
+        config.disassemble = true;
+      } else if(arg.equals("-a")) {
+        analyze = true;
+      } else if(arg.equals("-q")) {
+        query = true;
+      } else if(arg.startsWith("-") && arg.length() > 1) {
+        error("unrecognized option: " + arg);
       } else {
-        System.err.println("  error: too many arguments");
+        inputs.add(arg);
       }
-      System.err.println("  usage: java -jar unluac.jar <file>");
-      System.exit(1);
-    } else {
-      String fn = args[0];
-      LFunction lmain = null;
+    }
+    if(cacheDirectory != null) {
+      try {
+        config.diskCache = new DiskCache(cacheDirectory, cacheSize * 1024 * 1024, "unluac " + version + (config.disassemble ? " dis" : ""));
+      } catch(IOException e) {
+        error(e.getMessage());
+      }
+    }
+    if(port >= 0) {
+      if(!inputs.isEmpty() || list != null || path != null || extract || outputDirectory != null) {
+        error("option -d cannot be used with input files");
+      }
+      Server server = new Server(config, threads, timeout * 1000, parallel ? ForkJoinPool.commonPool() : null);
+      try {
+        port = server.start(port);
+      } catch(IOException e) {
+        fail(e.getMessage());
+      }
+      System.err.println("unluac v" + version + " listening on http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port + "/");
+    } else if(query) {
+      if(index == null || inputs.isEmpty() || list != null) {
+        error("option -q requires -i and at least one term");
+      }
+      exit(config, query(index, inputs) ? 0 : 1);
+    } else if(inputs.isEmpty() && list == null) {
+      error("no input file provided");
+    } else if(index != null) {
+      if(extract || path != null || config.disassemble || analyze || outputDirectory != null) {
+        error("option -i cannot be used with -x, -f, -dis, -a or -o");
+      }
+      Batch batch = new Batch(config, null, threads, null);
+      int failed = 0;
+      try {
+        if(list != null) {
+          batch.addList(list);
+        }
+        for(String input : inputs) {
+          batch.add(new File(input));
+        }
+        failed = Index.update(index, batch.inputs(), threads);
+      } catch(IOException e) {
+        fail(e.getMessage());
+      }
+      System.exit(failed == 0 ? 0 : 1);
+    } else if(analyze) {
+      if(extract || path != null || config.disassemble || outputDirectory != null) {
+        error("option -a cannot be used with -x, -f, -dis or -o");
+      }
+      Batch batch = new Batch(config, null, threads, null);
+      batch.setAnalysis(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 64 * 1024));
       try {
-        lmain = file_to_function(fn);
+        if(list != null) {
+          batch.addList(list);
+        }
+        for(String input : inputs) {
+          batch.add(new File(input));
+        }
       } catch(IOException e) {
-        System.err.println("unluac v" + version);
-        System.err.print("  error: ");
-        System.err.println(e.getMessage());
-        System.exit(1);
+        error(e.getMessage());
+      }
+      System.exit(batch.run() == 0 ? 0 : 1);
+    } else if(extract) {
+      if(list != null || path != null) {
+        error("option -x cannot be used with -l or -f");
+      }
+      exit(config, extract(config, inputs, outputDirectory, parallel ? ForkJoinPool.commonPool() : null) == 0 ? 0 : 1);
+    } else if(path != null) {
+      if(inputs.size() != 1 || list != null || outputDirectory != null) {
+        error("option -f requires a single input file");
+      }
+      String fn = inputs.get(0);
+      LFunction function = null;
+      try {
+        function = file_to_function(fn, path);
+      } catch(IOException e) {
+        error(e.getMessage());
+      } catch(IllegalStateException e) {
+        fail(fn + ": " + e.getMessage());
+      }
+      if(function == null) {
+        error("no function " + path + " in " + fn);
+      }
+      ChannelOutputProvider stdout = ChannelOutputProvider.stdout();
+      try {
+        if(config.disassemble) {
+          Disassembler.disassembleAll(function, path, new Output(stdout));
+        } else if(path.equals("main")) {
+          Decompiler d = new Decompiler(function, stdout);
+          d.setBudget(config.budget());
+          d.setStreaming(true);
+          d.decompile();
+        } else {
+          Output out = new Output(stdout);
+          new ClosureExpression(function, 0).print(out);
+          out.println();
+        }
+        stdout.close();
+      } catch(UncheckedIOException e) {
+        fail(e.getCause().getMessage());
+      } catch(IOException e) {
+        fail(e.getMessage());
       }
-      Decompiler d = new Decompiler(lmain);
-      d.decompile();
       System.exit(0);
+    } else if(inputs.size() == 1 && list == null && outputDirectory == null && !new File(inputs.get(0)).isDirectory()) {
+      String fn = inputs.get(0);
+      ByteBuffer buffer = null;
+      try {
+        buffer = BufferLoader.load(fn);
+      } catch(IOException e) {
+        error(e.getMessage());
+      }
+      try {
+        decompile(config, buffer, new FileOutputStream(FileDescriptor.out).getChannel(), parallel ? ForkJoinPool.commonPool() : null, fn, config.budget());
+      } catch(IllegalStateException e) {
+        fail(fn + ": " + e.getMessage());
+      } catch(IOException e) {
+        fail(e.getMessage());
+      }
+      exit(config, 0);
+    } else {
+      Batch batch = new Batch(config, outputDirectory, threads, parallel ? ForkJoinPool.commonPool() : null);
+      batch.setWeighBySize(config.diskCache != null);
+      try {
+        if(list != null) {
+          batch.addList(list);
+        }
+        for(String input : inputs) {
+          batch.add(new File(input));
+        }
+      } catch(IOException e) {
+        error(e.getMessage());
+      }
+      exit(config, batch.run() == 0 ? 0 : 1);
+    }
+  }
+  
+  private static void error(String message) {
+    System.err.println("unluac v" + version);
+    System.err.print("  error: ");
+    System.err.println(message);
+    System.err.println("  usage: java -jar unluac.jar [-dis] [-c <dir>] <file>");
+    System.err.println("         java -jar unluac.jar [-dis] [-p] [-s] [-c <dir>] [-o <dir>] [-j <threads>] [-l <list>] <file|dir>...");
+    System.err.println("         java -jar unluac.jar [-dis] -f <function> <file>");
+    System.err.println("         java -jar unluac.jar -x [-p] [-s] [-c <dir>] [-o <dir>] <file>...");
+    System.err.println("         java -jar unluac.jar -a [-j <threads>] [-l <list>] <file|dir>...");
+    System.err.println("         java -jar unluac.jar -i <index> [-j <threads>] [-l <list>] <file|dir>...");
+    System.err.println("         java -jar unluac.jar -i <index> -q <term>...");
+    System.err.println("         java -jar unluac.jar -d <port> [-p] [-c <dir>] [-j <threads>] [-t <seconds>]");
+    System.err.println("    -p  parse and decompile nested functions in parallel");
+    System.err.println("    -f  decompile only one function, by path: main, main/3, main/3/1, ...");
+    System.err.println("  -dis  list the instructions of each function instead of decompiling");
+    System.err.println("    -a  report the globals, keys, calls, strings and opcodes of each input as JSON Lines");
+    System.err.println("    -i  add the globals, calls and strings of each input to an index file, rescanning only changed ones");
+    System.err.println("    -q  list the functions in the index with all the terms: read:x, write:x, call:x, string:x, or x of any kind; x* for a prefix");
+    System.err.println("    -x  decompile the chunks embedded in C sources or binaries");
+    System.err.println("    -s  report how often nested functions were reused from earlier ones");
+    System.err.println("    -c  keep output in a cache directory, and reuse it for unchanged inputs");
+    System.err.println("   -cs  size limit of the cache directory in MB (default 1024)");
+    System.err.println("    -d  serve decompile requests over HTTP on localhost (port 0 picks one)");
+    System.err.println("    -t  time limit of each request to the server in seconds (default 30)");
+    System.err.println("    -b  time limit of each function in ms, after which it is disassembled (default 10000, 0 for none)");
+    System.exit(1);
+  }
+  
+  private static void exit(Configuration config, int status) {
+    if(config.stats) {
+      for(String line : config.cacheReport().split("\n")) {
+        System.err.println("  " + line);
+      }
+    }
+    System.exit(status);
+  }
+  
+  private static boolean query(File file, List<String> terms) {
+    Index index = null;
+    try {
+      index = Index.open(file);
+    } catch(IOException e) {
+      fail(file.getPath() + ": " + e.getMessage());
+    }
+    long[] found = index.lookup(terms.get(0));
+    for(int i = 1; i < terms.size(); i++) {
+      found = Index.intersect(found, index.lookup(terms.get(i)));
+    }
+    StringBuilder s = new StringBuilder();
+    for(long posting : found) {
+      int f = (int) (posting >>> 32);
+      s.append(index.file(f)).append('\t').append(index.function(f, (int) posting)).append('\n');
     }
+    System.out.print(s);
+    System.out.flush();
+    return found.length != 0;
   }
   
-  private static LFunction file_to_function(String fn) throws IOException {
-    RandomAccessFile file = new RandomAccessFile(fn, "r");
-    ByteBuffer buffer = ByteBuffer.allocate((int) file.length());
-    buffer.order(ByteOrder.LITTLE_ENDIAN);
-    int len = (int) file.length();
-    FileChannel in = file.getChannel();
-    while(len > 0) len -= in.read(buffer);
-    buffer.rewind();
+  private static void fail(String message) {
+    System.err.println("unluac v" + version);
+    System.err.print("  error: ");
+    System.err.println(message);
+    System.exit(1);
+  }
+  
+  static LFunction buffer_to_function(ByteBuffer buffer, ForkJoinPool pool) {
+    if(LJHeader.isLuaJIT(buffer)) {
+      return LJLowering.lower(new LJHeader(buffer).parse(buffer));
+    }
     BHeader header = new BHeader(buffer);
-    return header.function.parse(buffer, header);
+    if(pool != null) {
+      return LFunctionIndex.scan(buffer, header).parse(buffer, header, pool);
+    } else {
+      return header.function.parse(buffer, header);
+    }
   }
   
-  public static void decompile(String in, String out) throws IOException {
-    LFunction lmain = file_to_function(in);
-    final PrintStream pout = new PrintStream(out);
-    Decompiler d = new Decompiler(lmain, new Output(new OutputProvider() {
-
-      @Override
-      public void print(String s) {
-        pout.print(s);
+  private static LFunction file_to_function(String fn, String path) throws IOException {
+    ByteBuffer buffer = BufferLoader.load(fn);
+    if(LJHeader.isLuaJIT(buffer)) {
+      return find(LJLowering.lower(new LJHeader(buffer).parse(buffer)), path);
+    }
+    BHeader header = new BHeader(buffer);
+    LFunctionIndex index = LFunctionIndex.scan(buffer, header).find(path);
+    return index != null ? index.parse(buffer, header) : null;
+  }
+  
+  private static LFunction find(LFunction function, String path) {
+    String[] parts = path.split("/");
+    if(!parts[0].equals("main")) {
+      return null;
+    }
+    for(int i = 1; i < parts.length; i++) {
+      int index;
+      try {
+        index = Integer.parseInt(parts[i]);
+      } catch(NumberFormatException e) {
+        return null;
       }
-
-      @Override
-      public void println() {
-        pout.println();
-      }
-      
-    }));
-    d.decompile();
-    pout.flush();
-    pout.close();
+      if(index < 0 || index >= function.functions.length) {
+        return null;
+      }
+      function = function.functions[index];
+    }
+    return function;
+  }
+  
+  private static int extract(final Configuration config, List<String> inputs, final File outputDirectory, final ForkJoinPool pool) {
+    if(outputDirectory != null && !outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+      error("cannot create directory " + outputDirectory.getPath());
+    }
+    final ChannelOutputProvider stdout = ChannelOutputProvider.stdout();
+    final FileChannel stdoutChannel = new FileOutputStream(FileDescriptor.out).getChannel();
+    final int[] failed = new int[1];
+    for(final String input : inputs) {
+      final File file = new File(input);
+      Extractor extractor = new Extractor(new Extractor.Handler() {
+        
+        @Override
+        public void chunk(long offset, ByteBuffer chunk) throws IOException {
+          String name = file.getName() + "@" + offset;
+          try {
+            if(outputDirectory != null) {
+              FileChannel out = new FileOutputStream(new File(outputDirectory, name + ".lua")).getChannel();
+              try {
+                decompile(config, chunk, out, pool, input + "@" + offset, config.budget());
+              } finally {
+                out.close();
+              }
+            } else {
+              stdout.print("-- " + name + ", " + chunk.limit() + " bytes");
+              stdout.println();
+              stdout.flush();
+              decompile(config, chunk, stdoutChannel, pool, input + "@" + offset, config.budget());
+            }
+          } catch(IllegalStateException e) {
+            System.err.println("  error: " + input + "@" + offset + ": " + e.getMessage());
+            failed[0]++;
+          }
+        }
+        
+      });
+      try {
+        InputStream in = Extractor.open(file);
+        try {
+          if(extractor.extract(in) == 0) {
+            System.err.println("  error: " + input + ": no chunks found");
+            failed[0]++;
+          }
+        } finally {
+          in.close();
+        }
+      } catch(UncheckedIOException e) {
+        fail(e.getCause().getMessage());
+      } catch(IOException e) {
+        System.err.println("  error: " + e.getMessage());
+        failed[0]++;
+      }
+    }
+    return failed[0];
+  }
+  
+  static void decompile(Configuration config, ByteBuffer buffer, WritableByteChannel channel, ForkJoinPool pool, String name, Budget budget) throws IOException {
+    DiskCache diskCache = config.diskCache;
+    DiskCache.Writer writer = null;
+    if(diskCache != null) {
+      String key = diskCache.key(buffer);
+      if(diskCache.read(key, channel)) {
+        return;
+      }
+      writer = diskCache.write(key, channel);
+    }
+    try {
+      LFunction lmain = buffer_to_function(buffer, pool);
+      ChannelOutputProvider out = new ChannelOutputProvider(writer != null ? writer : channel, false);
+      if(config.disassemble) {
+        Disassembler.disassembleAll(lmain, "main", new Output(out));
+        out.close();
+        if(writer != null) {
+          writer.commit();
+          writer = null;
+        }
+        return;
+      }
+      Decompiler d = new Decompiler(lmain, out);
+      d.setCache(config.cache);
+      d.setBudget(budget);
+      d.setStreaming(true);
+      d.setListener(JfrListener.active(name));
+      if(pool != null) {
+        d.decompile(pool);
+      } else {
+        d.decompile();
+      }
+      out.close();
+      if(budget.exceeded() + budget.failed() != 0) {
+        System.err.println("  warning: " + name + ": " + (budget.exceeded() + budget.failed()) + " functions printed as disassembly");
+      }
+      if(writer != null && budget.exceeded() == 0) {
+        writer.commit();
+        writer = null;
+      }
+    } catch(UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      if(writer != null) {
+        writer.abort();
+      }
+    }
+  }
+  
+  public static void decompile(String in, String out) throws IOException {
+    decompile(new Configuration(), in, out, null);
+  }
+  
+  public static void decompile(Configuration config, String in, String out, ForkJoinPool pool) throws IOException {
+    ByteBuffer buffer = BufferLoader.load(in);
+    FileChannel channel = new FileOutputStream(out).getChannel();
+    try {
+      decompile(config, buffer, channel, pool, in, config.budget());
+    } finally {
+      channel.close();
+    }
   }
   
 }
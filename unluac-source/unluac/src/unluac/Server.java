@@ -0,0 +1,393 @@
+package unluac;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import unluac.decompile.Budget;
+import unluac.util.BufferLoader;
+import unluac.util.LatencyHistogram;
+
+public class Server {
+
+  public static final int SMALL = 64 * 1024;
+
+  public static final int BUDGET = 64 * 1024 * 1024;
+
+  private static final String TEXT = "text/plain; charset=ISO-8859-1";
+
+  private final Configuration config;
+  private final int threads;
+  private final long timeout;
+  private final ForkJoinPool closurePool;
+  private final ExecutorService workers;
+  private final Semaphore smallLane;
+  private final Semaphore largeLane;
+  private final Semaphore inputBudget;
+  private HttpServer server;
+
+  private final LatencyHistogram smallLatency = new LatencyHistogram();
+  private final LatencyHistogram largeLatency = new LatencyHistogram();
+  private final LatencyHistogram queueLatency = new LatencyHistogram();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong timedOut = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong tooLarge = new AtomicLong();
+  private final AtomicLong abandoned = new AtomicLong();
+
+  public Server(Configuration config, int threads, long timeout, ForkJoinPool closurePool) {
+    this.config = config;
+    this.threads = threads;
+    this.timeout = timeout;
+    this.closurePool = closurePool;
+    workers = Executors.newCachedThreadPool(daemon("unluac-worker"));
+    smallLane = new Semaphore(threads, true);
+    largeLane = new Semaphore(Math.max(1, threads / 2), true);
+    inputBudget = new Semaphore(BUDGET / 1024, true);
+  }
+
+  private static ThreadFactory daemon(final String name) {
+    final AtomicInteger count = new AtomicInteger();
+    return new ThreadFactory() {
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+
+    };
+  }
+
+  public int start(int port) throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    server.setExecutor(Executors.newCachedThreadPool(daemon("unluac-http")));
+    server.createContext("/decompile", new HttpHandler() {
+
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        try {
+          decompile(exchange);
+        } finally {
+          exchange.close();
+        }
+      }
+
+    });
+    server.createContext("/metrics", new HttpHandler() {
+
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        try {
+          respond(exchange, 200, metrics());
+        } finally {
+          exchange.close();
+        }
+      }
+
+    });
+    server.start();
+    return server.getAddress().getPort();
+  }
+
+  public void stop() {
+    server.stop(0);
+    workers.shutdown();
+  }
+
+  private void decompile(HttpExchange exchange) throws IOException {
+    long start = System.nanoTime();
+    Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+    long limit = timeout;
+    if(query.containsKey("timeout")) {
+      try {
+        limit = Math.min(limit, Long.parseLong(query.get("timeout")));
+      } catch(NumberFormatException e) {
+        respond(exchange, 400, "invalid timeout: " + query.get("timeout"));
+        return;
+      }
+    }
+    long deadline = start + TimeUnit.MILLISECONDS.toNanos(limit);
+    ByteBuffer buffer;
+    String name;
+    String method = exchange.getRequestMethod();
+    if(method.equals("POST")) {
+      String length = exchange.getRequestHeaders().getFirst("Content-Length");
+      if(length != null && length.matches("[0-9]+") && Long.parseLong(length) > BUDGET) {
+        tooLarge.incrementAndGet();
+        respond(exchange, 413, "input larger than " + BUDGET + " bytes");
+        return;
+      }
+      buffer = BufferLoader.stream(exchange.getRequestBody(), BUDGET + 1);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      name = "request from " + exchange.getRemoteAddress();
+    } else if(method.equals("GET") && query.containsKey("file")) {
+      name = query.get("file");
+      try {
+        buffer = BufferLoader.load(new File(name));
+      } catch(IOException e) {
+        respond(exchange, 404, e.getMessage());
+        return;
+      }
+    } else {
+      respond(exchange, 400, "expected POST with the chunk, or GET with file=<path>");
+      return;
+    }
+    int size = buffer.remaining();
+    if(size > BUDGET) {
+      tooLarge.incrementAndGet();
+      respond(exchange, 413, "input larger than " + BUDGET + " bytes");
+      return;
+    }
+    boolean small = size <= SMALL;
+    if(!admit(small, size, deadline)) {
+      rejected.incrementAndGet();
+      respond(exchange, 503, "busy: not admitted within " + limit + " ms");
+      return;
+    }
+    queueLatency.record(System.nanoTime() - start);
+    inFlight.incrementAndGet();
+    Response response = new Response(exchange);
+    Budget budget = config.budget();
+    Future<?> result = workers.submit(task(buffer, response, budget, name, small, size));
+    try {
+      result.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+      if(response.finish()) {
+        (small ? smallLatency : largeLatency).record(System.nanoTime() - start);
+      }
+    } catch(TimeoutException e) {
+      budget.cancel();
+      if(response.stop()) {
+        timedOut.incrementAndGet();
+        if(!response.cancel(504, "timed out after " + limit + " ms")) {
+          throw new IOException("timed out after " + limit + " ms");
+        }
+      }
+    } catch(ExecutionException e) {
+      Throwable cause = e.getCause();
+      String message = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+      if(response.stop()) {
+        failed.incrementAndGet();
+        if(!response.cancel(422, message)) {
+          throw new IOException(message);
+        }
+      }
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      if(response.stop()) {
+        response.cancel(503, "interrupted");
+      }
+    }
+  }
+
+  private boolean admit(boolean small, int size, long deadline) {
+    try {
+      if(small) {
+        return smallLane.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+      }
+      if(!largeLane.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        return false;
+      }
+      if(!inputBudget.tryAcquire(kilobytes(size), deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        largeLane.release();
+        return false;
+      }
+      return true;
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static int kilobytes(int size) {
+    return (size + 1023) / 1024;
+  }
+
+  private Runnable task(final ByteBuffer buffer, final Response response, final Budget budget, final String name, final boolean small, final int size) {
+    return new Runnable() {
+
+      @Override
+      public void run() {
+        try {
+          Main.decompile(config, buffer, response, closurePool, name, budget);
+        } catch(Budget.Cancelled e) {
+          /* Counted by the handler as a timeout */
+        } catch(IOException e) {
+          /* A cancelled response was already counted as timed out or abandoned */
+          if(!response.isCancelled()) {
+            throw new IllegalStateException(e.getMessage(), e);
+          }
+        } finally {
+          if(small) {
+            smallLane.release();
+          } else {
+            inputBudget.release(kilobytes(size));
+            largeLane.release();
+          }
+          inFlight.decrementAndGet();
+        }
+      }
+
+    };
+  }
+
+  /* Each request is counted once: delivered, timed out, failed, or abandoned */
+  private class Response implements WritableByteChannel {
+
+    private final HttpExchange exchange;
+    private OutputStream body;
+    private boolean cancelled = false;
+    private boolean lost = false;
+    private final byte[] copy = new byte[16 * 1024];
+
+    Response(HttpExchange exchange) {
+      this.exchange = exchange;
+    }
+
+    @Override
+    public synchronized int write(ByteBuffer src) throws IOException {
+      if(cancelled) {
+        throw new IOException("request cancelled");
+      }
+      try {
+        if(body == null) {
+          exchange.getResponseHeaders().set("Content-Type", TEXT);
+          exchange.sendResponseHeaders(200, 0);
+          body = exchange.getResponseBody();
+        }
+        int written = src.remaining();
+        while(src.hasRemaining()) {
+          int count = Math.min(src.remaining(), copy.length);
+          src.get(copy, 0, count);
+          body.write(copy, 0, count);
+        }
+        return written;
+      } catch(IOException e) {
+        /* The client went away */
+        lose();
+        throw e;
+      }
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+      return !cancelled;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    synchronized boolean isCancelled() {
+      return cancelled;
+    }
+
+    private void lose() {
+      if(!lost) {
+        lost = true;
+        abandoned.incrementAndGet();
+      }
+      cancelled = true;
+    }
+
+    /* Cancels further output; false if the client was already lost and counted */
+    synchronized boolean stop() {
+      cancelled = true;
+      return !lost;
+    }
+
+    synchronized boolean finish() {
+      try {
+        if(cancelled) {
+          exchange.close();
+          return false;
+        } else if(body == null) {
+          exchange.getResponseHeaders().set("Content-Type", TEXT);
+          exchange.sendResponseHeaders(200, -1);
+        } else {
+          body.close();
+        }
+        return true;
+      } catch(IOException e) {
+        lose();
+        exchange.close();
+        return false;
+      } finally {
+        cancelled = true;
+      }
+    }
+
+    synchronized boolean cancel(int status, String message) throws IOException {
+      cancelled = true;
+      if(body != null) {
+        return false;
+      }
+      respond(exchange, status, message);
+      return true;
+    }
+
+  }
+
+  private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+    byte[] bytes = (message + "\n").getBytes(StandardCharsets.ISO_8859_1);
+    exchange.getResponseHeaders().set("Content-Type", TEXT);
+    exchange.sendResponseHeaders(status, bytes.length);
+    OutputStream out = exchange.getResponseBody();
+    out.write(bytes);
+    out.close();
+  }
+
+  private static Map<String, String> query(String raw) throws UnsupportedEncodingException {
+    Map<String, String> query = new HashMap<String, String>();
+    if(raw == null) {
+      return query;
+    }
+    for(String pair : raw.split("&")) {
+      int equals = pair.indexOf('=');
+      if(equals > 0) {
+        query.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"), URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+      }
+    }
+    return query;
+  }
+
+  public String metrics() {
+    StringBuilder s = new StringBuilder();
+    s.append("in flight: ").append(inFlight.get()).append(" (").append(threads).append(" threads)\n");
+    s.append("small: ").append(smallLatency.report()).append('\n');
+    s.append("large: ").append(largeLatency.report()).append('\n');
+    s.append("queue: ").append(queueLatency.report()).append('\n');
+    s.append(String.format("rejected: %d, timed out: %d, failed: %d, too large: %d, abandoned: %d%n",
+      rejected.get(), timedOut.get(), failed.get(), tooLarge.get(), abandoned.get()));
+    s.append(config.cacheReport());
+    return s.toString();
+  }
+
+}
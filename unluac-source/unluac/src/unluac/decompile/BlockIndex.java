@@ -0,0 +1,134 @@
+package unluac.decompile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import unluac.decompile.block.Block;
+
+public class BlockIndex {
+
+  private static class Node {
+
+    public final Block block;
+    public final List<Node> children;
+
+    public Node(Block block) {
+      this.block = block;
+      children = new ArrayList<Node>(2);
+    }
+
+  }
+
+  private final Node root;
+  private boolean nested = true;
+
+  public BlockIndex(Block outer) {
+    root = new Node(outer);
+  }
+
+  public boolean isNested() {
+    return nested;
+  }
+
+  public void add(Block block) {
+    if(!nested || block.begin >= block.end || !root.block.contains(block)) {
+      /* Such a block can't be an answer */
+      return;
+    }
+    Node node = root;
+    while(true) {
+      List<Node> children = node.children;
+      int first = firstOverlap(children, block);
+      int last = first;
+      while(last < children.size() && children.get(last).block.begin < block.end) {
+        last++;
+      }
+      if(last - first == 1 && children.get(first).block.contains(block)) {
+        /* Ties go to the later block, which ends up innermost */
+        node = children.get(first);
+        continue;
+      }
+      Node inserted = new Node(block);
+      for(int i = first; i < last; i++) {
+        Node child = children.get(i);
+        if(!block.contains(child.block)) {
+          nested = false;
+          return;
+        }
+        inserted.children.add(child);
+      }
+      children.subList(first, last).clear();
+      children.add(first, inserted);
+      return;
+    }
+  }
+
+  public Block find(int line) {
+    if(!nested) {
+      throw new IllegalStateException();
+    }
+    Node node = root;
+    while(true) {
+      List<Node> children = node.children;
+      int low = 0;
+      int high = children.size() - 1;
+      while(low <= high) {
+        int mid = (low + high) >>> 1;
+        if(children.get(mid).block.begin <= line) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      if(high >= 0 && children.get(high).block.contains(line)) {
+        node = children.get(high);
+      } else {
+        return node == root ? null : node.block;
+      }
+    }
+  }
+
+  public Block findScope(int line, int end) {
+    if(!nested) {
+      throw new IllegalStateException();
+    }
+    Node node = root;
+    Block scope = null;
+    while(true) {
+      if(node.block.contains(line) && node.block.scopeEnd() >= end) {
+        scope = node.block;
+      }
+      List<Node> children = node.children;
+      int low = 0;
+      int high = children.size() - 1;
+      while(low <= high) {
+        int mid = (low + high) >>> 1;
+        if(children.get(mid).block.begin <= line) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      if(high >= 0 && children.get(high).block.contains(line)) {
+        node = children.get(high);
+      } else {
+        return scope;
+      }
+    }
+  }
+
+  private static int firstOverlap(List<Node> children, Block block) {
+    int low = 0;
+    int high = children.size();
+    while(low < high) {
+      int mid = (low + high) >>> 1;
+      if(children.get(mid).block.end <= block.begin) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+}
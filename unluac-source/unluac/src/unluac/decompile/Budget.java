@@ -0,0 +1,87 @@
+package unluac.decompile;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Budget {
+
+  public static class Exceeded extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    Exceeded(String message) {
+      super(message);
+    }
+
+  }
+
+  /* Not an IllegalStateException, so that nothing falls back on it */
+  public static class Cancelled extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    Cancelled() {
+      super("decompile cancelled");
+    }
+
+  }
+
+  /* Checks between readings of the clock */
+  private static final int INTERVAL = 256;
+
+  private final long nanos;
+  private volatile boolean cancelled = false;
+  private final AtomicInteger exceeded = new AtomicInteger();
+  private final AtomicInteger failed = new AtomicInteger();
+
+  public Budget(long millis) {
+    nanos = millis * 1000000L;
+  }
+
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public int exceeded() {
+    return exceeded.get();
+  }
+
+  public int failed() {
+    return failed.get();
+  }
+
+  void fellBack(RuntimeException e) {
+    if(e instanceof Exceeded) {
+      exceeded.incrementAndGet();
+    } else {
+      failed.incrementAndGet();
+    }
+  }
+
+  Meter meter() {
+    return new Meter();
+  }
+
+  class Meter {
+
+    private long start = System.nanoTime();
+    private int count = 0;
+
+    void check() {
+      if(++count % INTERVAL != 0) {
+        return;
+      }
+      if(cancelled) {
+        throw new Cancelled();
+      }
+      if(nanos != 0 && System.nanoTime() - start > nanos) {
+        throw new Exceeded("over budget of " + nanos / 1000000 + " ms");
+      }
+    }
+    
+    void exclude(long nanos) {
+      start += nanos;
+    }
+
+  }
+
+}
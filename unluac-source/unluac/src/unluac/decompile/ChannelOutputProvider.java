@@ -0,0 +1,111 @@
+package unluac.decompile;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+public class ChannelOutputProvider implements RangeOutputProvider {
+
+  private static final int CHUNK = 16 * 1024;
+  
+  private static final String lineSeparator = System.getProperty("line.separator");
+  
+  public static ChannelOutputProvider stdout() {
+    return new ChannelOutputProvider(new FileOutputStream(FileDescriptor.out).getChannel(), false);
+  }
+  
+  private final WritableByteChannel channel;
+  private final boolean closeChannel;
+  private final byte[] bytes = new byte[CHUNK];
+  private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+  private int size = 0;
+  
+  public ChannelOutputProvider(WritableByteChannel channel) {
+    this(channel, true);
+  }
+  
+  public ChannelOutputProvider(WritableByteChannel channel, boolean closeChannel) {
+    this.channel = channel;
+    this.closeChannel = closeChannel;
+  }
+  
+  @Override
+  public void print(String s) {
+    print(s, 0, s.length());
+  }
+  
+  @Override
+  public void print(String s, int begin, int end) {
+    for(int i = begin; i < end; i++) {
+      if(size > bytes.length - 4) {
+        flush();
+      }
+      char c = s.charAt(i);
+      if(c <= 0xFF) {
+        bytes[size++] = (byte) c;
+      } else if(Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(s.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, s.charAt(++i));
+        bytes[size++] = (byte) (0xF0 | (codePoint >> 18));
+        bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        bytes[size++] = (byte) (0x80 | (codePoint & 0x3F));
+      } else if(Character.isSurrogate(c)) {
+        bytes[size++] = '?';
+      } else if(c < 0x800) {
+        bytes[size++] = (byte) (0xC0 | (c >> 6));
+        bytes[size++] = (byte) (0x80 | (c & 0x3F));
+      } else {
+        bytes[size++] = (byte) (0xE0 | (c >> 12));
+        bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        bytes[size++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+  }
+  
+  @Override
+  public void print(byte[] b, int begin, int end) {
+    while(begin < end) {
+      if(size == bytes.length) {
+        flush();
+      }
+      int count = Math.min(end - begin, bytes.length - size);
+      System.arraycopy(b, begin, bytes, size, count);
+      size += count;
+      begin += count;
+    }
+  }
+  
+  @Override
+  public void println() {
+    print(lineSeparator);
+  }
+  
+  public void flush() {
+    buffer.limit(size);
+    buffer.position(0);
+    try {
+      while(buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch(IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    size = 0;
+  }
+  
+  public void close() throws IOException {
+    try {
+      flush();
+    } catch(UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      if(closeChannel) {
+        channel.close();
+      }
+    }
+  }
+  
+}
@@ -3,33 +3,56 @@ package unluac.decompile;
 public class Code {
   
   private final int[] code;
+  private final byte[] op;
+  private final short[] a;
+  private final int[] b;
+  private final int[] c;
+  private final int[] sbx;
   
   public Code(int[] code) {
     this.code = code;
+    int length = code.length;
+    op = new byte[length];
+    a = new short[length];
+    b = new int[length];
+    c = new int[length];
+    sbx = new int[length];
+    for(int i = 0; i < length; i++) {
+      int codepoint = code[i];
+      op[i] = (byte) (codepoint & 0x0000003F);
+      a[i] = (short) ((codepoint >> 6) & 0x000000FF);
+      c[i] = (codepoint >> 14) & 0x000001FF;
+      b[i] = codepoint >>> 23;
+      sbx[i] = (codepoint >>> 14) - 131071;
+    }
+  }
+  
+  public int length() {
+    return code.length;
   }
   
   public int op(int line) {
-    return code[line - 1] & 0x0000003F;
+    return op[line - 1];
   }
   
   public int A(int line) {
-    return (code[line - 1] >> 6) & 0x0000000FF;
+    return a[line - 1];
   }
   
   public int C(int line) {
-    return (code[line - 1] >> 14) & 0x000001FF;
+    return c[line - 1];
   }
   
   public int B(int line) {
-    return code[line - 1] >>> 23;
+    return b[line - 1];
   }
   
   public int Bx(int line) {
-    return code[line - 1] >>> 14;
+    return sbx[line - 1] + 131071;
   }
   
   public int sBx(int line) {
-    return (code[line - 1] >>> 14) - 131071;
+    return sbx[line - 1];
   }
 
   public int codepoint(int line) {
@@ -1,9 +1,11 @@
 package unluac.decompile;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.Set;
 
 import unluac.parse.LBoolean;
+import unluac.parse.LConstants;
 import unluac.parse.LNil;
 import unluac.parse.LNumber;
 import unluac.parse.LObject;
@@ -41,7 +43,7 @@ public class Constant {
   
   private final boolean bool;
   private final double number;
-  private final String string;
+  private final byte[] string;
   
   public Constant(int constant) {
     type = 2;
@@ -70,12 +72,43 @@ public class Constant {
       type = 3;
       bool = false;
       number = 0.0;
-      string = ((LString) constant).deref();
+      string = ((LString) constant).bytes;
     } else {
       throw new IllegalArgumentException("Illegal constant type: " + constant.toString());
     }
   }
   
+  public Constant(LConstants constants, int index) {
+    switch(constants.type(index)) {
+      case LConstants.NIL:
+        type = 0;
+        bool = false;
+        number = 0.0;
+        string = null;
+        break;
+      case LConstants.BOOLEAN:
+        type = 1;
+        bool = constants.bool(index);
+        number = 0.0;
+        string = null;
+        break;
+      case LConstants.NUMBER:
+        type = 2;
+        bool = false;
+        number = constants.number(index);
+        string = null;
+        break;
+      case LConstants.STRING:
+        type = 3;
+        bool = false;
+        number = 0.0;
+        string = constants.string(index).bytes;
+        break;
+      default:
+        throw new IllegalArgumentException("Illegal constant type: " + constants.type(index));
+    }
+  }
+  
   public void print(Output out) {
     switch(type) {
       case 0:
@@ -93,32 +126,38 @@ public class Constant {
         break;
       case 3:
         int newlines = 0;
-        for(int i = 0; i < string.length(); i++) {
-          newlines += string.charAt(i) == '\n' ? 1 : 0;
+        for(int i = 0; i < string.length; i++) {
+          newlines += string[i] == '\n' ? 1 : 0;
         }
-        if(newlines > 1 || (newlines == 1 && string.indexOf('\n') != string.length() - 1)) {
+        if(newlines > 1 || (newlines == 1 && string[string.length - 1] != '\n')) {
           int pipe = 0;
-          String pipeString = "]]";
-          while(string.indexOf(pipeString) >= 0) {
+          while(closes(pipe)) {
             pipe++;
-            pipeString = "]";
-            int i = pipe;
-            while(i-- > 0) pipeString += "=";
-            pipeString += "]";
           }
           out.print("[");
-          while(pipe-- > 0) out.print("=");
+          for(int i = 0; i < pipe; i++) out.print("=");
           out.print("[");
           int indent = out.getIndentationLevel();
           out.setIndentationLevel(0);
           out.println();
-          out.print(string);
-          out.print(pipeString);
+          out.print(string, 0, string.length);
+          out.print("]");
+          while(pipe-- > 0) out.print("=");
+          out.print("]");
           out.setIndentationLevel(indent);
         } else {
           out.print("\"");
-          for(int i = 0; i < string.length(); i++) {
-            char c = string.charAt(i);
+          /* Plain characters are printed in runs between escapes */
+          int run = 0;
+          for(int i = 0; i < string.length; i++) {
+            int c = string[i] & 0xFF;
+            if(c > 31 && c < 127 && c != 34 && c != 92) {
+              continue;
+            }
+            if(run < i) {
+              out.print(string, run, i);
+            }
+            run = i + 1;
             if(c <= 31 || c >= 127) {
               if(c == 7) {
                 out.print("\\a");
@@ -145,12 +184,13 @@ public class Constant {
               }
             } else if(c == 34) {
               out.print("\\\"");
-            } else if(c == 92) {
-              out.print("\\\\");
             } else {
-              out.print(Character.toString(c));
+              out.print("\\\\");
             }
           }
+          if(run < string.length) {
+            out.print(string, run, string.length);
+          }
           out.print("\"");
         }
         break;
@@ -159,6 +199,21 @@ public class Constant {
     }
   }
   
+  /* Whether the string contains the closing bracket of a long string with this level */
+  private boolean closes(int level) {
+    int length = level + 2;
+    for(int i = 0; i + length <= string.length; i++) {
+      if(string[i] == ']' && string[i + length - 1] == ']') {
+        int j = 1;
+        while(j < length - 1 && string[i + j] == '=') j++;
+        if(j == length - 1) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+  
   public boolean isNil() {
     return type == 0;
   }
@@ -190,18 +245,15 @@ public class Constant {
     if(!isString()) {
       return false;
     }
-    if(reservedWords.contains(string)) {
-      return false;
-    }
-    if(string.length() == 0) {
+    if(string.length == 0) {
       return false;
     }
-    char start = string.charAt(0);
+    char start = (char) (string[0] & 0xFF);
     if(start != '_' && !Character.isLetter(start)) {
       return false;
     }
-    for(int i = 1; i < string.length(); i++) {
-      char next = string.charAt(i);
+    for(int i = 1; i < string.length; i++) {
+      char next = (char) (string[i] & 0xFF);
       if(Character.isLetter(next)) {
         continue;
       }
@@ -213,14 +265,14 @@ public class Constant {
       }
       return false;
     }
-    return true;
+    return !reservedWords.contains(asName());
   }
   
   public String asName() {
     if(type != 3) {
       throw new IllegalStateException();
     }
-    return string;
+    return new String(string, StandardCharsets.ISO_8859_1);
   }
   
 }
@@ -6,7 +6,8 @@ public class Declaration {
 
   public final String name;
   public final int begin;
-  public final int end;
+  
+  public int end;
   public int register;
   
   /**
@@ -20,9 +21,13 @@ public class Declaration {
   public boolean forLoopExplicit = false;
   
   public Declaration(LLocal local) {
-    this.name = local.toString();
-    this.begin = local.start;
-    this.end = local.end;
+    this(local.toString(), local.start, local.end);
+  }
+  
+  public Declaration(String name, int begin, int end) {
+    this.name = name;
+    this.begin = begin;
+    this.end = end;
   }
   
 }
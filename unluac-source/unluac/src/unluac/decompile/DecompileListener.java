@@ -0,0 +1,11 @@
+package unluac.decompile;
+
+import unluac.parse.LFunction;
+
+public interface DecompileListener {
+
+  public void phase(String path, String phase, long nanos, long bytes);
+  
+  public void function(String path, LFunction function, int blocks, long nanos, long bytes);
+  
+}
@@ -3,8 +3,15 @@ package unluac.decompile;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import unluac.decompile.block.AlwaysLoop;
 import unluac.decompile.block.Block;
@@ -63,6 +70,7 @@ import unluac.parse.LBoolean;
 import unluac.parse.LFunction;
 import unluac.parse.LNil;
 import unluac.util.Stack;
+import unluac.util.ThreadAllocation;
 
 public class Decompiler {
 
@@ -104,7 +112,11 @@ public class Decompiler {
   public static final int CLOSE = 35;
   public static final int CLOSURE = 36;
   public static final int VARARG = 37;
+  
+  /* Not a Lua 5.1 opcode: SETLIST with C the first index, from LJLowering */
+  public static final int SETLISTN = 38;
     
+  private final LFunction function;
   private final Output out;
   private final int registers;
   private final int length;
@@ -117,6 +129,25 @@ public class Decompiler {
   private final int params;
   private final int vararg;
   
+  private Map<LFunction, Fragment> fragments;
+  
+  private FragmentCache cache;
+  
+  private DecompileListener listener;
+  private String path = "main";
+  
+  private Budget budget;
+  private Budget.Meter meter;
+  
+  private boolean streaming = false;
+  
+  /*
+   * Where completed statements go while streaming: the output itself, or
+   * with a budget a spill copied out once the function is done, so that a
+   * fallback never follows half-decompiled text.
+   */
+  private Output stream;
+  
   public Decompiler(LFunction function) {
     this(function, new Output());
   }
@@ -126,17 +157,23 @@ public class Decompiler {
   }
   
   public Decompiler(LFunction function, Output out) {
+    this(function, out, null);
+  }
+  
+  public Decompiler(LFunction function, Output out, Map<LFunction, Fragment> fragments) {
+    this.function = function;
     this.out = out;
+    this.fragments = fragments;
     registers = function.maximumStackSize;
     length = function.code.length;
     code = new Code(function.code);
-    constants = new Constant[function.constants.length];
+    constants = new Constant[function.constants.length()];
     for(int i = 0; i < constants.length; i++) {
-      constants[i] = new Constant(function.constants[i]);
+      constants[i] = new Constant(function.constants, i);
     }
-    declList = new Declaration[function.locals.length];
+    declList = new Declaration[function.localNames.length];
     for(int i = 0; i < declList.length; i++) {
-      declList[i] = new Declaration(function.locals[i]);
+      declList[i] = new Declaration(function.localName(i), function.localStarts[i], function.localEnds[i]);
     }
     upvalues = function.upvalues;
     functions = function.functions;
@@ -144,19 +181,307 @@ public class Decompiler {
     vararg = function.vararg;
   }
   
+  public void setListener(DecompileListener listener) {
+    this.listener = listener;
+  }
+  
+  public void setCache(FragmentCache cache) {
+    this.cache = cache;
+  }
+  
+  public void setBudget(Budget budget) {
+    this.budget = budget;
+  }
+  
+  public void setStreaming(boolean streaming) {
+    this.streaming = streaming;
+  }
+  
+  private Decompiler nested(LFunction function, Output out) {
+    Decompiler d = new Decompiler(function, out, fragments);
+    d.cache = cache;
+    d.listener = listener;
+    d.budget = budget;
+    for(int i = 0; i < functions.length; i++) {
+      if(functions[i] == function) {
+        d.path = path + "/" + i;
+      }
+    }
+    return d;
+  }
+  
+  public void decompileNested(LFunction function, Output out) {
+    Fragment fragment = fragments != null ? fragments.get(function) : null;
+    if(fragment == null && cache != null) {
+      fragment = cache.get(function);
+      if(fragment == null) {
+        int exceeded = budget != null ? budget.exceeded() : 0;
+        fragment = decompileFragment(function);
+        if(budget == null || budget.exceeded() == exceeded) {
+          cache.put(function, fragment);
+        }
+      }
+    } else if(fragment == null && budget != null) {
+      fragment = decompileFragment(function);
+    }
+    if(fragment != null) {
+      out.print(fragment);
+    } else {
+      decompileNestedDirectly(function, out);
+    }
+    if(stream != null && fragments != null) {
+      fragments.remove(function);
+    }
+  }
+  
+  private Fragment decompileFragment(LFunction function) {
+    Fragment fragment = new Fragment();
+    try {
+      decompileNestedDirectly(function, fragment);
+    } catch(RuntimeException e) {
+      if(budget == null || e instanceof Budget.Cancelled) {
+        throw e;
+      }
+      fragment = new Fragment();
+      nested(function, fragment).fallBack(e);
+    }
+    return fragment;
+  }
+  
+  private void decompileNestedDirectly(LFunction function, Output out) {
+    if(listener == null) {
+      nested(function, out).decompile();
+    } else {
+      long start = System.nanoTime();
+      long allocated = ThreadAllocation.current();
+      nested(function, out).decompile();
+      nestedNanos += System.nanoTime() - start;
+      nestedBytes += ThreadAllocation.current() - allocated;
+    }
+  }
+  
   private Registers r;
   
+  public void decompile(ForkJoinPool pool) {
+    fragments = new ConcurrentHashMap<LFunction, Fragment>();
+    pool.invoke(new FragmentTask(this));
+    decompile();
+  }
+  
+  private static class FragmentTask extends RecursiveAction {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final Decompiler parent;
+    
+    FragmentTask(Decompiler parent) {
+      this.parent = parent;
+    }
+    
+    @Override
+    protected void compute() {
+      List<ForkJoinTask<Void>> tasks = new ArrayList<ForkJoinTask<Void>>(parent.functions.length);
+      for(final LFunction function : parent.functions) {
+        tasks.add(new RecursiveAction() {
+          
+          private static final long serialVersionUID = 1L;
+          
+          @Override
+          protected void compute() {
+            boolean cached = parent.cache != null;
+            Fragment fragment = cached ? parent.cache.get(function) : null;
+            if(fragment == null) {
+              fragment = new Fragment();
+              Decompiler d = parent.nested(function, fragment);
+              new FragmentTask(d).compute();
+              Budget budget = parent.budget;
+              int exceeded = budget != null ? budget.exceeded() : 0;
+              try {
+                d.decompile();
+              } catch(RuntimeException e) {
+                if(budget == null || e instanceof Budget.Cancelled) {
+                  throw e;
+                }
+                fragment = new Fragment();
+                parent.nested(function, fragment).fallBack(e);
+              }
+              if(budget != null && budget.exceeded() != exceeded) {
+                cached = false;
+              }
+              if(cached) {
+                parent.cache.put(function, fragment);
+              }
+            }
+            parent.fragments.put(function, fragment);
+          }
+          
+        });
+      }
+      invokeAll(tasks);
+    }
+    
+  }
+  
+  private OuterBlock outer;
+  
   public void decompile() {
+    if(budget != null) {
+      meter = budget.meter();
+    }
+    long nanos = 0;
+    long bytes = 0;
+    Spill spill = streaming && budget != null ? new Spill() : null;
+    if(streaming) {
+      stream = spill != null ? new Output(spill) : out;
+    }
+    try {
+      try {
+        if(listener == null) {
+          handleBranches();
+          processSequence();
+        } else {
+          startPhase();
+          handleBranches();
+          nanos += endPhase("handleBranches");
+          bytes += phaseBytes;
+          startPhase();
+          processSequence();
+          nanos += endPhase("processSequence");
+          bytes += phaseBytes;
+        }
+      } catch(RuntimeException e) {
+        if(budget == null || e instanceof Budget.Cancelled) {
+          throw e;
+        }
+        stream = null;
+        fallBack(e);
+        return;
+      }
+      stream = null;
+      if(spill != null) {
+        spill.copyTo(out);
+      }
+    } finally {
+      stream = null;
+      if(spill != null) {
+        spill.discard();
+      }
+    }
+    meter = null;
+    if(listener == null) {
+      print();
+    } else {
+      startPhase();
+      print();
+      nanos += endPhase("print");
+      bytes += phaseBytes;
+      listener.function(path, function, blocks.size(), nanos, bytes);
+    }
+  }
+  
+  private void fallBack(RuntimeException e) {
+    budget.fellBack(e);
+    String reason = e.getMessage() != null ? e.getMessage() : e.toString();
+    out.println("-- " + path + ": not decompiled (" + reason + "), disassembly follows");
+    new Disassembler(function, path).print(out);
+    for(int i = 0; i < functions.length; i++) {
+      out.println("-- " + path + "/" + i + ":");
+      out.print("local _ = ");
+      new ClosureExpression(functions[i], 0, this).print(out);
+      out.println();
+    }
+  }
+  
+  private void check() {
+    if(meter != null) {
+      meter.check();
+    }
+  }
+  
+  /* Time spent in nested functions during the current phase */
+  private long nestedNanos;
+  private long nestedBytes;
+  
+  private long phaseStart;
+  private long phaseBytes;
+  
+  private void startPhase() {
+    nestedNanos = 0;
+    nestedBytes = 0;
+    phaseBytes = ThreadAllocation.current();
+    phaseStart = System.nanoTime();
+  }
+  
+  private long endPhase(String phase) {
+    long nanos = System.nanoTime() - phaseStart - nestedNanos;
+    phaseBytes = ThreadAllocation.current() - phaseBytes - nestedBytes;
+    listener.phase(path, phase, nanos, phaseBytes);
+    return nanos;
+  }
+  
+  public void handleBranches() {
     r = new Registers(registers, length, declList, constants);
-    handleInitialDeclares();
+    if(isStraightLine()) {
+      outer = handleStraightLine();
+      return;
+    }
     findReverseTargets();
     handleBranches(true);
-    Block outer = handleBranches(false);
+    outer = handleBranches(false);
+  }
+  
+  private boolean isStraightLine() {
+    for(int line = 1; line <= length; line++) {
+      switch(code.op(line)) {
+        case EQ:
+        case LT:
+        case LE:
+        case TEST:
+        case TESTSET:
+        case JMP:
+        case FORPREP:
+        case FORLOOP:
+        case TFORLOOP:
+          return false;
+        case LOADBOOL:
+          if(code.C(line) != 0) {
+            return false;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return true;
+  }
+  
+  private OuterBlock handleStraightLine() {
+    blocks = new ArrayList<Block>();
+    OuterBlock outer = new OuterBlock(length);
+    blocks.add(outer);
+    containers = new BlockIndex(outer);
+    unprotected = new BlockIndex(outer);
+    breakables = new BlockIndex(outer);
+    handleScopes();
+    Collections.sort(blocks);
+    containers = null;
+    unprotected = null;
+    breakables = null;
+    return outer;
+  }
+  
+  public void processSequence() {
     processSequence(1, length);
+  }
+  
+  public void print() {
+    if(!streaming) {
+      handleInitialDeclares(out);
+    }
     outer.print(out);
   }
   
-  private void handleInitialDeclares() {
+  private void handleInitialDeclares(Output out) {
     List<Declaration> initdecls = new ArrayList<Declaration>(declList.length);
     for(int i = params + (vararg & 1); i < declList.length; i++) {
       if(declList[i].begin == 0) {
@@ -331,11 +656,25 @@ public class Decompiler {
         }
         break;
       }
+      case SETLISTN: {
+        if(C == 0) {
+          C = code.codepoint(line + 1);
+          skip[line + 1] = true;
+        }
+        if(B == 0) {
+          B = registers - A - 1;
+        }
+        Expression table = r.getExpression(A, line);
+        for(int i = 1; i <= B; i++) {
+          operations.add(new TableSet(line, table, new ConstantExpression(new Constant(C + i - 1), -1), r.getExpression(A + i, line), false, r.getUpdated(A + i, line)));
+        }
+        break;
+      }
       case CLOSE:
         break;
       case CLOSURE: {
         LFunction f = functions[Bx];
-        operations.add(new RegisterSet(line, A, new ClosureExpression(f, line + 1)));
+        operations.add(new RegisterSet(line, A, new ClosureExpression(f, line + 1, this)));
         for(int i = 0; i < f.numUpvalues; i++) {
           skip[line + 1 + i] = true;
         }
@@ -420,7 +759,14 @@ public class Decompiler {
     Stack<Block> blockStack = new Stack<Block>();
     blockStack.push(blocks.get(0));
     skip = new boolean[end + 1];
+    if(stream != null) {
+      handleInitialDeclares(stream);
+    }
     for(int line = begin; line <= end; line++) {
+      check();
+      if(stream != null) {
+        flush(line);
+      }
       /*
       System.out.print("-- line " + line + "; R[0] = ");
       r.getValue(0, line).print(new Output());
@@ -527,6 +873,14 @@ public class Decompiler {
     }    
   }
   
+  private void flush(int line) {
+    long start = System.nanoTime();
+    r.forget(outer.flush(stream, line));
+    if(meter != null) {
+      meter.exclude(System.nanoTime() - start);
+    }
+  }
+  
   private boolean isMoveIntoTarget(int line) {
     switch(code.op(line)) {
       case MOVE:
@@ -585,18 +939,41 @@ public class Decompiler {
   
   private ArrayList<Block> blocks;
   
+  /* Indexes of the blocks that can answer each nesting query */
+  private BlockIndex containers;
+  private BlockIndex unprotected;
+  private BlockIndex breakables;
+  
+  private void addBlock(Block block) {
+    blocks.add(block);
+    if(!block.loopRedirectAdjustment) {
+      if(block.isContainer()) {
+        containers.add(block);
+      }
+      if(block.isUnprotected()) {
+        unprotected.add(block);
+      }
+    }
+    if(block.breakable()) {
+      breakables.add(block);
+    }
+  }
+  
   private OuterBlock handleBranches(boolean first) {
     List<Block> oldBlocks = blocks;
     blocks = new ArrayList<Block>();
     OuterBlock outer = new OuterBlock(length);
     blocks.add(outer);
+    containers = new BlockIndex(outer);
+    unprotected = new BlockIndex(outer);
+    breakables = new BlockIndex(outer);
     if(!first) {
       for(Block block : oldBlocks) {
         if(block instanceof AlwaysLoop) {
-          blocks.add(block);
+          addBlock(block);
         }
         if(block instanceof Break) {
-          blocks.add(block);
+          addBlock(block);
         }
       }
     }
@@ -606,6 +983,7 @@ public class Decompiler {
     boolean testset = false;
     int testsetend = -1;
     for(int line = 1; line <= length; line++) {
+      check();
       if(!skip[line]) {
         switch(code.op(line)) {
           case EQ:
@@ -672,10 +1050,10 @@ public class Decompiler {
               }
               skip[tline] = true;
               skip[tline + 1] = true;
-              blocks.add(new TForBlock(line + 1, tline + 2, A, C, r));
+              addBlock(new TForBlock(line + 1, tline + 2, A, C, r));
             } else if(code.sBx(line) == 2 && code.op(line + 1) == LOADBOOL && code.C(line + 1) != 0) {
               /* This is the tail of a boolean set with a compare node and assign node */
-              blocks.add(new BooleanIndicator(line));
+              addBlock(new BooleanIndicator(line));
             } else {
               /*
               for(Block block : blocks) {
@@ -686,9 +1064,9 @@ public class Decompiler {
               */
               if(first) {
                 if(tline > line) {
-                  blocks.add(new Break(line, tline));
+                  addBlock(new Break(line, tline));
                 } else {
-                  blocks.add(new AlwaysLoop(tline, line + 1));
+                  addBlock(new AlwaysLoop(tline, line + 1));
                 }
               }
             }
@@ -696,7 +1074,7 @@ public class Decompiler {
           }
           case FORPREP:
             reduce = true;
-            blocks.add(new ForBlock(line + 1, line + 2 + code.sBx(line), code.A(line), r));
+            addBlock(new ForBlock(line + 1, line + 2 + code.sBx(line), code.A(line), r));
             skip[line + 1 + code.sBx(line)] = true;
             r.getDeclaration(code.A(line), line).forLoop = true;
             r.getDeclaration(code.A(line) + 1, line).forLoop = true;
@@ -726,6 +1104,7 @@ public class Decompiler {
         Stack<Branch> conditions = new Stack<Branch>();
         Stack<Stack<Branch>> backups = new Stack<Stack<Branch>>();
         do {
+          check();
           boolean isAssignNode = stack.peek() instanceof TestSetNode;
           int assignEnd = stack.peek().end;
           boolean compareCorrect = false;
@@ -772,6 +1151,7 @@ public class Decompiler {
           backups.push(backup);
         } while(!stack.isEmpty());
         do {
+          check();
           Branch cond = conditions.pop();
           Stack<Branch> backup = backups.pop();
           int breakTarget = breakTarget(cond.begin);
@@ -806,16 +1186,16 @@ public class Decompiler {
             }
           }
           if(cond.isSet) {
-            blocks.add(new SetBlock(cond, cond.setTarget, line, cond.begin, cond.end, r));
+            addBlock(new SetBlock(cond, cond.setTarget, line, cond.begin, cond.end, r));
           } else if(code.op(cond.begin) == LOADBOOL && code.C(cond.begin) != 0) {
             int begin = cond.begin;
             int target = code.A(begin);
             if(code.B(begin) == 0) {
               cond = cond.invert();
             }
-            blocks.add(new CompareBlock(begin, begin + 2, target, cond));
+            addBlock(new CompareBlock(begin, begin + 2, target, cond));
           } else if(cond.end < cond.begin) {
-            blocks.add(new RepeatBlock(cond, r));
+            addBlock(new RepeatBlock(cond, r));
           } else if(hasTail) {
             if(tail > cond.end) {
               int op = code.op(tail - 1);
@@ -823,31 +1203,42 @@ public class Decompiler {
               int loopback2 = tail + sbx;
               if((op == FORLOOP || op == JMP) && loopback2 <= cond.begin) {
                 /* (ends with break) */
-                blocks.add(new IfThenEndBlock(cond, backup, r));
+                addBlock(new IfThenEndBlock(cond, backup, r));
               } else {
                 IfThenElseBlock ifthen = new IfThenElseBlock(cond, originalTail, r);
                 skip[cond.end - 1] = true; //Skip the JMP over the else block
                 ElseEndBlock elseend = new ElseEndBlock(cond.end, tail);
-                blocks.add(ifthen);
-                blocks.add(elseend);
+                addBlock(ifthen);
+                addBlock(elseend);
               }
             } else {
               int loopback = tail;
               skip[cond.end - 1] = true;
               if(loopback >= cond.begin) {
-                blocks.add(new IfThenEndBlock(cond, backup, r));
+                addBlock(new IfThenEndBlock(cond, backup, r));
               } else {
-                blocks.add(new WhileBlock(cond, originalTail, r));
+                addBlock(new WhileBlock(cond, originalTail, r));
               }
             }          
           } else {
-            blocks.add(new IfThenEndBlock(cond, backup, r));
+            addBlock(new IfThenEndBlock(cond, backup, r));
           }
         } while(!conditions.isEmpty());
       }
     }
-    //Find variables whose scope isn't controlled by existing blocks:
-    for(Declaration decl : declList) {
+    handleScopes();
+    Collections.sort(blocks);
+    backup = null;
+    containers = null;
+    unprotected = null;
+    breakables = null;
+    return outer;
+  }
+  
+  private void handleScopes() {
+    int[] next = function.inferredLocals ? nextInRegister() : null;
+    for(int i = 0; i < declList.length; i++) {
+      Declaration decl = declList[i];
       if(!decl.forLoop && !decl.forLoopExplicit) {
         boolean needsDoEnd = true;
         for(Block block : blocks) {
@@ -858,20 +1249,73 @@ public class Decompiler {
             }
           }
         }
+        if(needsDoEnd && function.inferredLocals) {
+          needsDoEnd = decl.end >= decl.begin && !extendToScope(decl, next[i]);
+        }
         if(needsDoEnd) {
           //Without accounting for the order of declarations, we might
           //create another do..end block later that would eliminate the
           //need for this one. But order of decls should fix this.
-          blocks.add(new DoEndBlock(decl.begin, decl.end + 1));
+          addBlock(new DoEndBlock(decl.begin, decl.end + 1));
         }
       }
     }
-    Collections.sort(blocks);
-    backup = null;
-    return outer;
+  }
+  
+  private int[] nextInRegister() {
+    Integer[] order = new Integer[declList.length];
+    for(int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      
+      @Override
+      public int compare(Integer i, Integer j) {
+        return declList[i].begin - declList[j].begin;
+      }
+      
+    });
+    int[] next = new int[declList.length];
+    Map<Integer, Integer> following = new HashMap<Integer, Integer>();
+    for(int k = order.length - 1; k >= 0; k--) {
+      Declaration decl = declList[order[k]];
+      Integer begin = following.get(decl.register);
+      next[order[k]] = begin != null ? begin : Integer.MAX_VALUE;
+      if(k == 0 || declList[order[k - 1]].begin != decl.begin) {
+        /* Only declarations that begin later count */
+        for(int j = k; j < order.length && declList[order[j]].begin == decl.begin; j++) {
+          following.put(declList[order[j]].register, decl.begin);
+        }
+      }
+    }
+    return next;
+  }
+  
+  private boolean extendToScope(Declaration decl, int next) {
+    Block scope = null;
+    if(containers.isNested()) {
+      scope = containers.findScope(decl.begin, decl.end);
+    } else {
+      for(Block block : blocks) {
+        if(block.isContainer() && block.contains(decl.begin) && block.scopeEnd() >= decl.end) {
+          if(scope == null || scope.contains(block)) {
+            scope = block;
+          }
+        }
+      }
+    }
+    if(scope == null || next <= scope.scopeEnd()) {
+      return false;
+    }
+    decl.end = scope.scopeEnd();
+    return true;
   }
   
   private int breakTarget(int line) {
+    if(breakables.isNested()) {
+      Block block = breakables.find(line);
+      return block != null ? block.end : -1;
+    }
     int tline = Integer.MAX_VALUE;
     for(Block block : blocks) {
       if(block.breakable() && block.contains(line)) {
@@ -885,24 +1329,14 @@ public class Decompiler {
   private Block enclosingBlock(int line) {
     //Assumes the outer block is first
     Block outer = blocks.get(0);
-    Block enclosing = outer;
-    for(int i = 1; i < blocks.size(); i++) {
-      Block next = blocks.get(i);
-      if(next.isContainer() && enclosing.contains(next) && next.contains(line) && !next.loopRedirectAdjustment) {
-        enclosing = next;
-      }
+    if(containers.isNested()) {
+      Block block = containers.find(line);
+      return block != null ? block : outer;
     }
-    return enclosing;
-  }
-  
-  private Block enclosingBlock(Block block) {
-    //Assumes the outer block is first
-    Block outer = blocks.get(0);
     Block enclosing = outer;
     for(int i = 1; i < blocks.size(); i++) {
       Block next = blocks.get(i);
-      if(next == block) continue;
-      if(next.contains(block) && enclosing.contains(next)) {
+      if(next.isContainer() && enclosing.contains(next) && next.contains(line) && !next.loopRedirectAdjustment) {
         enclosing = next;
       }
     }
@@ -910,6 +1344,9 @@ public class Decompiler {
   }
   
   private Block enclosingUnprotectedBlock(int line) {
+    if(unprotected.isNested()) {
+      return unprotected.find(line);
+    }
     //Assumes the outer block is first
     Block outer = blocks.get(0);
     Block enclosing = outer;
@@ -922,15 +1359,16 @@ public class Decompiler {
     return enclosing == outer ? null : enclosing;
   }
   
-  private static Stack<Branch> backup;
+  private Stack<Branch> backup;
   
-  public static Branch popCondition(Stack<Branch> stack) {
+  public Branch popCondition(Stack<Branch> stack) {
     Branch branch = stack.pop();
     if(backup != null) backup.push(branch);
     if(branch instanceof TestSetNode) {
       throw new IllegalStateException();
     }
     while(!stack.isEmpty()) {
+      check();
       Branch next = stack.peek();
       if(next instanceof TestSetNode) break;
       if(next.end == branch.begin) {
@@ -988,6 +1426,7 @@ public class Decompiler {
     }
     int target = branch.setTarget;
     while(!stack.isEmpty()) {
+      check();
       Branch next = stack.peek();
       boolean ninvert;
       int nend = next.end;
@@ -1095,6 +1534,7 @@ public class Decompiler {
       case TEST:
       case TESTSET:
       case SETLIST:
+      case SETLISTN:
         return false;
       case CALL: {
         int a = code.A(line);
@@ -1176,6 +1616,7 @@ public class Decompiler {
       case TEST:
       case TESTSET:
       case SETLIST:
+      case SETLISTN:
         return -1;
       case CALL: {
         if(code.C(line) == 2) {
@@ -0,0 +1,346 @@
+package unluac.decompile;
+
+import java.util.Arrays;
+
+import unluac.parse.LConstants;
+import unluac.parse.LFunction;
+
+public class Disassembler {
+
+  private static final String[] names = {
+    "MOVE", "LOADK", "LOADBOOL", "LOADNIL", "GETUPVAL", "GETGLOBAL", "GETTABLE", "SETGLOBAL",
+    "SETUPVAL", "SETTABLE", "NEWTABLE", "SELF", "ADD", "SUB", "MUL", "DIV",
+    "MOD", "POW", "UNM", "NOT", "LEN", "CONCAT", "JMP", "EQ",
+    "LT", "LE", "TEST", "TESTSET", "CALL", "TAILCALL", "RETURN", "FORLOOP",
+    "FORPREP", "TFORLOOP", "SETLIST", "CLOSE", "CLOSURE", "VARARG", "SETLISTN",
+  };
+
+  public static String opcodeName(int op) {
+    return op >= 0 && op < names.length ? names[op] : "?" + op;
+  }
+
+  /* Instruction formats */
+  private static final int ABC = 0;
+  private static final int ABX = 1;
+  private static final int ASBX = 2;
+
+  /* What an operand refers to */
+  private static final int N = 0; // a count, a flag, or unused
+  private static final int R = 1; // a register
+  private static final int K = 2; // a constant
+  private static final int RK = 3; // a register, or a constant if 256 or more
+  private static final int U = 4; // an upvalue
+  private static final int F = 5; // a nested function
+  private static final int J = 6; // a jump
+
+  /* Format and the kinds of A, B (or Bx, sBx) and C, by opcode */
+  private static final int[][] operands = {
+    {ABC, R, R, N}, // MOVE
+    {ABX, R, K, N}, // LOADK
+    {ABC, R, N, N}, // LOADBOOL
+    {ABC, R, R, N}, // LOADNIL
+    {ABC, R, U, N}, // GETUPVAL
+    {ABX, R, K, N}, // GETGLOBAL
+    {ABC, R, R, RK}, // GETTABLE
+    {ABX, R, K, N}, // SETGLOBAL
+    {ABC, R, U, N}, // SETUPVAL
+    {ABC, R, RK, RK}, // SETTABLE
+    {ABC, R, N, N}, // NEWTABLE
+    {ABC, R, R, RK}, // SELF
+    {ABC, R, RK, RK}, // ADD
+    {ABC, R, RK, RK}, // SUB
+    {ABC, R, RK, RK}, // MUL
+    {ABC, R, RK, RK}, // DIV
+    {ABC, R, RK, RK}, // MOD
+    {ABC, R, RK, RK}, // POW
+    {ABC, R, R, N}, // UNM
+    {ABC, R, R, N}, // NOT
+    {ABC, R, R, N}, // LEN
+    {ABC, R, R, R}, // CONCAT
+    {ASBX, N, J, N}, // JMP
+    {ABC, N, RK, RK}, // EQ
+    {ABC, N, RK, RK}, // LT
+    {ABC, N, RK, RK}, // LE
+    {ABC, R, N, N}, // TEST
+    {ABC, R, R, N}, // TESTSET
+    {ABC, R, N, N}, // CALL
+    {ABC, R, N, N}, // TAILCALL
+    {ABC, R, N, N}, // RETURN
+    {ASBX, R, J, N}, // FORLOOP
+    {ASBX, R, J, N}, // FORPREP
+    {ABC, R, N, N}, // TFORLOOP
+    {ABC, R, N, N}, // SETLIST
+    {ABC, R, N, N}, // CLOSE
+    {ABX, R, F, N}, // CLOSURE
+    {ABC, R, N, N}, // VARARG
+    {ABC, R, N, N}, // SETLISTN
+  };
+
+  /* Longest string constant shown in full */
+  private static final int MAX_STRING = 40;
+
+  private final LFunction function;
+  private final String path;
+  /* Shared by the functions of one disassembleAll */
+  private final StringBuilder s;
+  private int[] ends;
+  private int lines = 0;
+
+  /* The local in each register at the current line, and where it ends */
+  private final String[] locals;
+  private final int[] localEnds;
+  private int nextLocal = 0;
+
+  public Disassembler(LFunction function, String path) {
+    this(function, path, new StringBuilder(), new int[16]);
+  }
+
+  private Disassembler(LFunction function, String path, StringBuilder s, int[] ends) {
+    this.function = function;
+    this.path = path;
+    this.s = s;
+    this.ends = ends;
+    locals = new String[Math.max(function.maximumStackSize, 1)];
+    localEnds = new int[locals.length];
+  }
+
+  public static void disassembleAll(LFunction function, String path, Output out) {
+    new Disassembler(function, path).printAll(out);
+  }
+
+  private void printAll(Output out) {
+    out.println("-- function " + path);
+    print(out);
+    for(int i = 0; i < function.functions.length; i++) {
+      out.println();
+      Disassembler nested = new Disassembler(function.functions[i], path + "/" + i, s, ends);
+      nested.printAll(out);
+      ends = nested.ends;
+    }
+  }
+
+  public void print(Output out) {
+    int[] code = function.code;
+    s.setLength(0);
+    lines = 0;
+    s.append("-- ").append(function.numParams).append(" params, ");
+    if((function.vararg & 1) != 0) {
+      s.append("vararg, ");
+    }
+    s.append(function.maximumStackSize).append(" registers, ");
+    s.append(function.numUpvalues).append(" upvalues, ");
+    s.append(function.constants.length()).append(" constants, ");
+    s.append(code.length).append(" instructions");
+    endLine();
+    boolean[] targets = targets(code);
+    for(int line = 1; line <= code.length; line++) {
+      activate(line);
+      s.append("-- ");
+      pad(s, line, 5);
+      s.append(targets[line] ? " > " : "   ");
+      if(function.lines.length >= line) {
+        s.append('[').append(function.lines[line - 1]).append("] ");
+      }
+      int codepoint = code[line - 1];
+      if(line > 1 && isExtraArgument(code[line - 2])) {
+        s.append("(operand ").append(codepoint).append(')');
+      } else {
+        instruction(line, codepoint);
+      }
+      endLine();
+    }
+    String text = s.toString();
+    int begin = 0;
+    for(int i = 0; i < lines; i++) {
+      out.print(text, begin, ends[i]);
+      out.println();
+      begin = ends[i];
+    }
+  }
+
+  private void endLine() {
+    if(lines == ends.length) {
+      ends = Arrays.copyOf(ends, lines * 2);
+    }
+    ends[lines++] = s.length();
+  }
+
+  private static boolean[] targets(int[] code) {
+    boolean[] targets = new boolean[code.length + 2];
+    for(int line = 1; line <= code.length; line++) {
+      int op = code[line - 1] & 0x3F;
+      int target = 0;
+      if(op < operands.length && operands[op][0] == ASBX) {
+        target = line + 1 + (code[line - 1] >>> 14) - 131071;
+      } else if(op == Decompiler.LOADBOOL && ((code[line - 1] >> 14) & 0x1FF) != 0) {
+        target = line + 2;
+      }
+      if(target >= 1 && target <= code.length) {
+        targets[target] = true;
+      }
+    }
+    return targets;
+  }
+
+  private void activate(int line) {
+    while(nextLocal < function.localNames.length && function.localStarts[nextLocal] <= line) {
+      int begin = function.localStarts[nextLocal];
+      int register = 0;
+      while(register < locals.length && locals[register] != null && localEnds[register] >= begin) {
+        register++;
+      }
+      if(register < locals.length && begin <= function.localEnds[nextLocal]) {
+        locals[register] = function.localName(nextLocal);
+        localEnds[register] = function.localEnds[nextLocal];
+      }
+      nextLocal++;
+    }
+  }
+
+  private static boolean isExtraArgument(int codepoint) {
+    int op = codepoint & 0x3F;
+    return (op == Decompiler.SETLIST || op == Decompiler.SETLISTN) && ((codepoint >> 14) & 0x1FF) == 0;
+  }
+
+  private void instruction(int line, int codepoint) {
+    int op = codepoint & 0x3F;
+    if(op >= names.length) {
+      s.append('?').append(op).append(" ; 0x").append(Integer.toHexString(codepoint));
+      return;
+    }
+    int[] kinds = operands[op];
+    int A = (codepoint >> 6) & 0xFF;
+    int B;
+    int C = (codepoint >> 14) & 0x1FF;
+    switch(kinds[0]) {
+      case ABX:
+        B = codepoint >>> 14;
+        break;
+      case ASBX:
+        B = (codepoint >>> 14) - 131071;
+        break;
+      default:
+        B = codepoint >>> 23;
+        break;
+    }
+    s.append(names[op]);
+    for(int i = names[op].length(); i < 9; i++) {
+      s.append(' ');
+    }
+    if(kinds[0] != ASBX || kinds[1] != N) {
+      s.append(' ').append(A);
+    }
+    s.append(' ').append(B);
+    if(kinds[0] == ABC) {
+      s.append(' ').append(C);
+    }
+    int mark = s.length();
+    s.append(" ;");
+    int before = s.length();
+    annotate(kinds[1], A, line);
+    annotate(kinds[2], B, line);
+    if(kinds[0] == ABC) {
+      annotate(kinds[3], C, line);
+    }
+    if(s.length() == before) {
+      s.setLength(mark);
+    }
+  }
+
+  private void annotate(int kind, int value, int line) {
+    switch(kind) {
+      case R:
+        if(value < locals.length && locals[value] != null && localEnds[value] >= line) {
+          s.append(' ').append(locals[value]);
+        }
+        break;
+      case RK:
+        if(value >= 256) {
+          s.append(' ');
+          constant(value - 256);
+        } else {
+          annotate(R, value, line);
+        }
+        break;
+      case K:
+        s.append(' ');
+        constant(value);
+        break;
+      case U:
+        if(value < function.upvalues.length && function.upvalues[value] != null) {
+          s.append(' ').append(function.upvalues[value]);
+        }
+        break;
+      case F:
+        s.append(' ').append(path).append('/').append(value);
+        break;
+      case J:
+        s.append(" to ").append(line + 1 + value);
+        break;
+    }
+  }
+
+  private void constant(int index) {
+    LConstants constants = function.constants;
+    if(index < 0 || index >= constants.length()) {
+      s.append('k').append(index).append('?');
+      return;
+    }
+    switch(constants.type(index)) {
+      case LConstants.NIL:
+        s.append("nil");
+        break;
+      case LConstants.BOOLEAN:
+        s.append(constants.bool(index));
+        break;
+      case LConstants.NUMBER: {
+        double number = constants.number(index);
+        if(number == Math.round(number)) {
+          s.append((long) number);
+        } else {
+          s.append(number);
+        }
+        break;
+      }
+      case LConstants.STRING:
+        quote(constants.string(index).deref());
+        break;
+      default:
+        s.append('?');
+        break;
+    }
+  }
+
+  private void quote(String string) {
+    s.append('"');
+    int length = Math.min(string.length(), MAX_STRING);
+    for(int i = 0; i < length; i++) {
+      char c = string.charAt(i);
+      if(c == '"' || c == '\\') {
+        s.append('\\').append(c);
+      } else if(c == '\n') {
+        s.append("\\n");
+      } else if(c <= 31 || c >= 127) {
+        s.append('\\').append((int) c);
+      } else {
+        s.append(c);
+      }
+    }
+    s.append('"');
+    if(length < string.length()) {
+      s.append("...");
+    }
+  }
+
+  private static void pad(StringBuilder s, int value, int width) {
+    int digits = 1;
+    for(int v = value; v >= 10; v /= 10) {
+      digits++;
+    }
+    for(int i = digits; i < width; i++) {
+      s.append(' ');
+    }
+    s.append(value);
+  }
+
+}
@@ -0,0 +1,105 @@
+package unluac.decompile;
+
+import java.util.Arrays;
+
+public class Fragment extends Output {
+
+  /* Starting level, so that only explicit resets record level zero */
+  private static final int BASE = 1 << 20;
+  
+  private static final int TEXT = 0;
+  private static final int LINE = 1;
+  private static final int INDENT = 2;
+  private static final int ABSOLUTE = 3;
+  
+  private static class Recorder implements RangeOutputProvider {
+    
+    private final StringBuilder text = new StringBuilder();
+    private int[] events = new int[16];
+    private int size = 0;
+    
+    void add(int kind, int value) {
+      if(size == events.length) {
+        events = Arrays.copyOf(events, size * 2);
+      }
+      events[size++] = (value << 2) | kind;
+    }
+    
+    @Override
+    public void print(String s) {
+      text.append(s);
+      add(TEXT, s.length());
+    }
+    
+    @Override
+    public void print(String s, int begin, int end) {
+      text.append(s, begin, end);
+      add(TEXT, end - begin);
+    }
+    
+    @Override
+    public void print(byte[] bytes, int begin, int end) {
+      for(int i = begin; i < end; i++) {
+        text.append((char) (bytes[i] & 0xFF));
+      }
+      add(TEXT, end - begin);
+    }
+    
+    @Override
+    public void println() {
+      add(LINE, 0);
+    }
+    
+  }
+  
+  private final Recorder recorder;
+  
+  public Fragment() {
+    this(new Recorder());
+  }
+  
+  private Fragment(Recorder recorder) {
+    super(recorder);
+    this.recorder = recorder;
+    setIndentationLevel(BASE);
+  }
+  
+  @Override
+  protected int printIndentation(int level) {
+    if(level == 0) {
+      recorder.add(ABSOLUTE, 0);
+    } else {
+      recorder.add(INDENT, level - BASE);
+    }
+    return level;
+  }
+  
+  long weight() {
+    return recorder.text.length() + 2L * recorder.size;
+  }
+  
+  void replay(Output out) {
+    String text = recorder.text.toString();
+    int offset = 0;
+    for(int i = 0; i < recorder.size; i++) {
+      int event = recorder.events[i];
+      int value = event >> 2;
+      switch(event & 3) {
+        case TEXT:
+          out.replayText(text, offset, offset + value);
+          offset += value;
+          break;
+        case LINE:
+          out.replayLine();
+          break;
+        case INDENT:
+          out.replayIndentation(value, false);
+          break;
+        case ABSOLUTE:
+          out.replayIndentation(0, true);
+          break;
+      }
+    }
+  }
+  
+}
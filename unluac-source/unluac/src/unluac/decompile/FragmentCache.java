@@ -0,0 +1,67 @@
+package unluac.decompile;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import unluac.parse.Fingerprint;
+import unluac.parse.LFunction;
+
+public class FragmentCache {
+
+  private final long capacity;
+  private final Map<Fingerprint, Fragment> fragments = new LinkedHashMap<Fingerprint, Fragment>(16, 0.75f, true);
+  private long size;
+  private long hits;
+  private long misses;
+  private long reused;
+  private long evicted;
+
+  public FragmentCache(long capacity) {
+    this.capacity = capacity;
+  }
+
+  public synchronized Fragment get(LFunction function) {
+    Fragment fragment = fragments.get(function.fingerprint());
+    if(fragment != null) {
+      hits++;
+      reused += count(function);
+    } else {
+      misses++;
+    }
+    return fragment;
+  }
+
+  public synchronized void put(LFunction function, Fragment fragment) {
+    long weight = fragment.weight();
+    if(weight > capacity) {
+      return;
+    }
+    Fragment previous = fragments.put(function.fingerprint(), fragment);
+    if(previous != null) {
+      size -= previous.weight();
+    }
+    size += weight;
+    Iterator<Fragment> iterator = fragments.values().iterator();
+    while(size > capacity) {
+      size -= iterator.next().weight();
+      iterator.remove();
+      evicted++;
+    }
+  }
+
+  private static long count(LFunction function) {
+    long count = 1;
+    for(LFunction child : function.functions) {
+      count += count(child);
+    }
+    return count;
+  }
+
+  public synchronized String report() {
+    long lookups = hits + misses;
+    return String.format("fragment cache: %d hits, %d misses (%.1f%% hit rate), %d functions reused, %d fragments kept (%.1f MB), %d evicted",
+      hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups, reused, fragments.size(), size * 2 / (1024.0 * 1024.0), evicted);
+  }
+
+}
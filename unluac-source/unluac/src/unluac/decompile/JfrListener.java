@@ -0,0 +1,114 @@
+package unluac.decompile;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import unluac.parse.LFunction;
+
+public class JfrListener implements DecompileListener {
+
+  @Name("unluac.Phase")
+  @Label("Decompiler Phase")
+  @Category("unluac")
+  @StackTrace(false)
+  static class PhaseEvent extends Event {
+
+    @Label("Chunk")
+    String chunk;
+
+    @Label("Function")
+    String function;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Wall Time")
+    @Timespan
+    long wallTime;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+  }
+
+  @Name("unluac.Function")
+  @Label("Decompiled Function")
+  @Description("All phases of one function, excluding its nested functions")
+  @Category("unluac")
+  @StackTrace(false)
+  static class FunctionEvent extends Event {
+
+    @Label("Chunk")
+    String chunk;
+
+    @Label("Function")
+    String function;
+
+    @Label("Instructions")
+    int instructions;
+
+    @Label("Registers")
+    int registers;
+
+    @Label("Blocks")
+    int blocks;
+
+    @Label("Wall Time")
+    @Timespan
+    long wallTime;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+  }
+
+  public static JfrListener active(String chunk) {
+    if(new FunctionEvent().isEnabled() || new PhaseEvent().isEnabled()) {
+      return new JfrListener(chunk);
+    } else {
+      return null;
+    }
+  }
+
+  private final String chunk;
+
+  public JfrListener(String chunk) {
+    this.chunk = chunk;
+  }
+
+  @Override
+  public void phase(String path, String phase, long nanos, long bytes) {
+    PhaseEvent event = new PhaseEvent();
+    if(event.shouldCommit()) {
+      event.chunk = chunk;
+      event.function = path;
+      event.phase = phase;
+      event.wallTime = nanos;
+      event.allocated = bytes;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void function(String path, LFunction function, int blocks, long nanos, long bytes) {
+    FunctionEvent event = new FunctionEvent();
+    if(event.shouldCommit()) {
+      event.chunk = chunk;
+      event.function = path;
+      event.instructions = function.code.length;
+      event.registers = function.maximumStackSize;
+      event.blocks = blocks;
+      event.wallTime = nanos;
+      event.allocated = bytes;
+      event.commit();
+    }
+  }
+
+}
@@ -0,0 +1,718 @@
+package unluac.decompile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import unluac.parse.BObject;
+import unluac.parse.BSizeT;
+import unluac.parse.LBoolean;
+import unluac.parse.LConstants;
+import unluac.parse.LFunction;
+import unluac.parse.LJPrototype;
+import unluac.parse.LJTable;
+import unluac.parse.LNil;
+import unluac.parse.LNumber;
+import unluac.parse.LObject;
+import unluac.parse.LString;
+
+public class LJLowering {
+
+  private static final int MAXINDEXRK = 255;
+  private static final int FIELDS_PER_FLUSH = 50;
+  private static final int MAXREGISTERS = 256;
+  private static final int VARARG_HASARG = 1;
+  private static final int VARARG_ISVARARG = 2;
+
+  private final LJPrototype proto;
+  private final String[] upvalues;
+  private final int depth;
+
+  private int[] code = new int[64];
+  private int length;
+  private int[] pcmap;
+
+  /* Pairs of a jump's index in code and its target in proto.code */
+  private int[] jumps = new int[32];
+  private int jumpCount;
+
+  private byte[] types = new byte[16];
+  private double[] numbers = new double[16];
+  private LString[] strings = new LString[16];
+  private int constantCount;
+  private final Map<LString, Integer> stringIndex = new HashMap<LString, Integer>();
+  private final Map<Double, Integer> numberIndex = new HashMap<Double, Integer>();
+  private final int[] primitiveIndex = {-1, -1, -1};
+
+  /* First register above the frame, for values LuaJIT keeps elsewhere */
+  private final int scratch;
+  private int registers;
+
+  private final int[] childIndex;
+  private final LJPrototype[] children;
+  private final int[] closureLines;
+
+  public static LFunction lower(LJPrototype main) {
+    return new LJLowering(main, new String[0], 0).lower();
+  }
+
+  private LJLowering(LJPrototype proto, String[] upvalues, int depth) {
+    this.proto = proto;
+    this.upvalues = upvalues;
+    this.depth = depth;
+    scratch = proto.frameSize;
+    registers = Math.max(proto.frameSize, proto.numParams);
+    childIndex = new int[proto.gc.length];
+    int count = 0;
+    for(int i = 0; i < proto.gc.length; i++) {
+      childIndex[i] = proto.gc[i] instanceof LJPrototype ? count++ : -1;
+    }
+    children = new LJPrototype[count];
+    for(int i = 0; i < proto.gc.length; i++) {
+      if(childIndex[i] >= 0) {
+        children[childIndex[i]] = (LJPrototype) proto.gc[i];
+      }
+    }
+    closureLines = new int[count];
+  }
+
+  private LFunction lower() {
+    int[] source = proto.code;
+    int n = source.length;
+    boolean[] targets = new boolean[n + 1];
+    for(int pc = 0; pc < n; pc++) {
+      int target = jumpTarget(source[pc], pc);
+      if(target >= 0 && target <= n && !isReturn(source[pc], pc)) {
+        targets[target] = true;
+      }
+      /* Operands that must fit in RK get the low constant indexes */
+      rkConstant(source[pc]);
+    }
+    /* Copies of returns at the end, jumped to by functions with closures */
+    boolean[] unreachable = new boolean[n];
+    for(int pc = 1; pc < n; pc++) {
+      int previous = LJPrototype.op(source[pc - 1]);
+      unreachable[pc] = !targets[pc] && isReturnOp(LJPrototype.op(source[pc]))
+        && (unreachable[pc - 1] || isReturnOp(previous) || isReturn(source[pc - 1], pc - 1) || isTailCall(previous));
+    }
+    pcmap = new int[n + 1];
+    for(int pc = 0; pc < n; pc++) {
+      pcmap[pc] = length;
+      int codepoint = source[pc];
+      int op = LJPrototype.op(codepoint);
+      if(unreachable[pc]) {
+        continue;
+      } else if(pc + 2 < n && op == LJPrototype.KPRI && isBooleanSet(source, pc) && !targets[pc + 1]) {
+        emitABC(Decompiler.LOADBOOL, LJPrototype.A(codepoint), LJPrototype.D(codepoint) == 2 ? 1 : 0, 1);
+        pcmap[pc + 1] = length;
+        pcmap[pc + 2] = length;
+        emitABC(Decompiler.LOADBOOL, LJPrototype.A(codepoint), LJPrototype.D(source[pc + 2]) == 2 ? 1 : 0, 0);
+        pc += 2;
+      } else if(pc + 1 < n && op == LJPrototype.MOV && isMethod(codepoint, source[pc + 1]) && !targets[pc + 1]) {
+        int lookup = source[pc + 1];
+        int key = rk(string(LJPrototype.C(lookup)), scratch);
+        pcmap[pc + 1] = length;
+        emitABC(Decompiler.SELF, LJPrototype.A(lookup), LJPrototype.B(lookup), key);
+        pc += 1;
+      } else {
+        lower(codepoint, pc);
+      }
+    }
+    pcmap[n] = length;
+    /* luac always ends with a return, which the decompiler leaves out */
+    if(length == 0 || code[length - 1] != (Decompiler.RETURN | (1 << 23))) {
+      emitABC(Decompiler.RETURN, 0, 1, 0);
+    }
+    for(int i = 0; i < jumpCount; i++) {
+      int index = jumps[2 * i];
+      int target = pcmap[jumps[2 * i + 1]];
+      code[index] = (code[index] & 0x3FFF) | ((target - (index + 1) + 131071) << 14);
+    }
+    int[] lowered = new int[length];
+    System.arraycopy(code, 0, lowered, 0, length);
+    LConstants constants = new LConstants(constantCount);
+    for(int i = 0; i < constantCount; i++) {
+      switch(types[i]) {
+        case LConstants.NIL:
+          constants.setNil(i);
+          break;
+        case LConstants.BOOLEAN:
+          constants.setBoolean(i, numbers[i] != 0.0);
+          break;
+        case LConstants.NUMBER:
+          constants.setNumber(i, numbers[i]);
+          break;
+        default:
+          constants.setString(i, strings[i]);
+          break;
+      }
+    }
+    int[] childUpvalues = new int[children.length];
+    for(int i = 0; i < children.length; i++) {
+      childUpvalues[i] = children[i].upvalues.length;
+    }
+    LocalInference locals = new LocalInference(lowered, registers, proto.numParams, childUpvalues, depth);
+    LFunction[] functions = new LFunction[children.length];
+    LString[] localNames = locals.names;
+    int[] localStarts = locals.starts;
+    int[] localEnds = locals.ends;
+    int vararg = 0;
+    if(proto.isVararg()) {
+      /* Like luac's compatibility "arg" local, but never active */
+      vararg = VARARG_HASARG | VARARG_ISVARARG;
+      int count = localNames.length;
+      int params = proto.numParams;
+      localNames = Arrays.copyOf(localNames, count + 1);
+      localStarts = Arrays.copyOf(localStarts, count + 1);
+      localEnds = Arrays.copyOf(localEnds, count + 1);
+      System.arraycopy(locals.names, params, localNames, params + 1, count - params);
+      System.arraycopy(locals.starts, params, localStarts, params + 1, count - params);
+      System.arraycopy(locals.ends, params, localEnds, params + 1, count - params);
+      localNames[params] = name("arg");
+      localStarts[params] = 0;
+      localEnds[params] = -1;
+    }
+    LFunction function = new LFunction(lowered, new int[0], localNames, localStarts, localEnds, constants, upvalues, functions, registers, upvalues.length, proto.numParams, vararg);
+    function.inferredLocals = true;
+    for(int i = 0; i < children.length; i++) {
+      int[] references = children[i].upvalues;
+      String[] names = new String[references.length];
+      for(int j = 0; j < references.length; j++) {
+        int index = LJPrototype.index(references[j]);
+        if(LJPrototype.isLocal(references[j])) {
+          names[j] = locals.name(index, closureLines[i]);
+        } else if(index < upvalues.length) {
+          names[j] = upvalues[index];
+        }
+        if(names[j] == null) {
+          throw new IllegalStateException("Unresolved upvalue " + j + " of function " + i);
+        }
+      }
+      functions[i] = new LJLowering(children[i], names, depth + 1).lower();
+    }
+    return function;
+  }
+
+  private void lower(int codepoint, int pc) {
+    int op = LJPrototype.op(codepoint);
+    int A = LJPrototype.A(codepoint);
+    int B = LJPrototype.B(codepoint);
+    int C = LJPrototype.C(codepoint);
+    int D = LJPrototype.D(codepoint);
+    switch(op) {
+      case LJPrototype.ISLT:
+        emitABC(Decompiler.LT, 1, A, D);
+        break;
+      case LJPrototype.ISGE:
+        emitABC(Decompiler.LT, 0, A, D);
+        break;
+      case LJPrototype.ISLE:
+        emitABC(Decompiler.LE, 1, A, D);
+        break;
+      case LJPrototype.ISGT:
+        emitABC(Decompiler.LE, 0, A, D);
+        break;
+      case LJPrototype.ISEQV:
+      case LJPrototype.ISNEV:
+        emitABC(Decompiler.EQ, op == LJPrototype.ISEQV ? 1 : 0, A, D);
+        break;
+      case LJPrototype.ISEQS:
+      case LJPrototype.ISNES:
+      case LJPrototype.ISEQN:
+      case LJPrototype.ISNEN:
+      case LJPrototype.ISEQP:
+      case LJPrototype.ISNEP: {
+        int k = rk(rkConstant(codepoint), scratch);
+        emitABC(Decompiler.EQ, (op - LJPrototype.ISEQS) % 2 == 0 ? 1 : 0, A, k);
+        break;
+      }
+      case LJPrototype.ISTC:
+      case LJPrototype.ISFC:
+        emitABC(Decompiler.TESTSET, A, D, op == LJPrototype.ISTC ? 1 : 0);
+        break;
+      case LJPrototype.IST:
+      case LJPrototype.ISF:
+        emitABC(Decompiler.TEST, D, 0, op == LJPrototype.IST ? 1 : 0);
+        break;
+      case LJPrototype.MOV:
+        emitABC(Decompiler.MOVE, A, D, 0);
+        break;
+      case LJPrototype.NOT:
+        emitABC(Decompiler.NOT, A, D, 0);
+        break;
+      case LJPrototype.UNM:
+        emitABC(Decompiler.UNM, A, D, 0);
+        break;
+      case LJPrototype.LEN:
+        emitABC(Decompiler.LEN, A, D, 0);
+        break;
+      case LJPrototype.ADDVN:
+      case LJPrototype.SUBVN:
+      case LJPrototype.MULVN:
+      case LJPrototype.DIVVN:
+      case LJPrototype.MODVN:
+        emitABC(arith(op - LJPrototype.ADDVN), A, B, rk(number(proto.numbers[C]), scratch));
+        break;
+      case LJPrototype.ADDNV:
+      case LJPrototype.SUBNV:
+      case LJPrototype.MULNV:
+      case LJPrototype.DIVNV:
+      case LJPrototype.MODNV:
+        emitABC(arith(op - LJPrototype.ADDNV), A, rk(number(proto.numbers[C]), scratch), B);
+        break;
+      case LJPrototype.ADDVV:
+      case LJPrototype.SUBVV:
+      case LJPrototype.MULVV:
+      case LJPrototype.DIVVV:
+      case LJPrototype.MODVV:
+        emitABC(arith(op - LJPrototype.ADDVV), A, B, C);
+        break;
+      case LJPrototype.POW:
+        emitABC(Decompiler.POW, A, B, C);
+        break;
+      case LJPrototype.CAT:
+        emitABC(Decompiler.CONCAT, A, B, C);
+        break;
+      case LJPrototype.KSTR:
+        emitABx(Decompiler.LOADK, A, string(D));
+        break;
+      case LJPrototype.KSHORT:
+        emitABx(Decompiler.LOADK, A, number((short) D));
+        break;
+      case LJPrototype.KNUM:
+        emitABx(Decompiler.LOADK, A, number(proto.numbers[D]));
+        break;
+      case LJPrototype.KPRI:
+        load(primitive(D), A);
+        break;
+      case LJPrototype.KNIL:
+        emitABC(Decompiler.LOADNIL, A, D, 0);
+        break;
+      case LJPrototype.UGET:
+        emitABC(Decompiler.GETUPVAL, A, D, 0);
+        break;
+      case LJPrototype.USETV:
+        emitABC(Decompiler.SETUPVAL, D, A, 0);
+        break;
+      case LJPrototype.USETS:
+        use(scratch);
+        emitABx(Decompiler.LOADK, scratch, string(D));
+        emitABC(Decompiler.SETUPVAL, scratch, A, 0);
+        break;
+      case LJPrototype.USETN:
+        use(scratch);
+        emitABx(Decompiler.LOADK, scratch, number(proto.numbers[D]));
+        emitABC(Decompiler.SETUPVAL, scratch, A, 0);
+        break;
+      case LJPrototype.USETP:
+        load(primitive(D), scratch);
+        emitABC(Decompiler.SETUPVAL, scratch, A, 0);
+        break;
+      case LJPrototype.UCLO:
+        if(isReturn(codepoint, pc)) {
+          lower(proto.code[LJPrototype.target(codepoint, pc)], pc);
+          break;
+        }
+        if(LJPrototype.target(codepoint, pc) == pc + 1 && pc + 1 < proto.code.length && isTailCall(LJPrototype.op(proto.code[pc + 1]))) {
+          /* Lua 5.1's TAILCALL closes upvalues itself */
+          break;
+        }
+        emitABC(Decompiler.CLOSE, A, 0, 0);
+        if(LJPrototype.target(codepoint, pc) != pc + 1) {
+          emitJump(Decompiler.JMP, 0, LJPrototype.target(codepoint, pc));
+        }
+        break;
+      case LJPrototype.FNEW: {
+        int index = childIndex[D];
+        if(index < 0) {
+          throw new IllegalStateException("Expected a function constant at " + pc);
+        }
+        closureLines[index] = length + 1;
+        emitABx(Decompiler.CLOSURE, A, index);
+        for(int upvalue : children[index].upvalues) {
+          if(LJPrototype.isLocal(upvalue)) {
+            emitABC(Decompiler.MOVE, 0, LJPrototype.index(upvalue), 0);
+          } else {
+            emitABC(Decompiler.GETUPVAL, 0, LJPrototype.index(upvalue), 0);
+          }
+        }
+        break;
+      }
+      case LJPrototype.TNEW: {
+        int arraySize = D & 0x7FF;
+        int hashBits = D >>> 11;
+        emitABC(Decompiler.NEWTABLE, A, fb(Math.max(arraySize - 1, 0)), fb(hashBits != 0 ? 1 << hashBits : 0));
+        break;
+      }
+      case LJPrototype.TDUP:
+        duplicate(A, D);
+        break;
+      case LJPrototype.GGET:
+        emitABx(Decompiler.GETGLOBAL, A, string(D));
+        break;
+      case LJPrototype.GSET:
+        emitABx(Decompiler.SETGLOBAL, A, string(D));
+        break;
+      case LJPrototype.TGETV:
+      case LJPrototype.TGETR:
+        emitABC(Decompiler.GETTABLE, A, B, C);
+        break;
+      case LJPrototype.TGETS:
+        emitABC(Decompiler.GETTABLE, A, B, rk(string(C), scratch));
+        break;
+      case LJPrototype.TGETB:
+        emitABC(Decompiler.GETTABLE, A, B, rk(number(C), scratch));
+        break;
+      case LJPrototype.TSETV:
+      case LJPrototype.TSETR:
+        emitABC(Decompiler.SETTABLE, B, C, A);
+        break;
+      case LJPrototype.TSETS:
+        emitABC(Decompiler.SETTABLE, B, rk(string(C), scratch), A);
+        break;
+      case LJPrototype.TSETB:
+        if(A == B + 1) {
+          /* A list item of a constructor (or a plain store if it isn't) */
+          setList(B, 1, C);
+        } else {
+          emitABC(Decompiler.SETTABLE, B, rk(number(C), scratch), A);
+        }
+        break;
+      case LJPrototype.TSETM:
+        setList(A - 1, 0, (int) Double.doubleToRawLongBits(proto.numbers[D]));
+        break;
+      case LJPrototype.CALLM:
+        emitABC(Decompiler.CALL, A, 0, B);
+        break;
+      case LJPrototype.CALL:
+        emitABC(Decompiler.CALL, A, C, B);
+        break;
+      case LJPrototype.CALLMT:
+        emitABC(Decompiler.TAILCALL, A, 0, 0);
+        emitABC(Decompiler.RETURN, A, 0, 0);
+        break;
+      case LJPrototype.CALLT:
+        emitABC(Decompiler.TAILCALL, A, D, 0);
+        emitABC(Decompiler.RETURN, A, 0, 0);
+        break;
+      case LJPrototype.ITERC:
+      case LJPrototype.ITERN:
+        emitABC(Decompiler.TFORLOOP, A - 3, 0, B - 1);
+        break;
+      case LJPrototype.VARG:
+        emitABC(Decompiler.VARARG, A, B, 0);
+        break;
+      case LJPrototype.RETM:
+        emitABC(Decompiler.RETURN, A, 0, 0);
+        break;
+      case LJPrototype.RET:
+        emitABC(Decompiler.RETURN, A, D, 0);
+        break;
+      case LJPrototype.RET0:
+        emitABC(Decompiler.RETURN, A, 1, 0);
+        break;
+      case LJPrototype.RET1:
+        emitABC(Decompiler.RETURN, A, 2, 0);
+        break;
+      case LJPrototype.FORI:
+        /* luac's FORPREP jumps to the FORLOOP, not past it */
+        emitJump(Decompiler.FORPREP, A, LJPrototype.target(codepoint, pc) - 1);
+        break;
+      case LJPrototype.FORL:
+      case LJPrototype.IFORL:
+        emitJump(Decompiler.FORLOOP, A, LJPrototype.target(codepoint, pc));
+        break;
+      case LJPrototype.ISNEXT:
+      case LJPrototype.ITERL:
+      case LJPrototype.IITERL:
+      case LJPrototype.JMP:
+        emitJump(Decompiler.JMP, 0, LJPrototype.target(codepoint, pc));
+        break;
+      case LJPrototype.LOOP:
+      case LJPrototype.ILOOP:
+        break;
+      default:
+        throw new IllegalStateException("Unsupported LuaJIT instruction " + op + " at " + pc);
+    }
+  }
+
+  private static int arith(int index) {
+    switch(index) {
+      case 0: return Decompiler.ADD;
+      case 1: return Decompiler.SUB;
+      case 2: return Decompiler.MUL;
+      case 3: return Decompiler.DIV;
+      default: return Decompiler.MOD;
+    }
+  }
+
+  private static boolean isTailCall(int op) {
+    return op == LJPrototype.CALLT || op == LJPrototype.CALLMT;
+  }
+
+  private static boolean isReturnOp(int op) {
+    return op == LJPrototype.RETM || op == LJPrototype.RET || op == LJPrototype.RET0 || op == LJPrototype.RET1;
+  }
+
+  private boolean isReturn(int codepoint, int pc) {
+    if(LJPrototype.op(codepoint) != LJPrototype.UCLO) {
+      return false;
+    }
+    int target = LJPrototype.target(codepoint, pc);
+    return target >= 0 && target < proto.code.length && isReturnOp(LJPrototype.op(proto.code[target]));
+  }
+
+  private static int jumpTarget(int codepoint, int pc) {
+    switch(LJPrototype.op(codepoint)) {
+      case LJPrototype.UCLO:
+      case LJPrototype.ISNEXT:
+      case LJPrototype.FORI:
+      case LJPrototype.FORL:
+      case LJPrototype.IFORL:
+      case LJPrototype.ITERL:
+      case LJPrototype.IITERL:
+      case LJPrototype.JMP:
+        return LJPrototype.target(codepoint, pc);
+      default:
+        return -1;
+    }
+  }
+
+  private int rkConstant(int codepoint) {
+    int C = LJPrototype.C(codepoint);
+    int D = LJPrototype.D(codepoint);
+    switch(LJPrototype.op(codepoint)) {
+      case LJPrototype.ISEQS:
+      case LJPrototype.ISNES:
+        return string(D);
+      case LJPrototype.ISEQN:
+      case LJPrototype.ISNEN:
+        return number(proto.numbers[D]);
+      case LJPrototype.ISEQP:
+      case LJPrototype.ISNEP:
+        return constant(primitive(D));
+      case LJPrototype.ADDVN:
+      case LJPrototype.SUBVN:
+      case LJPrototype.MULVN:
+      case LJPrototype.DIVVN:
+      case LJPrototype.MODVN:
+      case LJPrototype.ADDNV:
+      case LJPrototype.SUBNV:
+      case LJPrototype.MULNV:
+      case LJPrototype.DIVNV:
+      case LJPrototype.MODNV:
+        return number(proto.numbers[C]);
+      case LJPrototype.TGETS:
+      case LJPrototype.TSETS:
+        return string(C);
+      case LJPrototype.TGETB:
+      case LJPrototype.TSETB:
+        return number(C);
+      default:
+        return -1;
+    }
+  }
+
+  private static boolean isBooleanSet(int[] source, int pc) {
+    int first = source[pc];
+    int jump = source[pc + 1];
+    int second = source[pc + 2];
+    int value = LJPrototype.D(first);
+    return (value == 1 || value == 2)
+      && LJPrototype.op(jump) == LJPrototype.JMP && LJPrototype.target(jump, pc + 1) == pc + 3
+      && LJPrototype.op(second) == LJPrototype.KPRI && LJPrototype.A(second) == LJPrototype.A(first)
+      && LJPrototype.D(second) == 3 - value;
+  }
+
+  private static boolean isMethod(int move, int lookup) {
+    return LJPrototype.op(lookup) == LJPrototype.TGETS
+      && LJPrototype.A(move) == LJPrototype.A(lookup) + 1
+      && LJPrototype.D(move) == LJPrototype.B(lookup);
+  }
+
+  private void duplicate(int A, int D) {
+    BObject constant = proto.gc[D];
+    if(!(constant instanceof LJTable)) {
+      throw new IllegalStateException("Expected a table constant");
+    }
+    LJTable table = (LJTable) constant;
+    int list = 1;
+    while(list < table.array.length && table.array[list] != LNil.NIL) {
+      list++;
+    }
+    int hashSize = table.keys.length;
+    for(int i = 0; i < table.array.length; i++) {
+      if((i == 0 || i >= list) && table.array[i] != LNil.NIL) hashSize++;
+    }
+    int base = scratch;
+    emitABC(Decompiler.NEWTABLE, base, fb(list - 1), fb(hashSize));
+    use(base);
+    for(int first = 1; first < list; first += FIELDS_PER_FLUSH) {
+      int count = Math.min(FIELDS_PER_FLUSH, list - first);
+      for(int i = 0; i < count; i++) {
+        load(table.array[first + i], base + 1 + i);
+      }
+      emitABC(Decompiler.SETLIST, base, count, (first - 1) / FIELDS_PER_FLUSH + 1);
+    }
+    for(int i = 0; i < table.array.length; i++) {
+      if((i == 0 || i >= list) && table.array[i] != LNil.NIL) {
+        emitABC(Decompiler.SETTABLE, base, rk(number(i), base + 1), rk(constant(table.array[i]), base + 2));
+      }
+    }
+    for(int i = 0; i < table.keys.length; i++) {
+      /* Keys of fields set by later instructions have nil values */
+      if(table.values[i] != LNil.NIL) {
+        emitABC(Decompiler.SETTABLE, base, rk(constant(table.keys[i]), base + 1), rk(constant(table.values[i]), base + 2));
+      }
+    }
+    emitABC(Decompiler.MOVE, A, base, 0);
+  }
+
+  private void setList(int table, int count, int index) {
+    if(index >= 1 && index <= 0x1FF) {
+      emitABC(Decompiler.SETLISTN, table, count, index);
+    } else {
+      emitABC(Decompiler.SETLISTN, table, count, 0);
+      emit(index);
+    }
+  }
+
+  private void load(LObject value, int register) {
+    use(register);
+    if(value == LNil.NIL) {
+      emitABC(Decompiler.LOADNIL, register, register, 0);
+    } else if(value instanceof LBoolean) {
+      emitABC(Decompiler.LOADBOOL, register, value == LBoolean.LTRUE ? 1 : 0, 0);
+    } else {
+      emitABx(Decompiler.LOADK, register, constant(value));
+    }
+  }
+
+  private int rk(int constant, int register) {
+    if(constant <= MAXINDEXRK) {
+      return constant | 0x100;
+    }
+    use(register);
+    emitABx(Decompiler.LOADK, register, constant);
+    return register;
+  }
+
+  private void use(int register) {
+    if(register >= MAXREGISTERS) {
+      throw new IllegalStateException("Frame too large to lower");
+    }
+    registers = Math.max(registers, register + 1);
+  }
+
+  private static LObject primitive(int D) {
+    switch(D) {
+      case 0:
+        return LNil.NIL;
+      case 1:
+        return LBoolean.LFALSE;
+      default:
+        return LBoolean.LTRUE;
+    }
+  }
+
+  private int constant(LObject value) {
+    if(value == LNil.NIL) {
+      return primitive(0, LConstants.NIL, 0.0);
+    } else if(value == LBoolean.LFALSE) {
+      return primitive(1, LConstants.BOOLEAN, 0.0);
+    } else if(value == LBoolean.LTRUE) {
+      return primitive(2, LConstants.BOOLEAN, 1.0);
+    } else if(value instanceof LNumber) {
+      return number(((LNumber) value).number);
+    } else {
+      return string((LString) value);
+    }
+  }
+
+  private int primitive(int index, int type, double value) {
+    if(primitiveIndex[index] < 0) {
+      primitiveIndex[index] = add(type, value, null);
+    }
+    return primitiveIndex[index];
+  }
+
+  private int string(int D) {
+    BObject constant = proto.gc[D];
+    if(!(constant instanceof LString)) {
+      throw new IllegalStateException("Expected a string constant");
+    }
+    return string((LString) constant);
+  }
+
+  private int string(LString value) {
+    Integer index = stringIndex.get(value);
+    if(index == null) {
+      index = add(LConstants.STRING, 0.0, value);
+      stringIndex.put(value, index);
+    }
+    return index;
+  }
+
+  private int number(double value) {
+    Integer index = numberIndex.get(value);
+    if(index == null) {
+      index = add(LConstants.NUMBER, value, null);
+      numberIndex.put(value, index);
+    }
+    return index;
+  }
+
+  private int add(int type, double number, LString string) {
+    if(constantCount == types.length) {
+      types = Arrays.copyOf(types, constantCount * 2);
+      numbers = Arrays.copyOf(numbers, constantCount * 2);
+      strings = Arrays.copyOf(strings, constantCount * 2);
+    }
+    types[constantCount] = (byte) type;
+    numbers[constantCount] = number;
+    strings[constantCount] = string;
+    return constantCount++;
+  }
+
+  /* Lua 5.1's "floating point byte" encoding of table sizes */
+  private static int fb(int x) {
+    int e = 0;
+    while(x >= 16) {
+      x = (x + 1) >> 1;
+      e++;
+    }
+    return x < 8 ? x : ((e + 1) << 3) | (x - 8);
+  }
+
+  private void emit(int codepoint) {
+    if(length == code.length) {
+      code = Arrays.copyOf(code, length * 2);
+    }
+    code[length++] = codepoint;
+  }
+
+  private void emitABC(int op, int A, int B, int C) {
+    emit(op | (A << 6) | (C << 14) | (B << 23));
+  }
+
+  private void emitABx(int op, int A, int Bx) {
+    emit(op | (A << 6) | (Bx << 14));
+  }
+
+  private void emitJump(int op, int A, int target) {
+    if(2 * jumpCount == jumps.length) {
+      jumps = Arrays.copyOf(jumps, jumps.length * 2);
+    }
+    jumps[2 * jumpCount] = length;
+    jumps[2 * jumpCount + 1] = target;
+    jumpCount++;
+    emitABx(op, A, 0);
+  }
+
+  static LString name(String name) {
+    byte[] bytes = name.getBytes(StandardCharsets.ISO_8859_1);
+    return new LString(new BSizeT(bytes.length + 1), bytes);
+  }
+
+}
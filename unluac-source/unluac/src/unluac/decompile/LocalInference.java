@@ -0,0 +1,915 @@
+package unluac.decompile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import unluac.parse.LString;
+
+class LocalInference {
+
+  private static final int NORMAL = 0;
+  private static final int TEST = 1;
+  private static final int STORE = 2;
+  private static final int CAPTURE = 3;
+
+  public final LString[] names;
+  public final int[] starts;
+  public final int[] ends;
+  private final int[] slots;
+
+  private final int[] code;
+  private final int length;
+  private final int registers;
+  private final int[] childUpvalues;
+
+  /* Definitions and uses of each instruction, as flat lists */
+  private int[] defFirst;
+  private int[] defPc = new int[64];
+  private int[] defRegister = new int[64];
+  private boolean[] defKills = new boolean[64];
+  private int defCount;
+  private int[] useFirst;
+  private int[] usePc = new int[64];
+  private int[] useRegister = new int[64];
+  private int[] useKind = new int[64];
+  private int useCount;
+
+  private int[][] successors;
+  private int[] predecessorMin;
+  private int[] predecessorMax;
+
+  /* Registers live on entry to, and on exit from, each instruction */
+  private long[][] liveIn;
+  private long[][] liveOut;
+
+  private int[] parent;
+
+  LocalInference(int[] code, int registers, int params, int[] childUpvalues, int depth) {
+    this.code = code;
+    this.length = code.length;
+    this.registers = registers;
+    this.childUpvalues = childUpvalues;
+    collect(params);
+    flow();
+    liveness();
+    webs();
+    BitSet[] active = new BitSet[registers];
+    BitSet[] breaks = new BitSet[registers];
+    BitSet[] forced = new BitSet[registers];
+    for(int slot = 0; slot < registers; slot++) {
+      active[slot] = new BitSet();
+      breaks[slot] = new BitSet();
+      forced[slot] = new BitSet();
+    }
+    for(int slot = 0; slot < params; slot++) {
+      force(active, breaks, forced, slot, 0, length - 1);
+    }
+    forceLoops(active, breaks, forced);
+    declareLocals(active, breaks, forced, params);
+    /* Like luac's, no scope includes the final return */
+    for(int slot = 0; slot < registers; slot++) {
+      active[slot].clear(length, Integer.MAX_VALUE);
+    }
+    stack(active, breaks, forced);
+    List<int[]> runs = new ArrayList<int[]>();
+    for(int slot = 0; slot < registers; slot++) {
+      int line = active[slot].nextSetBit(0);
+      while(line >= 0) {
+        int end = line;
+        while(active[slot].get(end + 1) && !breaks[slot].get(end + 1)) {
+          end++;
+        }
+        runs.add(new int[] {line, slot, end});
+        line = active[slot].nextSetBit(end + 1);
+      }
+    }
+    int[][] sorted = runs.toArray(new int[runs.size()][]);
+    Arrays.sort(sorted, new java.util.Comparator<int[]>() {
+
+      @Override
+      public int compare(int[] run1, int[] run2) {
+        if(run1[0] != run2[0]) {
+          return run1[0] < run2[0] ? -1 : 1;
+        }
+        return run1[1] - run2[1];
+      }
+
+    });
+    names = new LString[sorted.length];
+    starts = new int[sorted.length];
+    ends = new int[sorted.length];
+    slots = new int[sorted.length];
+    for(int i = 0; i < sorted.length; i++) {
+      starts[i] = sorted[i][0];
+      slots[i] = sorted[i][1];
+      ends[i] = sorted[i][2];
+      names[i] = LJLowering.name("L" + slots[i] + "_" + depth);
+    }
+  }
+
+  public String name(int register, int line) {
+    for(int i = 0; i < names.length; i++) {
+      if(slots[i] == register && starts[i] <= line && line <= ends[i]) {
+        return names[i].deref();
+      }
+    }
+    return null;
+  }
+
+  private static int op(int codepoint) {
+    return codepoint & 0x3F;
+  }
+
+  private static int A(int codepoint) {
+    return (codepoint >> 6) & 0xFF;
+  }
+
+  private static int B(int codepoint) {
+    return codepoint >>> 23;
+  }
+
+  private static int C(int codepoint) {
+    return (codepoint >> 14) & 0x1FF;
+  }
+
+  private static int sBx(int codepoint) {
+    return (codepoint >>> 14) - 131071;
+  }
+
+  private void collect(int params) {
+    defFirst = new int[length + 2];
+    useFirst = new int[length + 2];
+    int multiple = -1;
+    int pc = 0;
+    /* The parameters are defined before the first instruction */
+    for(int slot = 0; slot < params; slot++) {
+      def(-1, slot, true);
+    }
+    while(pc < length) {
+      defFirst[pc] = defCount;
+      useFirst[pc] = useCount;
+      int codepoint = code[pc];
+      int A = A(codepoint);
+      int B = B(codepoint);
+      int C = C(codepoint);
+      int next = pc + 1;
+      switch(op(codepoint)) {
+        case Decompiler.MOVE:
+        case Decompiler.UNM:
+        case Decompiler.NOT:
+        case Decompiler.LEN:
+          use(pc, B, NORMAL);
+          def(pc, A, true);
+          break;
+        case Decompiler.LOADK:
+        case Decompiler.LOADBOOL:
+        case Decompiler.GETUPVAL:
+        case Decompiler.GETGLOBAL:
+        case Decompiler.NEWTABLE:
+          def(pc, A, true);
+          break;
+        case Decompiler.LOADNIL:
+          for(int register = A; register <= B; register++) {
+            def(pc, register, true);
+          }
+          break;
+        case Decompiler.GETTABLE:
+          use(pc, B, NORMAL);
+          rk(pc, C);
+          def(pc, A, true);
+          break;
+        case Decompiler.SETGLOBAL:
+        case Decompiler.SETUPVAL:
+          use(pc, A, NORMAL);
+          break;
+        case Decompiler.SETTABLE:
+          use(pc, A, STORE);
+          rk(pc, B);
+          rk(pc, C);
+          break;
+        case Decompiler.SELF:
+          use(pc, B, NORMAL);
+          rk(pc, C);
+          def(pc, A, true);
+          def(pc, A + 1, true);
+          break;
+        case Decompiler.ADD:
+        case Decompiler.SUB:
+        case Decompiler.MUL:
+        case Decompiler.DIV:
+        case Decompiler.MOD:
+        case Decompiler.POW:
+          rk(pc, B);
+          rk(pc, C);
+          def(pc, A, true);
+          break;
+        case Decompiler.CONCAT:
+          for(int register = B; register <= C; register++) {
+            use(pc, register, NORMAL);
+          }
+          def(pc, A, true);
+          break;
+        case Decompiler.EQ:
+        case Decompiler.LT:
+        case Decompiler.LE:
+          rk(pc, B);
+          rk(pc, C);
+          break;
+        case Decompiler.TEST:
+          use(pc, A, TEST);
+          break;
+        case Decompiler.TESTSET:
+          use(pc, B, NORMAL);
+          def(pc, A, false);
+          break;
+        case Decompiler.CALL:
+        case Decompiler.TAILCALL:
+          uses(pc, A, B == 0 ? multiple : A + B - 1);
+          if(C == 0) {
+            def(pc, A, true);
+            multiple = A;
+          } else {
+            for(int register = A; register <= A + C - 2; register++) {
+              def(pc, register, true);
+            }
+          }
+          break;
+        case Decompiler.RETURN:
+          uses(pc, A, B == 0 ? multiple : A + B - 2);
+          break;
+        case Decompiler.FORLOOP:
+          uses(pc, A, A + 2);
+          def(pc, A, true);
+          def(pc, A + 3, true);
+          break;
+        case Decompiler.FORPREP:
+          uses(pc, A, A + 2);
+          def(pc, A, true);
+          break;
+        case Decompiler.TFORLOOP:
+          uses(pc, A, A + 2);
+          for(int register = A + 2; register <= A + 2 + C; register++) {
+            def(pc, register, true);
+          }
+          break;
+        case Decompiler.SETLIST:
+        case Decompiler.SETLISTN:
+          use(pc, A, STORE);
+          uses(pc, A + 1, B == 0 ? multiple : A + B);
+          if(C == 0) {
+            next++;
+          }
+          break;
+        case Decompiler.CLOSURE:
+          for(int i = 0; i < childUpvalues[code[pc] >>> 14]; i++) {
+            int pseudo = code[pc + 1 + i];
+            /* A function that captures itself doesn't read the register */
+            if(op(pseudo) == Decompiler.MOVE && B(pseudo) != A) {
+              use(pc, B(pseudo), CAPTURE);
+            }
+          }
+          def(pc, A, true);
+          next += childUpvalues[code[pc] >>> 14];
+          break;
+        case Decompiler.VARARG:
+          if(B == 0) {
+            def(pc, A, true);
+            multiple = A;
+          } else {
+            for(int register = A; register <= A + B - 2; register++) {
+              def(pc, register, true);
+            }
+          }
+          break;
+        default:
+          break;
+      }
+      for(int skipped = pc + 1; skipped < next; skipped++) {
+        defFirst[skipped] = defCount;
+        useFirst[skipped] = useCount;
+      }
+      pc = next;
+    }
+    defFirst[length] = defCount;
+    useFirst[length] = useCount;
+  }
+
+  private void rk(int pc, int operand) {
+    if((operand & 0x100) == 0) {
+      use(pc, operand, NORMAL);
+    }
+  }
+
+  private void uses(int pc, int first, int last) {
+    for(int register = first; register <= last; register++) {
+      use(pc, register, NORMAL);
+    }
+  }
+
+  private void use(int pc, int register, int kind) {
+    if(useCount == usePc.length) {
+      usePc = Arrays.copyOf(usePc, useCount * 2);
+      useRegister = Arrays.copyOf(useRegister, useCount * 2);
+      useKind = Arrays.copyOf(useKind, useCount * 2);
+    }
+    usePc[useCount] = pc;
+    useRegister[useCount] = register;
+    useKind[useCount] = kind;
+    useCount++;
+  }
+
+  private void def(int pc, int register, boolean kills) {
+    if(defCount == defPc.length) {
+      defPc = Arrays.copyOf(defPc, defCount * 2);
+      defRegister = Arrays.copyOf(defRegister, defCount * 2);
+      defKills = Arrays.copyOf(defKills, defCount * 2);
+    }
+    defPc[defCount] = pc;
+    defRegister[defCount] = register;
+    defKills[defCount] = kills;
+    defCount++;
+  }
+
+  private int params() {
+    return defFirst[0];
+  }
+
+  private void flow() {
+    successors = new int[length][];
+    predecessorMin = new int[length + 1];
+    predecessorMax = new int[length + 1];
+    Arrays.fill(predecessorMin, Integer.MAX_VALUE);
+    Arrays.fill(predecessorMax, -1);
+    int pc = 0;
+    while(pc < length) {
+      int codepoint = code[pc];
+      int next = pc + 1;
+      int[] targets;
+      switch(op(codepoint)) {
+        case Decompiler.JMP:
+          targets = new int[] {pc + 1 + sBx(codepoint)};
+          break;
+        case Decompiler.EQ:
+        case Decompiler.LT:
+        case Decompiler.LE:
+        case Decompiler.TEST:
+        case Decompiler.TESTSET:
+        case Decompiler.TFORLOOP:
+          targets = new int[] {pc + 1, pc + 2};
+          break;
+        case Decompiler.LOADBOOL:
+          targets = new int[] {C(codepoint) != 0 ? pc + 2 : pc + 1};
+          break;
+        case Decompiler.FORLOOP:
+          targets = new int[] {pc + 1, pc + 1 + sBx(codepoint)};
+          break;
+        case Decompiler.FORPREP:
+          targets = new int[] {pc + 1 + sBx(codepoint)};
+          break;
+        case Decompiler.RETURN:
+          targets = new int[0];
+          break;
+        case Decompiler.CLOSURE:
+          next += childUpvalues[codepoint >>> 14];
+          targets = new int[] {next};
+          break;
+        case Decompiler.SETLIST:
+        case Decompiler.SETLISTN:
+          if(C(codepoint) == 0) {
+            next++;
+          }
+          targets = new int[] {next};
+          break;
+        default:
+          targets = new int[] {pc + 1};
+          break;
+      }
+      successors[pc] = targets;
+      for(int target : targets) {
+        predecessorMin[target] = Math.min(predecessorMin[target], pc);
+        predecessorMax[target] = Math.max(predecessorMax[target], pc);
+      }
+      pc = next;
+    }
+  }
+
+  private void liveness() {
+    int words = (registers + 63) / 64;
+    liveIn = new long[length + 1][words];
+    liveOut = new long[length + 1][words];
+    long[] next = new long[words];
+    long[] edge = new long[words];
+    boolean changed = true;
+    while(changed) {
+      changed = false;
+      for(int pc = length - 1; pc >= 0; pc--) {
+        int[] targets = successors[pc];
+        if(targets == null) continue;
+        long[] out = liveOut[pc];
+        Arrays.fill(next, 0);
+        for(int i = 0; i < targets.length; i++) {
+          if(targets[i] >= length) continue;
+          System.arraycopy(liveIn[targets[i]], 0, edge, 0, words);
+          for(int w = 0; w < words; w++) {
+            out[w] |= edge[w];
+          }
+          for(int d = defFirst[pc]; d < defFirst[pc + 1]; d++) {
+            if(defKills[d] || i == 0) {
+              clear(edge, defRegister[d]);
+            }
+          }
+          for(int w = 0; w < words; w++) {
+            next[w] |= edge[w];
+          }
+        }
+        long[] in = liveIn[pc];
+        for(int u = useFirst[pc]; u < useFirst[pc + 1]; u++) {
+          set(next, useRegister[u]);
+        }
+        for(int w = 0; w < words; w++) {
+          if((in[w] | next[w]) != in[w]) {
+            in[w] |= next[w];
+            changed = true;
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean get(long[] set, int register) {
+    return (set[register >> 6] & (1L << (register & 63))) != 0;
+  }
+
+  private static void set(long[] set, int register) {
+    set[register >> 6] |= 1L << (register & 63);
+  }
+
+  private static void clear(long[] set, int register) {
+    set[register >> 6] &= ~(1L << (register & 63));
+  }
+
+  /* Web of each definition and use: defs first, then uses */
+  private int[] minLive;
+  private int[] maxLive;
+
+  private int find(int node) {
+    while(parent[node] != node) {
+      parent[node] = parent[parent[node]];
+      node = parent[node];
+    }
+    return node;
+  }
+
+  private void union(int node1, int node2) {
+    int root1 = find(node1);
+    int root2 = find(node2);
+    if(root1 != root2) {
+      parent[root2] = root1;
+      minLive[root1] = Math.min(minLive[root1], minLive[root2]);
+      maxLive[root1] = Math.max(maxLive[root1], maxLive[root2]);
+    }
+  }
+
+  private void webs() {
+    int nodes = defCount + useCount;
+    parent = new int[nodes];
+    minLive = new int[nodes];
+    maxLive = new int[nodes];
+    for(int node = 0; node < nodes; node++) {
+      parent[node] = node;
+      int pc = node < defCount ? defPc[node] : usePc[node - defCount];
+      minLive[node] = Math.max(pc, 0);
+      maxLive[node] = Math.max(pc, 0);
+    }
+    /* Marked with the definition being followed, plus one */
+    int[] visited = new int[length];
+    int[] stack = new int[length + 1];
+    for(int d = 0; d < defCount; d++) {
+      int register = defRegister[d];
+      int mark = d + 1;
+      int top = 0;
+      if(defPc[d] < 0) {
+        stack[top++] = 0;
+      } else if(!defKills[d]) {
+        stack[top++] = successors[defPc[d]][0];
+      } else {
+        for(int target : successors[defPc[d]]) {
+          if(target < length) stack[top++] = target;
+        }
+      }
+      while(top > 0) {
+        int pc = stack[--top];
+        if(visited[pc] == mark || !get(liveIn[pc], register)) continue;
+        visited[pc] = mark;
+        minLive[d] = Math.min(minLive[d], pc);
+        maxLive[d] = Math.max(maxLive[d], pc);
+        boolean killed = false;
+        boolean partly = false;
+        for(int u = useFirst[pc]; u < useFirst[pc + 1]; u++) {
+          if(useRegister[u] == register) {
+            union(d, defCount + u);
+          }
+        }
+        for(int other = defFirst[pc]; other < defFirst[pc + 1]; other++) {
+          if(defRegister[other] == register) {
+            if(defKills[other]) {
+              killed = true;
+            } else {
+              partly = true;
+            }
+          }
+        }
+        if(partly) {
+          int target = successors[pc][1];
+          if(target < length && visited[target] != mark) stack[top++] = target;
+        } else if(!killed) {
+          for(int target : successors[pc]) {
+            if(target < length && visited[target] != mark) stack[top++] = target;
+          }
+        }
+      }
+      /* union() only carries the range to the root */
+      int root = find(d);
+      minLive[root] = Math.min(minLive[root], minLive[d]);
+      maxLive[root] = Math.max(maxLive[root], maxLive[d]);
+    }
+    for(int d = 0; d < defCount; d++) {
+      if(defPc[d] >= 0 && defKills[d] && find(d) == d && maxLive[d] == defPc[d]) {
+        overwritten(d, visited, stack);
+      }
+    }
+  }
+
+  private void overwritten(int d, int[] visited, int[] stack) {
+    int register = defRegister[d];
+    int mark = defCount + d + 1;
+    List<Integer> overwrites = new ArrayList<Integer>();
+    boolean joins = false;
+    int top = 0;
+    for(int target : successors[defPc[d]]) {
+      if(target < length) stack[top++] = target;
+    }
+    while(top > 0) {
+      int pc = stack[--top];
+      if(visited[pc] == mark || successors[pc] == null) continue;
+      visited[pc] = mark;
+      if(predecessorMin[pc] != pc - 1 || predecessorMax[pc] != pc - 1) {
+        joins = true;
+      }
+      boolean killed = false;
+      for(int other = defFirst[pc]; other < defFirst[pc + 1]; other++) {
+        if(defRegister[other] == register) {
+          if(!defKills[other]) return;
+          overwrites.add(other);
+          killed = true;
+        }
+      }
+      if(!killed) {
+        for(int target : successors[pc]) {
+          if(target < length && visited[target] != mark) stack[top++] = target;
+        }
+      }
+    }
+    if(joins || overwrites.size() > 1) {
+      for(int other : overwrites) {
+        union(other, d);
+      }
+    }
+  }
+
+  private boolean isLoop(int pc) {
+    if(pc < 0) return false;
+    int op = op(code[pc]);
+    return op == Decompiler.FORPREP || op == Decompiler.FORLOOP || op == Decompiler.TFORLOOP;
+  }
+
+  private void force(BitSet[] active, BitSet[] breaks, BitSet[] forced, int slot, int begin, int end) {
+    if(slot >= registers || end < begin) return;
+    active[slot].set(begin, end + 1);
+    forced[slot].set(begin, end + 1);
+    breaks[slot].set(begin);
+    breaks[slot].set(end + 1);
+  }
+
+  private void forceLoops(BitSet[] active, BitSet[] breaks, BitSet[] forced) {
+    for(int pc = 0; pc < length; pc++) {
+      if(successors[pc] == null) continue;
+      int codepoint = code[pc];
+      int A = A(codepoint);
+      if(op(codepoint) == Decompiler.FORPREP) {
+        int loop = pc + 1 + sBx(codepoint);
+        int line = pc + 1;
+        int loopLine = loop + 1;
+        for(int slot = A; slot <= A + 2; slot++) {
+          force(active, breaks, forced, slot, line - 1, loopLine);
+        }
+        force(active, breaks, forced, A + 3, line, Math.max(loopLine - 1, line));
+      } else if(op(codepoint) == Decompiler.JMP) {
+        int loop = pc + 1 + sBx(codepoint);
+        if(loop > pc && loop + 1 < length && op(code[loop]) == Decompiler.TFORLOOP
+          && op(code[loop + 1]) == Decompiler.JMP && loop + 2 + sBx(code[loop + 1]) == pc + 1) {
+          int line = pc + 1;
+          int loopLine = loop + 1;
+          int base = A(code[loop]);
+          int variables = C(code[loop]);
+          for(int slot = base; slot <= base + 2; slot++) {
+            force(active, breaks, forced, slot, line - 1, loopLine + 1);
+          }
+          for(int slot = base + 3; slot <= base + 2 + variables; slot++) {
+            force(active, breaks, forced, slot, line, Math.max(loopLine - 1, line + 1));
+          }
+        }
+      }
+    }
+  }
+
+  private void declareLocals(BitSet[] active, BitSet[] breaks, BitSet[] forced, int params) {
+    int nodes = defCount + useCount;
+    List<List<Integer>> members = new ArrayList<List<Integer>>(nodes);
+    for(int node = 0; node < nodes; node++) {
+      members.add(null);
+    }
+    for(int node = 0; node < nodes; node++) {
+      int web = find(node);
+      if(members.get(web) == null) {
+        members.set(web, new ArrayList<Integer>());
+      }
+      members.get(web).add(node);
+    }
+    List<int[]> intervals = new ArrayList<int[]>();
+    for(int d = params; d < defCount; d++) {
+      int web = find(d);
+      if(members.get(web) == null) continue;
+      List<Integer> defs = new ArrayList<Integer>();
+      List<Integer> uses = new ArrayList<Integer>();
+      boolean loop = false;
+      boolean param = false;
+      for(int node : members.get(web)) {
+        if(node < defCount) {
+          defs.add(node);
+          if(node < params) param = true;
+          if(isLoop(defPc[node])) loop = true;
+        } else {
+          uses.add(node - defCount);
+          if(isLoop(usePc[node - defCount])) loop = true;
+        }
+      }
+      members.set(web, null);
+      int register = defRegister[d];
+      if(loop || param || isTemporary(register, defs, uses, web)) {
+        continue;
+      }
+      int begin = begin(register, defs, uses);
+      int end = maxLive[web] + 1;
+      for(int u : uses) {
+        if(useKind[u] == CAPTURE) {
+          end = Math.max(end, captureEnd(register, usePc[u]));
+        }
+      }
+      /* A function capturing itself is declared before it is created */
+      for(int node : defs) {
+        int pc = defPc[node];
+        if(op(code[pc]) == Decompiler.CLOSURE && capturesItself(pc)) {
+          begin = Math.min(begin, pc);
+          end = Math.max(end, captureEnd(register, pc));
+        }
+      }
+      end = Math.max(end, begin);
+      active[register].set(begin, end + 1);
+      intervals.add(new int[] {register, begin, end});
+    }
+    for(int[] interval : intervals) {
+      boolean inside = false;
+      for(int[] other : intervals) {
+        if(other != interval && other[0] == interval[0] && other[1] < interval[1] && interval[1] <= other[2]) {
+          inside = true;
+        }
+      }
+      if(!inside && !forced[interval[0]].get(interval[1])) {
+        breaks[interval[0]].set(interval[1]);
+      }
+    }
+  }
+
+  private boolean capturesItself(int pc) {
+    int A = A(code[pc]);
+    for(int i = 0; i < childUpvalues[code[pc] >>> 14]; i++) {
+      int pseudo = code[pc + 1 + i];
+      if(op(pseudo) == Decompiler.MOVE && B(pseudo) == A) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int captureEnd(int register, int pc) {
+    for(int close = pc + 1; close < length; close++) {
+      if(successors[close] != null && op(code[close]) == Decompiler.CLOSE && A(code[close]) <= register) {
+        return close + 1;
+      }
+    }
+    return length;
+  }
+
+  private int begin(int register, List<Integer> defs, List<Integer> uses) {
+    int first = Integer.MAX_VALUE;
+    for(int node : defs) {
+      first = Math.min(first, defPc[node]);
+    }
+    int firstUse = length;
+    for(int u : uses) {
+      if(useKind[u] == NORMAL || useKind[u] == CAPTURE) {
+        firstUse = Math.min(firstUse, usePc[u]);
+      }
+    }
+    int begin = first;
+    int maxTarget = first + 1;
+    for(int target : successors[first]) {
+      maxTarget = Math.max(maxTarget, target);
+    }
+    for(int pc = first + 1; pc < firstUse; pc++) {
+      if(successors[pc] == null) continue;
+      if(isStatement(pc, register) || writesBelow(pc, register)) break;
+      for(int target : successors[pc]) {
+        maxTarget = Math.max(maxTarget, target);
+      }
+      if(predecessorMin[pc] < first) break;
+      boolean mine = false;
+      for(int d = defFirst[pc]; d < defFirst[pc + 1]; d++) {
+        if(defRegister[d] == register) mine = true;
+      }
+      for(int u = useFirst[pc]; u < useFirst[pc + 1]; u++) {
+        if(useRegister[u] == register && useKind[u] == STORE) mine = true;
+      }
+      if(mine && maxTarget <= pc + 1 && closed(first, pc)) {
+        begin = pc;
+      }
+    }
+    return begin + 1;
+  }
+
+  private boolean closed(int first, int pc) {
+    for(int inner = first + 1; inner <= pc; inner++) {
+      if(predecessorMin[inner] < first || predecessorMax[inner] > pc) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isStatement(int pc, int register) {
+    int codepoint = code[pc];
+    switch(op(codepoint)) {
+      case Decompiler.SETGLOBAL:
+      case Decompiler.SETUPVAL:
+        /* Unless it's storing another value of a multiple assignment */
+        return A(codepoint) < register;
+      case Decompiler.RETURN:
+      case Decompiler.TAILCALL:
+      case Decompiler.FORLOOP:
+      case Decompiler.FORPREP:
+      case Decompiler.TFORLOOP:
+      case Decompiler.CLOSE:
+        return true;
+      case Decompiler.SETTABLE:
+        return A(codepoint) < register && !(C(codepoint) > register && C(codepoint) < 0x100);
+      case Decompiler.SETLIST:
+      case Decompiler.SETLISTN:
+        return A(codepoint) < register;
+      case Decompiler.CALL:
+        return C(codepoint) == 1;
+      default:
+        return false;
+    }
+  }
+
+  private boolean within(int pc, int first, int last) {
+    for(int target : successors[pc]) {
+      if(target < first || target > last) return false;
+    }
+    return true;
+  }
+
+  private boolean isTest(int pc) {
+    switch(op(code[pc])) {
+      case Decompiler.EQ:
+      case Decompiler.LT:
+      case Decompiler.LE:
+      case Decompiler.TEST:
+      case Decompiler.JMP:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private boolean writesBelow(int pc, int register) {
+    for(int d = defFirst[pc]; d < defFirst[pc + 1]; d++) {
+      if(defRegister[d] < register) return true;
+    }
+    return false;
+  }
+
+  private boolean isTemporary(int register, List<Integer> defs, List<Integer> uses, int web) {
+    if(uses.isEmpty()) return false;
+    int last = -1;
+    for(int u : uses) {
+      if(useKind[u] == CAPTURE) return false;
+      last = Math.max(last, usePc[u]);
+    }
+    for(int u : uses) {
+      if(usePc[u] != last && useKind[u] == NORMAL) return false;
+    }
+    int first = Integer.MAX_VALUE;
+    for(int node : defs) {
+      if(defPc[node] >= last) return false;
+      first = Math.min(first, defPc[node]);
+    }
+    if(minLive[web] < first || maxLive[web] > last) return false;
+    /* The tests of a conditional value (like a < b, or a and b) come first */
+    while(true) {
+      int entry = first;
+      for(int pc = first + 1; pc <= last; pc++) {
+        entry = Math.min(entry, predecessorMin[pc]);
+      }
+      if(entry < first && op(code[entry]) == Decompiler.JMP && entry > 0 && isTest(entry - 1)) {
+        first = entry - 1;
+      } else if(first > 0 && successors[first - 1] != null && isTest(first - 1) && within(first - 1, first, last)) {
+        first--;
+      } else {
+        break;
+      }
+    }
+    for(int pc = first; pc < last; pc++) {
+      if(successors[pc] == null) continue;
+      if(pc > first) {
+        if(isStatement(pc, register) || writesBelow(pc, register)) return false;
+        if(predecessorMin[pc] < first || predecessorMax[pc] >= last) return false;
+      }
+      for(int target : successors[pc]) {
+        if(target <= first || target > last) return false;
+      }
+    }
+    if(predecessorMin[last] < first || predecessorMax[last] > last) return false;
+    if(livesAbove(last, register)) return false;
+    for(int node : defs) {
+      if(livesAbove(defPc[node], register)) return false;
+    }
+    return true;
+  }
+
+  private boolean livesAbove(int pc, int register) {
+    long[] out = liveOut[pc];
+    for(int above = register + 1; above < registers; above++) {
+      if(get(out, above)) {
+        boolean own = false;
+        for(int d = defFirst[pc]; d < defFirst[pc + 1]; d++) {
+          if(defRegister[d] == above) own = true;
+        }
+        if(!own) return true;
+      }
+    }
+    return false;
+  }
+
+  private void stack(BitSet[] active, BitSet[] breaks, BitSet[] forced) {
+    boolean changed = true;
+    while(changed) {
+      changed = false;
+      for(int line = 0; line < length; line++) {
+        int top = -1;
+        for(int slot = registers - 1; slot >= 0; slot--) {
+          if(active[slot].get(line)) {
+            top = slot;
+            break;
+          }
+        }
+        for(int slot = 0; slot < top; slot++) {
+          if(active[slot].get(line)) continue;
+          int previous = line > 0 ? active[slot].previousSetBit(line - 1) : -1;
+          int begin;
+          if(previous >= 0 && !forced[slot].get(previous)) {
+            begin = previous + 1;
+          } else {
+            begin = Math.max(lastDef(slot, line), previous + 1);
+            breaks[slot].set(begin);
+          }
+          active[slot].set(begin, line + 1);
+          changed = true;
+        }
+      }
+    }
+  }
+
+  private int lastDef(int register, int line) {
+    for(int d = defCount - 1; d >= params(); d--) {
+      if(defRegister[d] == register && defPc[d] + 1 <= line) {
+        return defPc[d] + 1;
+      }
+    }
+    return 0;
+  }
+
+}
@@ -1,8 +1,21 @@
 package unluac.decompile;
 
+import java.nio.charset.StandardCharsets;
+
 public class Output {
 
+  private static final String[] spaces = new String[65];
+  
+  static {
+    StringBuilder b = new StringBuilder(spaces.length);
+    for(int i = 0; i < spaces.length; i++) {
+      spaces[i] = b.toString();
+      b.append(' ');
+    }
+  }
+  
   private OutputProvider out;
+  private RangeOutputProvider ranges;
   private int indentationLevel = 0;
   private int position = 0;
   
@@ -24,6 +37,9 @@ public class Output {
   
   public Output(OutputProvider out) {
     this.out = out;
+    if(out instanceof RangeOutputProvider) {
+      ranges = (RangeOutputProvider) out;
+    }
   }
   
   public void indent() {
@@ -48,19 +64,70 @@ public class Output {
   
   private void start() {
     if(position == 0) {
-      for(int i = indentationLevel; i != 0; i--) {
-        out.print(" ");
-        position++;
-      }
+      position = printIndentation(indentationLevel);
     }
   }
   
+  protected int printIndentation(int level) {
+    int remaining = level;
+    while(remaining > 0) {
+      int count = Math.min(remaining, spaces.length - 1);
+      out.print(spaces[count]);
+      remaining -= count;
+    }
+    return level;
+  }
+  
+  public void print(Fragment fragment) {
+    fragment.replay(this);
+  }
+  
+  void replayIndentation(int relative, boolean absolute) {
+    position = printIndentation(absolute ? 0 : indentationLevel + relative);
+  }
+  
+  void replayText(String s, int begin, int end) {
+    printRange(s, begin, end);
+    position += end - begin;
+  }
+  
+  void replayLine() {
+    out.println();
+    position = 0;
+  }
+  
   public void print(String s) {
     start();
     out.print(s);
     position += s.length();
   }
   
+  public void print(String s, int begin, int end) {
+    start();
+    printRange(s, begin, end);
+    position += end - begin;
+  }
+  
+  public void print(byte[] bytes, int begin, int end) {
+    start();
+    if(ranges != null) {
+      ranges.print(bytes, begin, end);
+    } else {
+      out.print(new String(bytes, begin, end - begin, StandardCharsets.ISO_8859_1));
+    }
+    position += end - begin;
+  }
+  
+  private void printRange(String s, int begin, int end) {
+    if(ranges != null) {
+      ranges.print(s, begin, end);
+    } else if(begin == 0 && end == s.length()) {
+      out.print(s);
+    } else {
+      out.print(s.substring(begin, end));
+    }
+  }
+  
   public void println() {
     start();
     out.println();
@@ -0,0 +1,9 @@
+package unluac.decompile;
+
+public interface RangeOutputProvider extends OutputProvider {
+
+  public void print(String s, int begin, int end);
+  
+  public void print(byte[] bytes, int begin, int end);
+  
+}
@@ -16,79 +16,185 @@ public class Registers {
   public final int length;
   
   private final Declaration[][] decls;
+  private final int[] declCount;
+  
+  private final Declaration[] declStarts;
+  
   private final Constant[] constants;
-  private final Expression[][] values;
-  private final int[][] updated;
+  
+  private final int[][] changeLines;
+  private final Expression[][] changeValues;
+  private final int[][] changeUpdated;
+  private final int[] changeCount;
+  
+  private int currentLine = 0;
+  private int[] dirty;
+  private int dirtyCount = 0;
+  
+  /* Lines before this one can no longer be looked up */
+  private int forgotten = 0;
   
   public Registers(int registers, int length, Declaration[] declList, Constant[] constants) {
     this.registers = registers;
     this.length = length;
-    decls = new Declaration[registers][length + 1];
+    decls = new Declaration[registers][];
+    declCount = new int[registers];
     for(int i = 0; i < declList.length; i++) {
       Declaration decl = declList[i];
       int register = 0;
-      while(decls[register][decl.begin] != null) {
+      while(getDeclaration(register, decl.begin) != null) {
         register++;
       }
       decl.register = register;
-      for(int line = decl.begin; line <= decl.end; line++) {
-        decls[register][line] = decl; 
+      if(decl.begin <= decl.end) {
+        addDeclaration(register, decl);
       }
     }
-    this.constants = constants;
-    values = new Expression[registers][length + 1];
+    List<Declaration> starts = new ArrayList<Declaration>(declList.length);
     for(int register = 0; register < registers; register++) {
-      values[register][0] = Expression.NIL;
+      for(int i = 0; i < declCount[register]; i++) {
+        starts.add(decls[register][i]);
+      }
+    }
+    declStarts = starts.toArray(new Declaration[starts.size()]);
+    Arrays.sort(declStarts, new java.util.Comparator<Declaration>() {
+      
+      @Override
+      public int compare(Declaration d1, Declaration d2) {
+        if(d1.begin != d2.begin) {
+          return d1.begin < d2.begin ? -1 : 1;
+        }
+        return d1.register - d2.register;
+      }
+      
+    });
+    this.constants = constants;
+    changeLines = new int[registers][];
+    changeValues = new Expression[registers][];
+    changeUpdated = new int[registers][];
+    changeCount = new int[registers];
+    dirty = new int[Math.max(registers, 1)];
+  }
+  
+  private void addDeclaration(int register, Declaration decl) {
+    Declaration[] list = decls[register];
+    int count = declCount[register];
+    if(list == null) {
+      list = decls[register] = new Declaration[2];
+    } else if(count == list.length) {
+      list = decls[register] = Arrays.copyOf(list, count * 2);
+    }
+    int index = count;
+    while(index > 0 && list[index - 1].begin > decl.begin) {
+      list[index] = list[index - 1];
+      index--;
     }
-    updated = new int[registers][length + 1];
-    startedLines = new boolean[length + 1];
-    Arrays.fill(startedLines, false);
+    list[index] = decl;
+    declCount[register] = count + 1;
   }
   
   public boolean isAssignable(int register, int line) {
-    return isLocal(register, line) && !decls[register][line].forLoop;
+    return isLocal(register, line) && !getDeclaration(register, line).forLoop;
   }
   
   public boolean isLocal(int register, int line) {
     if(register < 0) return false;
-    return decls[register][line] != null;
+    return getDeclaration(register, line) != null;
   }
   
   public boolean isNewLocal(int register, int line) {
-    Declaration decl = decls[register][line];
+    Declaration decl = getDeclaration(register, line);
     return decl != null && decl.begin == line && !decl.forLoop;
   }
     
   public List<Declaration> getNewLocals(int line) {
-    ArrayList<Declaration> locals = new ArrayList<Declaration>(registers);
-    for(int register = 0; register < registers; register++) {
-      if(isNewLocal(register, line)) {
-        locals.add(getDeclaration(register, line));
+    ArrayList<Declaration> locals = new ArrayList<Declaration>();
+    int low = 0;
+    int high = declStarts.length;
+    while(low < high) {
+      int mid = (low + high) >>> 1;
+      if(declStarts[mid].begin < line) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    for(int i = low; i < declStarts.length && declStarts[i].begin == line; i++) {
+      if(!declStarts[i].forLoop) {
+        locals.add(declStarts[i]);
       }
     }
     return locals;
   }
   
   public Declaration getDeclaration(int register, int line) {
-    return decls[register][line];
+    Declaration[] list = decls[register];
+    int low = 0;
+    int high = declCount[register] - 1;
+    while(low <= high) {
+      int mid = (low + high) >>> 1;
+      Declaration decl = list[mid];
+      if(line < decl.begin) {
+        high = mid - 1;
+      } else if(line > decl.end) {
+        low = mid + 1;
+      } else {
+        return decl;
+      }
+    }
+    return null;
   }
   
-  private boolean[] startedLines;
-  
   public void startLine(int line) {
-    //if(startedLines[line]) return;
-    startedLines[line] = true;
-    for(int register = 0; register < registers; register++) {
-      values[register][line] = values[register][line - 1];
-      updated[register][line] = updated[register][line - 1];
+    if(line == currentLine) {
+      for(int i = 0; i < dirtyCount; i++) {
+        int register = dirty[i];
+        int count = changeCount[register];
+        if(count > 0 && changeLines[register][count - 1] == line) {
+          changeCount[register] = count - 1;
+          changeValues[register][count - 1] = null;
+        }
+      }
+    }
+    currentLine = line;
+    dirtyCount = 0;
+  }
+  
+  private int find(int register, int line) {
+    if(line < forgotten) {
+      throw new IllegalStateException("line " + line + " already released");
+    }
+    int count = changeCount[register];
+    if(count == 0) {
+      return -1;
+    }
+    int[] lines = changeLines[register];
+    if(lines[count - 1] <= line) {
+      return count - 1;
+    }
+    int low = 0;
+    int high = count - 1;
+    while(low <= high) {
+      int mid = (low + high) >>> 1;
+      if(lines[mid] <= line) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
     }
+    return high;
+  }
+  
+  private Expression value(int register, int line) {
+    int index = find(register, line);
+    return index >= 0 ? changeValues[register][index] : Expression.NIL;
   }
   
   public Expression getExpression(int register, int line) {
     if(isLocal(register, line - 1)) {
       return new LocalVariable(getDeclaration(register, line - 1));
     } else {
-      return values[register][line - 1];
+      return value(register, line - 1);
     }
   }
   
@@ -101,23 +207,79 @@ public class Registers {
   }
   
   public Expression getValue(int register, int line) {
-    return values[register][line - 1];
+    return value(register, line - 1);
   }
 
   public int getUpdated(int register, int line) {
-    return updated[register][line];
+    int index = find(register, line);
+    return index >= 0 ? changeUpdated[register][index] : 0;
   }
   
   public void setValue(int register, int line, Expression expression) {
-    values[register][line] = expression;
-    updated[register][line] = line;
+    int index = find(register, line);
+    if(line < currentLine && !(index + 1 < changeCount[register] && changeLines[register][index + 1] == line + 1)) {
+      /* Later lines have already taken the old value */
+      Expression previous = index >= 0 ? changeValues[register][index] : Expression.NIL;
+      int updated = index >= 0 ? changeUpdated[register][index] : 0;
+      insert(register, index + 1, line + 1, previous, updated);
+    }
+    if(index >= 0 && changeLines[register][index] == line) {
+      changeValues[register][index] = expression;
+      changeUpdated[register][index] = line;
+    } else {
+      insert(register, index + 1, line, expression, line);
+    }
+  }
+  
+  private void insert(int register, int index, int line, Expression value, int updated) {
+    int count = changeCount[register];
+    if(changeLines[register] == null) {
+      changeLines[register] = new int[4];
+      changeValues[register] = new Expression[4];
+      changeUpdated[register] = new int[4];
+    } else if(count == changeLines[register].length) {
+      changeLines[register] = Arrays.copyOf(changeLines[register], count * 2);
+      changeValues[register] = Arrays.copyOf(changeValues[register], count * 2);
+      changeUpdated[register] = Arrays.copyOf(changeUpdated[register], count * 2);
+    }
+    System.arraycopy(changeLines[register], index, changeLines[register], index + 1, count - index);
+    System.arraycopy(changeValues[register], index, changeValues[register], index + 1, count - index);
+    System.arraycopy(changeUpdated[register], index, changeUpdated[register], index + 1, count - index);
+    changeLines[register][index] = line;
+    changeValues[register][index] = value;
+    changeUpdated[register][index] = updated;
+    changeCount[register] = count + 1;
+    if(line == currentLine) {
+      if(dirtyCount == dirty.length) {
+        dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+      }
+      dirty[dirtyCount++] = register;
+    }
+  }
+  
+  public void forget(int line) {
+    if(line <= forgotten) {
+      return;
+    }
+    forgotten = line;
+    for(int register = 0; register < registers; register++) {
+      int index = find(register, line);
+      if(index > 0) {
+        int count = changeCount[register] - index;
+        System.arraycopy(changeLines[register], index, changeLines[register], 0, count);
+        System.arraycopy(changeValues[register], index, changeValues[register], 0, count);
+        System.arraycopy(changeUpdated[register], index, changeUpdated[register], 0, count);
+        Arrays.fill(changeValues[register], count, changeCount[register], null);
+        changeCount[register] = count;
+      }
+    }
   }
   
   public Target getTarget(int register, int line) {
     if(!isLocal(register, line)) {
       throw new IllegalStateException();
     }
-    return new VariableTarget(decls[register][line]);
+    return new VariableTarget(getDeclaration(register, line));
   }
   
 }
@@ -0,0 +1,137 @@
+package unluac.decompile;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Text held back until it is known to be wanted. Past LIMIT chars it goes to
+ * a temporary file, so holding a whole function costs no more heap than
+ * printing it straight out.
+ */
+class Spill implements RangeOutputProvider {
+
+  private static final int LIMIT = 64 * 1024;
+
+  /* Stands for a line break; printed text never holds this char */
+  private static final char LINE = '\uffff';
+
+  private final StringBuilder text = new StringBuilder();
+  private final char[] chunk = new char[LIMIT];
+  private File file;
+  private Writer writer;
+
+  @Override
+  public void print(String s) {
+    text.append(s);
+    check();
+  }
+
+  @Override
+  public void print(String s, int begin, int end) {
+    text.append(s, begin, end);
+    check();
+  }
+
+  @Override
+  public void print(byte[] bytes, int begin, int end) {
+    for(int i = begin; i < end; i++) {
+      text.append((char) (bytes[i] & 0xFF));
+    }
+    check();
+  }
+
+  @Override
+  public void println() {
+    text.append(LINE);
+    check();
+  }
+
+  private void check() {
+    if(text.length() > LIMIT) {
+      spill();
+    }
+  }
+
+  private void spill() {
+    try {
+      if(writer == null) {
+        file = File.createTempFile("unluac", ".lua");
+        writer = new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024), StandardCharsets.UTF_8);
+      }
+      for(int begin = 0; begin < text.length(); begin += chunk.length) {
+        int end = Math.min(text.length(), begin + chunk.length);
+        text.getChars(begin, end, chunk, 0);
+        writer.write(chunk, 0, end - begin);
+      }
+      text.setLength(0);
+    } catch(IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /* Prints the text held, then lets it go */
+  void copyTo(Output out) {
+    try {
+      if(writer == null) {
+        replay(out, text.toString());
+        return;
+      }
+      spill();
+      writer.close();
+      Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+      try {
+        int count;
+        while((count = reader.read(chunk)) >= 0) {
+          replay(out, new String(chunk, 0, count));
+        }
+      } finally {
+        reader.close();
+      }
+    } catch(IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      discard();
+    }
+  }
+
+  private static void replay(Output out, String s) {
+    int begin = 0;
+    for(int i = 0; i < s.length(); i++) {
+      if(s.charAt(i) == LINE) {
+        if(i > begin) {
+          out.print(s, begin, i);
+        }
+        out.println();
+        begin = i + 1;
+      }
+    }
+    if(begin < s.length()) {
+      out.print(s, begin, s.length());
+    }
+  }
+
+  void discard() {
+    text.setLength(0);
+    text.trimToSize();
+    if(writer != null) {
+      try {
+        writer.close();
+      } catch(IOException e) {
+        /* Only the file is wanted gone */
+      }
+      file.delete();
+      writer = null;
+      file = null;
+    }
+  }
+
+}
@@ -1,6 +1,7 @@
 package unluac.decompile.block;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import unluac.decompile.Output;
@@ -10,6 +11,12 @@ public class OuterBlock extends Block {
 
   private final List<Statement> statements;
   
+  /* When streaming: statements printed, and the first line each held one covers */
+  private int printed = 0;
+  private int[] first = new int[16];
+  private int held = 0;
+  private int next = 1;
+  
   public OuterBlock(int length) {
     super(0, length + 1);
     statements = new ArrayList<Statement>(length);
@@ -45,11 +52,44 @@ public class OuterBlock extends Block {
     return end - 2;
   }
   
+  /*
+   * Called before each line is processed. Statements added since the last
+   * call can no longer change, so all but the last two are printed and
+   * released; those two may still be the tail and the extra return. Returns
+   * the first line covered by a statement not yet printed: registers are
+   * never read before it again.
+   */
+  public int flush(Output out, int line) {
+    if(printed + held < statements.size()) {
+      while(printed + held < statements.size()) {
+        if(held == first.length) {
+          first = Arrays.copyOf(first, held * 2);
+        }
+        first[held++] = next;
+      }
+      next = line;
+    }
+    int count = 0;
+    while(held - count > 2) {
+      Statement stmt = statements.get(printed + count);
+      stmt.print(out);
+      if(!(stmt instanceof IfThenElseBlock)) {
+        out.println();
+      }
+      statements.set(printed + count, null);
+      count++;
+    }
+    printed += count;
+    held -= count;
+    System.arraycopy(first, count, first, 0, held);
+    return held > 0 ? first[0] : next;
+  }
+  
   @Override
   public void print(Output out) {
     /* extra return statement */
     statements.remove(statements.size() - 1);
-    Statement.printSequence(out, statements);
+    Statement.printSequence(out, printed == 0 ? statements : statements.subList(printed, statements.size()));
   }
   
 }
@@ -12,11 +12,17 @@ public class ClosureExpression extends Expression {
 
   private final LFunction function;
   private int upvalueLine;
+  private final Decompiler parent;
   
   public ClosureExpression(LFunction function, int upvalueLine) {
+    this(function, upvalueLine, null);
+  }
+  
+  public ClosureExpression(LFunction function, int upvalueLine, Decompiler parent) {
     super(PRECEDENCE_ATOMIC);
     this.function = function;
     this.upvalueLine = upvalueLine;
+    this.parent = parent;
   }
 
   public int getConstantIndex() {
@@ -42,7 +48,7 @@ public class ClosureExpression extends Expression {
   @Override
   public void printClosure(Output out, Target name) {
     out.print("function ");
-    if(function.numParams >= 1 && function.locals[0].name.deref().equals("self") && name instanceof TableTarget) {
+    if(function.numParams >= 1 && function.localName(0).equals("self") && name instanceof TableTarget) {
       name.printMethod(out);
       printMain(out, false);
     } else {
@@ -55,10 +61,10 @@ public class ClosureExpression extends Expression {
     out.print("(");
     int start = includeFirst ? 0 : 1;
     if(function.numParams > start) {
-      new VariableTarget(new Declaration(function.locals[start])).print(out);
+      new VariableTarget(new Declaration(function.localName(start), function.localStarts[start], function.localEnds[start])).print(out);
       for(int i = start + 1; i < function.numParams; i++) {
         out.print(", ");
-        new VariableTarget(new Declaration(function.locals[i])).print(out);
+        new VariableTarget(new Declaration(function.localName(i), function.localStarts[i], function.localEnds[i])).print(out);
       }
     }
     if((function.vararg & 1) == 1) {
@@ -71,8 +77,11 @@ public class ClosureExpression extends Expression {
     out.print(")");
     out.println();
     out.indent();
-    Decompiler d = new Decompiler(function, out);
-    d.decompile();
+    if(parent != null) {
+      parent.decompileNested(function, out);
+    } else {
+      new Decompiler(function, out).decompile();
+    }
     out.dedent();
     out.print("end");
     //out.println(); //This is an extra space for formatting
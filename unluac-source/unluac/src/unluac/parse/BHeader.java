@@ -1,15 +1,18 @@
 package unluac.parse;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 
 public class BHeader {
 
   private static final byte[] signature = {
     0x1B, 0x4C, 0x75, 0x61,
-    0x51, 0x00, 0x01, 0x04,
-    0x04, 0x04, 0x08, 0x00,
   };
+  
+  private static final int VERSION = 0x51;
+  private static final int FORMAT = 0;
+  private static final int INSTRUCTION_SIZE = 4;
 
   public final boolean debug = false;
   
@@ -22,20 +25,50 @@ public class BHeader {
   public final LLocalType local;
   public final LFunctionType function;
   
+  public final LStringPool strings;
+  
   public BHeader(ByteBuffer buffer) {
     for(int i = 0; i < signature.length; i++) {
       if(buffer.get() != signature[i]) {
-        throw new IllegalStateException();
+        throw new IllegalStateException("Not a Lua bytecode file");
       }
     }
-    integer = new BIntegerType();
-    sizeT = new BSizeTType();
+    int version = 0xFF & buffer.get();
+    if(version != VERSION) {
+      throw new IllegalStateException("Unsupported Lua version " + Integer.toHexString(version));
+    }
+    int format = 0xFF & buffer.get();
+    if(format != FORMAT) {
+      throw new IllegalStateException("Unsupported bytecode format " + format);
+    }
+    int endianness = 0xFF & buffer.get();
+    if(endianness == 0) {
+      buffer.order(ByteOrder.BIG_ENDIAN);
+    } else if(endianness == 1) {
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+    } else {
+      throw new IllegalStateException("Illegal endianness " + endianness);
+    }
+    int intSize = 0xFF & buffer.get();
+    int sizeTSize = 0xFF & buffer.get();
+    int instructionSize = 0xFF & buffer.get();
+    if(instructionSize != INSTRUCTION_SIZE) {
+      throw new IllegalStateException("Unsupported instruction size " + instructionSize);
+    }
+    int numberSize = 0xFF & buffer.get();
+    int integral = 0xFF & buffer.get();
+    if(integral > 1) {
+      throw new IllegalStateException("Illegal integral flag " + integral);
+    }
+    integer = BIntegerType.create(intSize);
+    sizeT = BSizeTType.create(sizeTSize);
     bool = new LBooleanType();
-    number = new LNumberType();
+    number = LNumberType.create(numberSize, integral == 1);
     string = new LStringType();
     constant = new LConstantType();
     local = new LLocalType();
     function = new LFunctionType();
+    strings = new LStringPool();
   }
   
 }
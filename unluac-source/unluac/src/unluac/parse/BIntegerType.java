@@ -2,14 +2,62 @@ package unluac.parse;
 
 import java.nio.ByteBuffer;
 
-public class BIntegerType extends BObjectType<BInteger> {
+abstract public class BIntegerType extends BObjectType<BInteger> {
 
+  public static BIntegerType create(int size) {
+    switch(size) {
+      case 4:
+        return new BIntegerType(size) {
+          
+          @Override
+          public int read(ByteBuffer buffer, BHeader header) {
+            return buffer.getInt();
+          }
+          
+        };
+      case 8:
+        return new BIntegerType(size) {
+          
+          @Override
+          public int read(ByteBuffer buffer, BHeader header) {
+            return narrow(buffer.getLong());
+          }
+          
+        };
+      default:
+        throw new IllegalStateException("Unsupported int size " + size);
+    }
+  }
+  
+  public final int size;
+  
+  private BIntegerType(int size) {
+    this.size = size;
+  }
+  
+  static int narrow(long value) {
+    if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Integer value out of range: " + value);
+    }
+    return (int) value;
+  }
+  
   public BInteger parse(ByteBuffer buffer, BHeader header) {
-    BInteger value = new BInteger(buffer.getInt());
+    BInteger value = new BInteger(read(buffer, header));
     if(header.debug){
       System.out.println("-- parsed <integer> " + value.asInt());
     }
     return value;
   }
   
+  abstract public int read(ByteBuffer buffer, BHeader header);
+  
+  public int[] readArray(ByteBuffer buffer, BHeader header) {
+    int[] values = new int[read(buffer, header)];
+    for(int i = 0; i < values.length; i++) {
+      values[i] = read(buffer, header);
+    }
+    return values;
+  }
+  
 }
@@ -2,14 +2,47 @@ package unluac.parse;
 
 import java.nio.ByteBuffer;
 
-public class BSizeTType extends BObjectType<BSizeT> {
+abstract public class BSizeTType extends BObjectType<BSizeT> {
 
+  public static BSizeTType create(int size) {
+    switch(size) {
+      case 4:
+        return new BSizeTType(size) {
+          
+          @Override
+          public int read(ByteBuffer buffer, BHeader header) {
+            return buffer.getInt();
+          }
+          
+        };
+      case 8:
+        return new BSizeTType(size) {
+          
+          @Override
+          public int read(ByteBuffer buffer, BHeader header) {
+            return BIntegerType.narrow(buffer.getLong());
+          }
+          
+        };
+      default:
+        throw new IllegalStateException("Unsupported size_t size " + size);
+    }
+  }
+  
+  public final int size;
+  
+  private BSizeTType(int size) {
+    this.size = size;
+  }
+  
   public BSizeT parse(ByteBuffer buffer, BHeader header) {
-    BSizeT value = new BSizeT(buffer.getInt());
+    BSizeT value = new BSizeT(read(buffer, header));
     if(header.debug) {
       System.out.println("-- parsed <size_t> " + value.asInt());
     }
     return value;
   }
   
+  abstract public int read(ByteBuffer buffer, BHeader header);
+  
 }
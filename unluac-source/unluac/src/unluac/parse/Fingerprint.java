@@ -0,0 +1,123 @@
+package unluac.parse;
+
+public class Fingerprint {
+
+  private static final long K1 = 0x9E3779B97F4A7C15L;
+  private static final long K2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long K3 = 0x165667B19E3779F9L;
+  private static final long K4 = 0xD6E8FEB86659FD93L;
+
+  public final long high;
+  public final long low;
+
+  private Fingerprint(long high, long low) {
+    this.high = high;
+    this.low = low;
+  }
+
+  private static class Hasher {
+
+    private long a = K3;
+    private long b = K4;
+
+    void add(long value) {
+      a = Long.rotateLeft(a ^ (value * K1), 31) * K2;
+      b = Long.rotateLeft(b + (value * K2), 27) * K1 + K3;
+    }
+
+    void add(byte[] bytes) {
+      add(bytes.length);
+      long word = 0;
+      for(int i = 0; i < bytes.length; i++) {
+        word = (word << 8) | (0xFF & bytes[i]);
+        if((i & 7) == 7) {
+          add(word);
+          word = 0;
+        }
+      }
+      add(word);
+    }
+
+    void add(String s) {
+      add(s.length());
+      for(int i = 0; i < s.length(); i++) {
+        add(s.charAt(i));
+      }
+    }
+
+    Fingerprint finish() {
+      return new Fingerprint(mix(a), mix(b));
+    }
+
+    private static long mix(long h) {
+      h ^= h >>> 33;
+      h *= 0xFF51AFD7ED558CCDL;
+      h ^= h >>> 33;
+      h *= 0xC4CEB9FE1A85EC53L;
+      h ^= h >>> 33;
+      return h;
+    }
+
+  }
+
+  static Fingerprint of(LFunction function) {
+    Hasher h = new Hasher();
+    h.add(function.maximumStackSize);
+    h.add(function.numUpvalues);
+    h.add(function.numParams);
+    h.add(function.vararg);
+    h.add(function.inferredLocals ? 1 : 0);
+    h.add(function.code.length);
+    for(int codepoint : function.code) {
+      h.add(codepoint);
+    }
+    LConstants constants = function.constants;
+    h.add(constants.length());
+    for(int i = 0; i < constants.length(); i++) {
+      int type = constants.type(i);
+      h.add(type);
+      if(type == LConstants.STRING) {
+        h.add(constants.string(i).bytes);
+      } else if(type != LConstants.NIL) {
+        h.add(Double.doubleToLongBits(constants.number(i)));
+      }
+    }
+    h.add(function.localNames.length);
+    for(int i = 0; i < function.localNames.length; i++) {
+      h.add(function.localNames[i].bytes);
+      h.add(function.localStarts[i]);
+      h.add(function.localEnds[i]);
+    }
+    h.add(function.upvalues.length);
+    for(String upvalue : function.upvalues) {
+      h.add(upvalue);
+    }
+    h.add(function.functions.length);
+    for(LFunction child : function.functions) {
+      Fingerprint f = child.fingerprint();
+      h.add(f.high);
+      h.add(f.low);
+    }
+    return h.finish();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if(o instanceof Fingerprint) {
+      Fingerprint other = (Fingerprint) o;
+      return high == other.high && low == other.low;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (low ^ (low >>> 32));
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%016x%016x", high, low);
+  }
+
+}
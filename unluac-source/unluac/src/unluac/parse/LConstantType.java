@@ -42,4 +42,28 @@ public class LConstantType extends BObjectType<LObject> {
     }
   }
   
+  public LConstants parseConstants(ByteBuffer buffer, BHeader header) {
+    LConstants constants = new LConstants(header.integer.read(buffer, header));
+    for(int i = 0; i < constants.length(); i++) {
+      int type = 0xFF & buffer.get();
+      switch(type) {
+        case LConstants.NIL:
+          constants.setNil(i);
+          break;
+        case LConstants.BOOLEAN:
+          constants.setBoolean(i, header.bool.parse(buffer, header) == LBoolean.LTRUE);
+          break;
+        case LConstants.NUMBER:
+          constants.setNumber(i, header.number.read(buffer, header));
+          break;
+        case LConstants.STRING:
+          constants.setString(i, header.string.parse(buffer, header));
+          break;
+        default:
+          throw new IllegalStateException();
+      }
+    }
+    return constants;
+  }
+  
 }
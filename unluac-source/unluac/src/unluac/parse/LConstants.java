@@ -0,0 +1,92 @@
+package unluac.parse;
+
+public class LConstants {
+
+  public static final int NIL = 0;
+  public static final int BOOLEAN = 1;
+  public static final int NUMBER = 3;
+  public static final int STRING = 4;
+  
+  private final byte[] types;
+  private final double[] numbers;
+  private final LString[] strings;
+  
+  public LConstants(int length) {
+    types = new byte[length];
+    numbers = new double[length];
+    strings = new LString[length];
+  }
+  
+  public LConstants(LObject[] constants) {
+    this(constants.length);
+    for(int i = 0; i < constants.length; i++) {
+      LObject constant = constants[i];
+      if(constant instanceof LNil) {
+        setNil(i);
+      } else if(constant instanceof LBoolean) {
+        setBoolean(i, constant == LBoolean.LTRUE);
+      } else if(constant instanceof LNumber) {
+        setNumber(i, ((LNumber) constant).number);
+      } else if(constant instanceof LString) {
+        setString(i, (LString) constant);
+      } else {
+        throw new IllegalArgumentException("Illegal constant type: " + constant.toString());
+      }
+    }
+  }
+  
+  public int length() {
+    return types.length;
+  }
+  
+  public int type(int index) {
+    return types[index];
+  }
+  
+  public boolean bool(int index) {
+    return numbers[index] != 0.0;
+  }
+  
+  public double number(int index) {
+    return numbers[index];
+  }
+  
+  public LString string(int index) {
+    return strings[index];
+  }
+  
+  public LObject get(int index) {
+    switch(types[index]) {
+      case NIL:
+        return LNil.NIL;
+      case BOOLEAN:
+        return bool(index) ? LBoolean.LTRUE : LBoolean.LFALSE;
+      case NUMBER:
+        return new LNumber(numbers[index]);
+      case STRING:
+        return strings[index];
+      default:
+        throw new IllegalStateException();
+    }
+  }
+  
+  public void setNil(int index) {
+    types[index] = NIL;
+  }
+  
+  public void setBoolean(int index, boolean value) {
+    types[index] = BOOLEAN;
+    numbers[index] = value ? 1.0 : 0.0;
+  }
+  
+  public void setNumber(int index, double value) {
+    types[index] = NUMBER;
+    numbers[index] = value;
+  }
+  
+  public void setString(int index, LString value) {
+    types[index] = STRING;
+    strings[index] = value;
+  }
+  
+}
@@ -2,33 +2,15 @@ package unluac.parse;
 
 public class LFunction extends BObject {
   
-  public static int op(int codepoint) {
-    return codepoint & 0x0000003F;
-  }
-  
-  public static int A(int codepoint) {
-    return (codepoint >> 6) & 0x0000000FF;
-  }
-  
-  public static int C(int codepoint) {
-    return (codepoint >> 14) & 0x000001FF;
-  }
-  
-  public static int B(int codepoint) {
-    return codepoint >>> 23;
-  }
+  public int[] code;
   
-  public static int Bx(int codepoint) {
-    return codepoint >>> 14;
-  }
+  public int[] lines;
   
-  public static int sBx(int codepoint) {
-    return (codepoint >>> 14) - 131071;
-  }
+  public LString[] localNames;
+  public int[] localStarts;
+  public int[] localEnds;
   
-  public int[] code;
-  public LLocal[] locals;
-  public LObject[] constants;
+  public LConstants constants;
   public String[] upvalues;
   public LFunction[] functions;
   public int maximumStackSize;
@@ -36,9 +18,26 @@ public class LFunction extends BObject {
   public int numParams;
   public int vararg;
   
+  /* Inferred locals end at their last use */
+  public boolean inferredLocals;
+  
+  private volatile Fingerprint fingerprint;
+  
   public LFunction(int[] code, LLocal[] locals, LObject[] constants, String[] upvalues, LFunction[] functions, int maximumStackSize, int numUpValues, int numParams, int vararg) {
+    this(code, new int[0], new LString[locals.length], new int[locals.length], new int[locals.length], new LConstants(constants), upvalues, functions, maximumStackSize, numUpValues, numParams, vararg);
+    for(int i = 0; i < locals.length; i++) {
+      localNames[i] = locals[i].name;
+      localStarts[i] = locals[i].start;
+      localEnds[i] = locals[i].end;
+    }
+  }
+  
+  public LFunction(int[] code, int[] lines, LString[] localNames, int[] localStarts, int[] localEnds, LConstants constants, String[] upvalues, LFunction[] functions, int maximumStackSize, int numUpValues, int numParams, int vararg) {
     this.code = code;
-    this.locals = locals;
+    this.lines = lines;
+    this.localNames = localNames;
+    this.localStarts = localStarts;
+    this.localEnds = localEnds;
     this.constants = constants;
     this.upvalues = upvalues;
     this.functions = functions;
@@ -48,4 +47,25 @@ public class LFunction extends BObject {
     this.vararg = vararg;
   }
   
+  public Fingerprint fingerprint() {
+    Fingerprint f = fingerprint;
+    if(f == null) {
+      f = Fingerprint.of(this);
+      fingerprint = f;
+    }
+    return f;
+  }
+  
+  public String localName(int index) {
+    return localNames[index].deref();
+  }
+  
+  public LLocal[] getLocals() {
+    LLocal[] locals = new LLocal[localNames.length];
+    for(int i = 0; i < locals.length; i++) {
+      locals[i] = new LLocal(localNames[i], localStarts[i], localEnds[i]);
+    }
+    return locals;
+  }
+  
 }
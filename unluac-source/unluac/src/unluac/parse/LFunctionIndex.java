@@ -0,0 +1,149 @@
+package unluac.parse;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class LFunctionIndex {
+
+  public final int offset;
+  public final int length;
+  
+  public final int instructions;
+  public final LFunctionIndex[] children;
+  
+  private LFunctionIndex(int offset, int length, int instructions, LFunctionIndex[] children) {
+    this.offset = offset;
+    this.length = length;
+    this.instructions = instructions;
+    this.children = children;
+  }
+  
+  public static LFunctionIndex scan(ByteBuffer buffer, BHeader header) {
+    int offset = buffer.position();
+    skipString(buffer, header);
+    int intSize = header.integer.size;
+    /* line defined, last line defined, upvalues, params, vararg, stack */
+    skip(buffer, intSize + intSize + 4);
+    /* instructions are always four bytes */
+    int instructions = header.integer.read(buffer, header);
+    skip(buffer, 4L * instructions);
+    int constants = header.integer.read(buffer, header);
+    for(int i = 0; i < constants; i++) {
+      int type = 0xFF & buffer.get();
+      switch(type) {
+        case 0:
+          break;
+        case 1:
+          skip(buffer, 1);
+          break;
+        case 3:
+          skip(buffer, header.number.size);
+          break;
+        case 4:
+          skipString(buffer, header);
+          break;
+        default:
+          throw new IllegalStateException("Illegal constant type " + type + " at " + (buffer.position() - 1));
+      }
+    }
+    LFunctionIndex[] children = new LFunctionIndex[header.integer.read(buffer, header)];
+    for(int i = 0; i < children.length; i++) {
+      children[i] = scan(buffer, header);
+    }
+    skip(buffer, (long) intSize * header.integer.read(buffer, header));
+    int locals = header.integer.read(buffer, header);
+    for(int i = 0; i < locals; i++) {
+      skipString(buffer, header);
+      skip(buffer, intSize + intSize);
+    }
+    int upvalues = header.integer.read(buffer, header);
+    for(int i = 0; i < upvalues; i++) {
+      skipString(buffer, header);
+    }
+    return new LFunctionIndex(offset, buffer.position() - offset, instructions, children);
+  }
+  
+  private static void skipString(ByteBuffer buffer, BHeader header) {
+    skip(buffer, header.sizeT.read(buffer, header));
+  }
+  
+  private static void skip(ByteBuffer buffer, long count) {
+    if(count < 0 || count > buffer.remaining()) {
+      throw new IllegalStateException("Truncated function at " + buffer.position());
+    }
+    buffer.position(buffer.position() + (int) count);
+  }
+  
+  public LFunctionIndex find(String path) {
+    String[] parts = path.split("/");
+    if(!parts[0].equals("main")) {
+      return null;
+    }
+    LFunctionIndex index = this;
+    for(int i = 1; i < parts.length; i++) {
+      int child;
+      try {
+        child = Integer.parseInt(parts[i]);
+      } catch(NumberFormatException e) {
+        return null;
+      }
+      if(child < 0 || child >= index.children.length) {
+        return null;
+      }
+      index = index.children[child];
+    }
+    return index;
+  }
+  
+  public LFunction parse(ByteBuffer buffer, BHeader header) {
+    return header.function.parse(at(buffer), header);
+  }
+  
+  public LFunction parse(ByteBuffer buffer, BHeader header, ForkJoinPool pool) {
+    return pool.invoke(new ParseTask(this, buffer, header));
+  }
+  
+  private static final int TASK_SIZE = 4096;
+  
+  private static class ParseTask extends RecursiveTask<LFunction> {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final LFunctionIndex index;
+    private final ByteBuffer buffer;
+    private final BHeader header;
+    
+    ParseTask(LFunctionIndex index, ByteBuffer buffer, BHeader header) {
+      this.index = index;
+      this.buffer = buffer;
+      this.header = header;
+    }
+    
+    @Override
+    protected LFunction compute() {
+      if(index.length <= TASK_SIZE) {
+        return index.parse(buffer, header);
+      }
+      ParseTask[] tasks = new ParseTask[index.children.length];
+      for(int i = 0; i < tasks.length; i++) {
+        tasks[i] = new ParseTask(index.children[i], buffer, header);
+        tasks[i].fork();
+      }
+      LFunction function = header.function.parse(index.at(buffer), header, index);
+      for(int i = tasks.length - 1; i >= 0; i--) {
+        function.functions[i] = tasks[i].join();
+      }
+      return function;
+    }
+    
+  }
+  
+  private ByteBuffer at(ByteBuffer buffer) {
+    ByteBuffer view = buffer.duplicate();
+    view.order(buffer.order());
+    view.position(offset);
+    return view;
+  }
+  
+}
@@ -7,6 +7,10 @@ public class LFunctionType extends BObjectType<LFunction> {
 
   @Override
   public LFunction parse(ByteBuffer buffer, BHeader header) {
+    return parse(buffer, header, null);
+  }
+  
+  LFunction parse(ByteBuffer buffer, BHeader header, LFunctionIndex index) {
     if(header.debug) {
       System.out.println("-- beginning to parse function");
     }
@@ -14,8 +18,8 @@ public class LFunctionType extends BObjectType<LFunction> {
       System.out.println("-- parsing name...start...end...upvalues...params...varargs...stack");
     }
     LString name = header.string.parse(buffer, header);
-    int lineBegin = header.integer.parse(buffer, header).asInt();
-    int lineEnd = header.integer.parse(buffer, header).asInt();
+    int lineBegin = header.integer.read(buffer, header);
+    int lineEnd = header.integer.read(buffer, header);
     int lenUpvalues = 0xFF & buffer.get();
     int lenParameter = 0xFF & buffer.get();
     int vararg = 0xFF & buffer.get();
@@ -23,7 +27,7 @@ public class LFunctionType extends BObjectType<LFunction> {
     if(header.debug) {
       System.out.println("-- beginning to parse bytecode list");
     }
-    int length = header.integer.parse(buffer, header).asInt();
+    int length = header.integer.read(buffer, header);
     int[] code = new int[length];
     for(int i = 0; i < length; i++) {
       code[i] = buffer.getInt();
@@ -34,28 +38,43 @@ public class LFunctionType extends BObjectType<LFunction> {
     if(header.debug) {
       System.out.println("-- beginning to parse constants list");
     }
-    BList<LObject> constants = header.constant.parseList(buffer, header);
+    LConstants constants = header.constant.parseConstants(buffer, header);
     if(header.debug) {
       System.out.println("-- beginning to parse functions list");
     }
-    BList<LFunction> functions = header.function.parseList(buffer, header);
+    LFunction[] functions = new LFunction[header.integer.read(buffer, header)];
+    if(index == null) {
+      for(int i = 0; i < functions.length; i++) {
+        functions[i] = parse(buffer, header, null);
+      }
+    } else if(functions.length != 0) {
+      LFunctionIndex last = index.children[functions.length - 1];
+      buffer.position(last.offset + last.length);
+    }
     if(header.debug) {
       System.out.println("-- beginning to parse source lines list");
     }
-    BList<BInteger> lines = header.integer.parseList(buffer, header);
+    int[] lines = header.integer.readArray(buffer, header);
     if(header.debug) {
       System.out.println("-- beginning to parse locals list");
     }
-    BList<LLocal> locals = header.local.parseList(buffer, header);
+    int locals = header.integer.read(buffer, header);
+    LString[] localNames = new LString[locals];
+    int[] localStarts = new int[locals];
+    int[] localEnds = new int[locals];
+    for(int i = 0; i < locals; i++) {
+      localNames[i] = header.string.parse(buffer, header);
+      localStarts[i] = header.integer.read(buffer, header);
+      localEnds[i] = header.integer.read(buffer, header);
+    }
     if(header.debug) {
       System.out.println("-- beginning to parse upvalues list");
     }
-    BList<LString> upvalues = header.string.parseList(buffer, header);
-    String[] ups = new String[upvalues.length.asInt()];
-    for(int i = 0; i < ups.length; i++) {
-      ups[i] = upvalues.get(i).deref();
+    String[] upvalues = new String[header.integer.read(buffer, header)];
+    for(int i = 0; i < upvalues.length; i++) {
+      upvalues[i] = header.string.parse(buffer, header).deref();
     }
-    return new LFunction(code, locals.asArray(new LLocal[locals.length.asInt()]), constants.asArray(new LObject[constants.length.asInt()]), ups, functions.asArray(new LFunction[functions.length.asInt()]), maximumStackSize, lenUpvalues, lenParameter, vararg);
+    return new LFunction(code, lines, localNames, localStarts, localEnds, constants, upvalues, functions, maximumStackSize, lenUpvalues, lenParameter, vararg);
   }
   
 }
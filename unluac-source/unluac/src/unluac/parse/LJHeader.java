@@ -0,0 +1,99 @@
+package unluac.parse;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LJHeader {
+
+  private static final byte[] signature = {
+    0x1B, 0x4C, 0x4A,
+  };
+
+  private static final int FLAG_BE = 0x01;
+  private static final int FLAG_STRIP = 0x02;
+  private static final int FLAG_FR2 = 0x08;
+  private static final int FLAG_KNOWN = 0x0F;
+
+  public final int version;
+  public final int flags;
+  public final boolean stripped;
+
+  public final String name;
+
+  public static boolean isLuaJIT(ByteBuffer buffer) {
+    if(buffer.remaining() < signature.length) {
+      return false;
+    }
+    int position = buffer.position();
+    for(int i = 0; i < signature.length; i++) {
+      if(buffer.get(position + i) != signature[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public LJHeader(ByteBuffer buffer) {
+    for(int i = 0; i < signature.length; i++) {
+      if(buffer.get() != signature[i]) {
+        throw new IllegalStateException("Not a LuaJIT bytecode file");
+      }
+    }
+    version = 0xFF & buffer.get();
+    if(version != 1 && version != 2) {
+      throw new IllegalStateException("Unsupported LuaJIT bytecode version " + version);
+    }
+    flags = ULEB128.read(buffer);
+    if((flags & ~FLAG_KNOWN) != 0) {
+      throw new IllegalStateException("Unknown LuaJIT bytecode flags " + Integer.toHexString(flags));
+    }
+    if((flags & FLAG_FR2) != 0) {
+      throw new IllegalStateException("Unsupported LuaJIT bytecode: two-slot frames (GC64)");
+    }
+    buffer.order((flags & FLAG_BE) != 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+    stripped = (flags & FLAG_STRIP) != 0;
+    if(stripped) {
+      name = null;
+    } else {
+      byte[] bytes = new byte[ULEB128.read(buffer)];
+      buffer.get(bytes);
+      name = new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+  }
+
+  public LJPrototype parse(ByteBuffer buffer) {
+    List<LJPrototype> parsed = new ArrayList<LJPrototype>();
+    while(true) {
+      int length = ULEB128.read(buffer);
+      if(length == 0) {
+        break;
+      }
+      int end = buffer.position() + length;
+      parsed.add(LJPrototype.parse(buffer, this, parsed));
+      if(buffer.position() != end) {
+        throw new IllegalStateException("Prototype length mismatch at " + buffer.position());
+      }
+    }
+    if(parsed.size() != 1) {
+      throw new IllegalStateException("Expected one main prototype, found " + parsed.size());
+    }
+    return parsed.get(0);
+  }
+
+  public void skip(ByteBuffer buffer) {
+    while(true) {
+      int length = ULEB128.read(buffer);
+      if(length == 0) {
+        break;
+      }
+      if(length < 0 || length > buffer.remaining()) {
+        throw new IllegalStateException("Truncated prototype at " + buffer.position());
+      }
+      buffer.position(buffer.position() + length);
+    }
+  }
+
+}
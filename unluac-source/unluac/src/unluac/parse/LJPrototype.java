@@ -0,0 +1,310 @@
+package unluac.parse;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+public class LJPrototype extends BObject {
+
+  public static final int ISLT = 0;
+  public static final int ISGE = 1;
+  public static final int ISLE = 2;
+  public static final int ISGT = 3;
+  public static final int ISEQV = 4;
+  public static final int ISNEV = 5;
+  public static final int ISEQS = 6;
+  public static final int ISNES = 7;
+  public static final int ISEQN = 8;
+  public static final int ISNEN = 9;
+  public static final int ISEQP = 10;
+  public static final int ISNEP = 11;
+  public static final int ISTC = 12;
+  public static final int ISFC = 13;
+  public static final int IST = 14;
+  public static final int ISF = 15;
+  public static final int MOV = 16;
+  public static final int NOT = 17;
+  public static final int UNM = 18;
+  public static final int LEN = 19;
+  public static final int ADDVN = 20;
+  public static final int SUBVN = 21;
+  public static final int MULVN = 22;
+  public static final int DIVVN = 23;
+  public static final int MODVN = 24;
+  public static final int ADDNV = 25;
+  public static final int SUBNV = 26;
+  public static final int MULNV = 27;
+  public static final int DIVNV = 28;
+  public static final int MODNV = 29;
+  public static final int ADDVV = 30;
+  public static final int SUBVV = 31;
+  public static final int MULVV = 32;
+  public static final int DIVVV = 33;
+  public static final int MODVV = 34;
+  public static final int POW = 35;
+  public static final int CAT = 36;
+  public static final int KSTR = 37;
+  public static final int KCDATA = 38;
+  public static final int KSHORT = 39;
+  public static final int KNUM = 40;
+  public static final int KPRI = 41;
+  public static final int KNIL = 42;
+  public static final int UGET = 43;
+  public static final int USETV = 44;
+  public static final int USETS = 45;
+  public static final int USETN = 46;
+  public static final int USETP = 47;
+  public static final int UCLO = 48;
+  public static final int FNEW = 49;
+  public static final int TNEW = 50;
+  public static final int TDUP = 51;
+  public static final int GGET = 52;
+  public static final int GSET = 53;
+  public static final int TGETV = 54;
+  public static final int TGETS = 55;
+  public static final int TGETB = 56;
+  public static final int TSETV = 57;
+  public static final int TSETS = 58;
+  public static final int TSETB = 59;
+  public static final int TSETM = 60;
+  public static final int CALLM = 61;
+  public static final int CALL = 62;
+  public static final int CALLMT = 63;
+  public static final int CALLT = 64;
+  public static final int ITERC = 65;
+  public static final int ITERN = 66;
+  public static final int VARG = 67;
+  public static final int ISNEXT = 68;
+  public static final int RETM = 69;
+  public static final int RET = 70;
+  public static final int RET0 = 71;
+  public static final int RET1 = 72;
+  public static final int FORI = 73;
+  public static final int JFORI = 74;
+  public static final int FORL = 75;
+  public static final int IFORL = 76;
+  public static final int JFORL = 77;
+  public static final int ITERL = 78;
+  public static final int IITERL = 79;
+  public static final int JITERL = 80;
+  public static final int LOOP = 81;
+  public static final int ILOOP = 82;
+  public static final int JLOOP = 83;
+  public static final int JMP = 84;
+
+  /* Only in version 2 dumps */
+  public static final int ISTYPE = 128;
+  public static final int ISNUM = 129;
+  public static final int TGETR = 130;
+  public static final int TSETR = 131;
+
+  public static final int PROTO_VARARG = 0x02;
+
+  private static final int UV_LOCAL = 0x8000;
+
+  private static final int KGC_CHILD = 0;
+  private static final int KGC_TAB = 1;
+  private static final int KGC_I64 = 2;
+  private static final int KGC_U64 = 3;
+  private static final int KGC_COMPLEX = 4;
+  private static final int KGC_STR = 5;
+
+  private static final int KTAB_NIL = 0;
+  private static final int KTAB_FALSE = 1;
+  private static final int KTAB_TRUE = 2;
+  private static final int KTAB_INT = 3;
+  private static final int KTAB_NUM = 4;
+  private static final int KTAB_STR = 5;
+
+  public final int flags;
+  public final int numParams;
+  public final int frameSize;
+  public final int[] code;
+
+  public final int[] upvalues;
+  public final BObject[] gc;
+  public final double[] numbers;
+
+  private LJPrototype(int flags, int numParams, int frameSize, int[] code, int[] upvalues, BObject[] gc, double[] numbers) {
+    this.flags = flags;
+    this.numParams = numParams;
+    this.frameSize = frameSize;
+    this.code = code;
+    this.upvalues = upvalues;
+    this.gc = gc;
+    this.numbers = numbers;
+  }
+
+  public static int op(int codepoint) {
+    return codepoint & 0xFF;
+  }
+
+  public static int A(int codepoint) {
+    return (codepoint >> 8) & 0xFF;
+  }
+
+  public static int C(int codepoint) {
+    return (codepoint >> 16) & 0xFF;
+  }
+
+  public static int B(int codepoint) {
+    return codepoint >>> 24;
+  }
+
+  public static int D(int codepoint) {
+    return codepoint >>> 16;
+  }
+
+  public static int target(int codepoint, int pc) {
+    return pc + 1 + D(codepoint) - 0x8000;
+  }
+
+  public static boolean isLocal(int upvalue) {
+    return (upvalue & UV_LOCAL) != 0;
+  }
+
+  public static int index(int upvalue) {
+    return upvalue & 0x3FFF;
+  }
+
+  public boolean isVararg() {
+    return (flags & PROTO_VARARG) != 0;
+  }
+
+  static LJPrototype parse(ByteBuffer buffer, LJHeader header, List<LJPrototype> parsed) {
+    int flags = 0xFF & buffer.get();
+    int numParams = 0xFF & buffer.get();
+    int frameSize = 0xFF & buffer.get();
+    int numUpvalues = 0xFF & buffer.get();
+    int numGC = ULEB128.read(buffer);
+    int numNumbers = ULEB128.read(buffer);
+    int numCode = ULEB128.read(buffer);
+    int debugSize = 0;
+    if(!header.stripped) {
+      debugSize = ULEB128.read(buffer);
+      if(debugSize != 0) {
+        /* first line, number of lines */
+        ULEB128.skip(buffer);
+        ULEB128.skip(buffer);
+      }
+    }
+    int[] code = new int[numCode];
+    buffer.asIntBuffer().get(code);
+    buffer.position(buffer.position() + 4 * numCode);
+    if(header.version == 2) {
+      for(int pc = 0; pc < numCode; pc++) {
+        code[pc] = (code[pc] & ~0xFF) | renumber(op(code[pc]));
+      }
+    }
+    int[] upvalues = new int[numUpvalues];
+    for(int i = 0; i < numUpvalues; i++) {
+      upvalues[i] = 0xFFFF & buffer.getShort();
+    }
+    BObject[] gc = new BObject[numGC];
+    for(int i = 0; i < numGC; i++) {
+      int type = ULEB128.read(buffer);
+      BObject constant;
+      if(type >= KGC_STR) {
+        constant = string(buffer, type - KGC_STR);
+      } else if(type == KGC_CHILD) {
+        if(parsed.isEmpty()) {
+          throw new IllegalStateException("Missing nested prototype at " + buffer.position());
+        }
+        constant = parsed.remove(parsed.size() - 1);
+      } else if(type == KGC_TAB) {
+        constant = table(buffer);
+      } else if(type == KGC_I64 || type == KGC_U64) {
+        skip(buffer, 2);
+        constant = null;
+      } else if(type == KGC_COMPLEX) {
+        skip(buffer, 4);
+        constant = null;
+      } else {
+        throw new IllegalStateException("Illegal constant type " + type + " at " + buffer.position());
+      }
+      /* Dumped last to first */
+      gc[numGC - 1 - i] = constant;
+    }
+    double[] numbers = new double[numNumbers];
+    for(int i = 0; i < numNumbers; i++) {
+      long lo = ULEB128.read33(buffer);
+      if((lo >>> 32) != 0) {
+        long hi = 0xFFFFFFFFL & ULEB128.read(buffer);
+        numbers[i] = Double.longBitsToDouble(hi << 32 | (lo & 0xFFFFFFFFL));
+      } else {
+        numbers[i] = (int) lo;
+      }
+    }
+    buffer.position(buffer.position() + debugSize);
+    return new LJPrototype(flags, numParams, frameSize, code, upvalues, gc, numbers);
+  }
+
+  private static int renumber(int op) {
+    if(op < 16) {
+      return op;
+    } else if(op == 16) {
+      return ISTYPE;
+    } else if(op == 17) {
+      return ISNUM;
+    } else if(op <= 58) {
+      return op - 2;
+    } else if(op == 59) {
+      return TGETR;
+    } else if(op <= 63) {
+      return op - 3;
+    } else if(op == 64) {
+      return TSETR;
+    } else {
+      return op - 4;
+    }
+  }
+
+  private static void skip(ByteBuffer buffer, int count) {
+    for(int i = 0; i < count; i++) {
+      ULEB128.skip(buffer);
+    }
+  }
+
+  private static LString string(ByteBuffer buffer, int length) {
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new LString(new BSizeT(length), bytes);
+  }
+
+  private static LJTable table(ByteBuffer buffer) {
+    int numArray = ULEB128.read(buffer);
+    int numHash = ULEB128.read(buffer);
+    LObject[] array = new LObject[numArray];
+    for(int i = 0; i < numArray; i++) {
+      array[i] = tableConstant(buffer);
+    }
+    LObject[] keys = new LObject[numHash];
+    LObject[] values = new LObject[numHash];
+    for(int i = 0; i < numHash; i++) {
+      keys[i] = tableConstant(buffer);
+      values[i] = tableConstant(buffer);
+    }
+    return new LJTable(array, keys, values);
+  }
+
+  private static LObject tableConstant(ByteBuffer buffer) {
+    int type = ULEB128.read(buffer);
+    switch(type) {
+      case KTAB_NIL:
+        return LNil.NIL;
+      case KTAB_FALSE:
+        return LBoolean.LFALSE;
+      case KTAB_TRUE:
+        return LBoolean.LTRUE;
+      case KTAB_INT:
+        return new LNumber(ULEB128.read(buffer));
+      case KTAB_NUM: {
+        long lo = 0xFFFFFFFFL & ULEB128.read(buffer);
+        long hi = 0xFFFFFFFFL & ULEB128.read(buffer);
+        return new LNumber(Double.longBitsToDouble(hi << 32 | lo));
+      }
+      default:
+        return string(buffer, type - KTAB_STR);
+    }
+  }
+
+}
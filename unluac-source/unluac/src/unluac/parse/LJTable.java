@@ -0,0 +1,15 @@
+package unluac.parse;
+
+public class LJTable extends BObject {
+
+  public final LObject[] array;
+  public final LObject[] keys;
+  public final LObject[] values;
+
+  public LJTable(LObject[] array, LObject[] keys, LObject[] values) {
+    this.array = array;
+    this.keys = keys;
+    this.values = values;
+  }
+
+}
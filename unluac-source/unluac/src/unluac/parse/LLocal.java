@@ -11,9 +11,13 @@ public class LLocal extends BObject {
   public boolean forLoop = false;
   
   public LLocal(LString name, BInteger start, BInteger end) {
+    this(name, start.asInt(), end.asInt());
+  }
+  
+  public LLocal(LString name, int start, int end) {
     this.name = name;
-    this.start = start.asInt();
-    this.end = end.asInt();
+    this.start = start;
+    this.end = end;
   }
   
   public String toString() {
@@ -2,16 +2,70 @@ package unluac.parse;
 
 import java.nio.ByteBuffer;
 
+abstract public class LNumberType extends BObjectType<LNumber> {
 
-public class LNumberType extends BObjectType<LNumber> {
-
+  public static LNumberType create(int size, boolean integral) {
+    if(integral) {
+      switch(size) {
+        case 4:
+          return new LNumberType(size) {
+            
+            @Override
+            public double read(ByteBuffer buffer, BHeader header) {
+              return buffer.getInt();
+            }
+            
+          };
+        case 8:
+          return new LNumberType(size) {
+            
+            @Override
+            public double read(ByteBuffer buffer, BHeader header) {
+              return buffer.getLong();
+            }
+            
+          };
+      }
+    } else {
+      switch(size) {
+        case 4:
+          return new LNumberType(size) {
+            
+            @Override
+            public double read(ByteBuffer buffer, BHeader header) {
+              return buffer.getFloat();
+            }
+            
+          };
+        case 8:
+          return new LNumberType(size) {
+            
+            @Override
+            public double read(ByteBuffer buffer, BHeader header) {
+              return buffer.getDouble();
+            }
+            
+          };
+      }
+    }
+    throw new IllegalStateException("Unsupported number format: size " + size + (integral ? ", integral" : ""));
+  }
+  
+  public final int size;
+  
+  private LNumberType(int size) {
+    this.size = size;
+  }
+  
   @Override
   public LNumber parse(ByteBuffer buffer, BHeader header) {
-    LNumber value = new LNumber(buffer.getDouble());
+    LNumber value = new LNumber(read(buffer, header));
     if(header.debug) {
       System.out.println("-- parsed <number> " + value);
     }
     return value;
   }
+  
+  abstract public double read(ByteBuffer buffer, BHeader header);
 
 }
@@ -1,33 +1,46 @@
 package unluac.parse;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 
 public class LString extends LObject {
 
   public final BSizeT size;
-  public final String value;
+  
+  public final byte[] bytes;
   
   public LString(BSizeT size, String value) {    
+    this(size, (value.length() == 0 ? "" : value.substring(0, value.length() - 1)).getBytes(StandardCharsets.ISO_8859_1));
+  }
+  
+  public LString(BSizeT size, byte[] bytes) {
     this.size = size;
-    this.value = value.length() == 0 ? "" : value.substring(0, value.length() - 1);
+    this.bytes = bytes;
   }
   
   @Override
   public String deref() {
-    return value;
+    return new String(bytes, StandardCharsets.ISO_8859_1);
   }
   
   @Override
   public String toString() {
-    return "\"" + value + "\"";
+    return "\"" + deref() + "\"";
   }
   
   @Override
   public boolean equals(Object o) {
     if(o instanceof LString) {
       LString os = (LString) o;
-      return os.value.equals(value);
+      return Arrays.equals(os.bytes, bytes);
     }
     return false;
   }
   
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(bytes);
+  }
+  
 }
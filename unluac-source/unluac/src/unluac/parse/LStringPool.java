@@ -0,0 +1,95 @@
+package unluac.parse;
+
+import java.nio.ByteBuffer;
+
+public class LStringPool {
+
+  private static final int SEGMENTS = 16;
+  
+  private static class Segment {
+    
+    private LString[] table = new LString[64];
+    private int[] hashes = new int[64];
+    private int count = 0;
+    
+    synchronized LString intern(ByteBuffer buffer, int total, int offset, int length, int hash) {
+      int mask = table.length - 1;
+      int slot = hash & mask;
+      LString string;
+      while((string = table[slot]) != null) {
+        if(hashes[slot] == hash && matches(string.bytes, buffer, offset, length)) {
+          return string;
+        }
+        slot = (slot + 1) & mask;
+      }
+      /* The buffer is still positioned at the string */
+      byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      string = new LString(new BSizeT(total), bytes);
+      table[slot] = string;
+      hashes[slot] = hash;
+      if(++count * 2 > table.length) {
+        grow();
+      }
+      return string;
+    }
+    
+    private void grow() {
+      LString[] oldTable = table;
+      int[] oldHashes = hashes;
+      table = new LString[oldTable.length * 2];
+      hashes = new int[oldTable.length * 2];
+      int mask = table.length - 1;
+      for(int i = 0; i < oldTable.length; i++) {
+        if(oldTable[i] != null) {
+          int slot = oldHashes[i] & mask;
+          while(table[slot] != null) {
+            slot = (slot + 1) & mask;
+          }
+          table[slot] = oldTable[i];
+          hashes[slot] = oldHashes[i];
+        }
+      }
+    }
+    
+  }
+  
+  private final Segment[] segments;
+  
+  public LStringPool() {
+    segments = new Segment[SEGMENTS];
+    for(int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment();
+    }
+  }
+  
+  public LString intern(ByteBuffer buffer, int total) {
+    int length = total == 0 ? 0 : total - 1;
+    int offset = buffer.position();
+    if(total < 0 || total > buffer.remaining()) {
+      throw new IllegalStateException("Truncated string at " + offset);
+    }
+    int hash = 1;
+    for(int i = 0; i < length; i++) {
+      hash = 31 * hash + buffer.get(offset + i);
+    }
+    hash ^= hash >>> 16;
+    /* The segment takes the top bits, the table within it the bottom */
+    LString string = segments[hash >>> 28].intern(buffer, total, offset, length, hash);
+    buffer.position(offset + total);
+    return string;
+  }
+  
+  private static boolean matches(byte[] bytes, ByteBuffer buffer, int offset, int length) {
+    if(bytes.length != length) {
+      return false;
+    }
+    for(int i = 0; i < length; i++) {
+      if(bytes[i] != buffer.get(offset + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+}
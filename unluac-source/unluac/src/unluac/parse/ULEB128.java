@@ -0,0 +1,51 @@
+package unluac.parse;
+
+import java.nio.ByteBuffer;
+
+public class ULEB128 {
+
+  public static int read(ByteBuffer buffer) {
+    int value = 0xFF & buffer.get();
+    if(value >= 0x80) {
+      value &= 0x7F;
+      int shift = 7;
+      int b;
+      do {
+        b = 0xFF & buffer.get();
+        if(shift >= 32) {
+          throw new IllegalStateException("ULEB128 value too large at " + (buffer.position() - 1));
+        }
+        value |= (b & 0x7F) << shift;
+        shift += 7;
+      } while(b >= 0x80);
+    }
+    return value;
+  }
+
+  /* The flag bit is returned in the top half */
+  public static long read33(ByteBuffer buffer) {
+    int first = 0xFF & buffer.get();
+    long value = first >>> 1;
+    if(first >= 0x80) {
+      value &= 0x3F;
+      int shift = 6;
+      int b;
+      do {
+        b = 0xFF & buffer.get();
+        if(shift >= 32) {
+          throw new IllegalStateException("ULEB128 value too large at " + (buffer.position() - 1));
+        }
+        value |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while(b >= 0x80);
+    }
+    return ((long) (first & 1) << 32) | (value & 0xFFFFFFFFL);
+  }
+
+  public static void skip(ByteBuffer buffer) {
+    while((buffer.get() & 0x80) != 0) {
+
+    }
+  }
+
+}
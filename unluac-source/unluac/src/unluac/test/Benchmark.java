@@ -0,0 +1,228 @@
+package unluac.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import unluac.decompile.Decompiler;
+import unluac.decompile.Disassembler;
+import unluac.decompile.Fragment;
+import unluac.decompile.LJLowering;
+import unluac.decompile.Output;
+import unluac.decompile.OutputProvider;
+import unluac.parse.BHeader;
+import unluac.parse.LJHeader;
+import unluac.parse.LFunction;
+import unluac.util.BufferLoader;
+import unluac.util.ThreadAllocation;
+
+public class Benchmark {
+
+  private static final int PARSE = 0;
+  private static final int BRANCHES = 1;
+  private static final int SEQUENCE = 2;
+  private static final int PRINT = 3;
+  private static final int DISASSEMBLE = 4;
+
+  private static final String[] names = {
+    "parse",
+    "handleBranches",
+    "processSequence",
+    "print",
+    "disassemble",
+  };
+
+  private static final OutputProvider discard = new OutputProvider() {
+
+    @Override
+    public void print(String s) {
+
+    }
+
+    @Override
+    public void println() {
+
+    }
+
+  };
+
+  private final byte[] data;
+  private final long[] time = new long[names.length];
+  private final long[] bytes = new long[names.length];
+  private long ops;
+
+  public Benchmark(byte[] data) {
+    this.data = data;
+  }
+
+  private void reset() {
+    for(int i = 0; i < names.length; i++) {
+      time[i] = 0;
+      bytes[i] = 0;
+    }
+    ops = 0;
+  }
+
+  private void run(long nanos) {
+    long start = System.nanoTime();
+    do {
+      op();
+    } while(System.nanoTime() - start < nanos);
+  }
+
+  private void op() {
+    long t = System.nanoTime();
+    long b = ThreadAllocation.current();
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    LFunction main;
+    if(LJHeader.isLuaJIT(buffer)) {
+      main = LJLowering.lower(new LJHeader(buffer).parse(buffer));
+    } else {
+      BHeader header = new BHeader(buffer);
+      main = header.function.parse(buffer, header);
+    }
+    time[PARSE] += System.nanoTime() - t;
+    bytes[PARSE] += ThreadAllocation.current() - b;
+    decompile(main, new Output(discard), new HashMap<LFunction, Fragment>());
+    t = System.nanoTime();
+    b = ThreadAllocation.current();
+    Disassembler.disassembleAll(main, "main", new Output(discard));
+    record(DISASSEMBLE, t, b);
+    ops++;
+  }
+
+  void decompile(LFunction function, Output out, Map<LFunction, Fragment> fragments) {
+    for(LFunction child : function.functions) {
+      Fragment fragment = new Fragment();
+      decompile(child, fragment, fragments);
+      fragments.put(child, fragment);
+    }
+    long t = System.nanoTime();
+    long b = ThreadAllocation.current();
+    Decompiler d = new Decompiler(function, out, fragments);
+    d.handleBranches();
+    t = record(BRANCHES, t, b);
+    b = ThreadAllocation.current();
+    d.processSequence();
+    t = record(SEQUENCE, t, b);
+    b = ThreadAllocation.current();
+    d.print();
+    record(PRINT, t, b);
+  }
+
+  private long record(int phase, long t, long b) {
+    long now = System.nanoTime();
+    time[phase] += now - t;
+    bytes[phase] += ThreadAllocation.current() - b;
+    return now;
+  }
+
+  private void report(String name) {
+    System.out.println(name);
+    for(int i = 0; i < names.length; i++) {
+      report(names[i], time[i], bytes[i]);
+    }
+    report("decompile", time[BRANCHES] + time[SEQUENCE] + time[PRINT], bytes[BRANCHES] + bytes[SEQUENCE] + bytes[PRINT]);
+  }
+
+  private void report(String name, long nanos, long allocated) {
+    double seconds = nanos / 1e9;
+    System.out.printf("  %-16s %12.1f ops/s", name, ops / seconds);
+    if(ThreadAllocation.isSupported()) {
+      System.out.printf(" %10.1f MB/s %12d B/op", allocated / seconds / (1024 * 1024), allocated / ops);
+    }
+    System.out.println();
+  }
+
+  public static void main(String[] args) throws IOException {
+    double warmup = 2.0;
+    double measure = 5.0;
+    List<File> files = new ArrayList<File>();
+    for(int i = 0; i < args.length; i++) {
+      if(args[i].equals("-w") || args[i].equals("-m")) {
+        if(i + 1 == args.length) {
+          usage("missing value for " + args[i]);
+        }
+        double seconds = -1.0;
+        try {
+          seconds = Double.parseDouble(args[i + 1]);
+        } catch(NumberFormatException e) {
+        }
+        if(!(seconds >= 0.0)) {
+          usage("invalid value for " + args[i] + ": " + args[i + 1]);
+        }
+        if(args[i].equals("-w")) {
+          warmup = seconds;
+        } else {
+          measure = seconds;
+        }
+        i++;
+      } else if(args[i].startsWith("-")) {
+        usage("unrecognized option: " + args[i]);
+      } else {
+        collect(new File(args[i]), files);
+      }
+    }
+    if(files.isEmpty()) {
+      usage("no input files");
+    }
+    File compiled = File.createTempFile("unluac", ".out");
+    compiled.deleteOnExit();
+    for(File file : files) {
+      byte[] data;
+      try {
+        if(file.getName().endsWith(".lua")) {
+          LuaC.compile(file.getPath(), compiled.getPath());
+          data = load(compiled);
+        } else {
+          data = load(file);
+        }
+      } catch(IOException e) {
+        System.err.println("skipped " + file.getPath() + ": " + e.getMessage());
+        continue;
+      }
+      Benchmark benchmark = new Benchmark(data);
+      benchmark.run((long) (warmup * 1e9));
+      benchmark.reset();
+      benchmark.run((long) (measure * 1e9));
+      benchmark.report(file.getPath());
+    }
+  }
+
+  private static void usage(String message) {
+    System.err.println("error: " + message);
+    System.err.println("usage: java unluac.test.Benchmark [-w <seconds>] [-m <seconds>] <file|dir>...");
+    System.exit(1);
+  }
+
+  private static void collect(File file, List<File> files) {
+    if(file.isDirectory()) {
+      File[] children = file.listFiles();
+      if(children != null) {
+        Arrays.sort(children);
+        for(File child : children) {
+          if(child.isDirectory() || child.getName().endsWith(".lua") || child.getName().endsWith(".luac") || child.getName().endsWith(".ljbc")) {
+            collect(child, files);
+          }
+        }
+      }
+    } else {
+      files.add(file);
+    }
+  }
+
+  private static byte[] load(File file) throws IOException {
+    ByteBuffer buffer = BufferLoader.load(file);
+    byte[] data = new byte[buffer.remaining()];
+    buffer.get(data);
+    return data;
+  }
+
+}
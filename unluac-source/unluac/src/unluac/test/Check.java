@@ -0,0 +1,107 @@
+package unluac.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import unluac.decompile.Decompiler;
+import unluac.decompile.Output;
+import unluac.decompile.OutputProvider;
+import unluac.parse.BHeader;
+import unluac.parse.LFunction;
+import unluac.util.BufferLoader;
+
+public class Check {
+
+  public static final String CHUNKS = "test/chunks/";
+  public static final String EXPECTED = "test/expected/";
+  
+  private int failed = 0;
+  
+  public void check(String name, boolean passed) {
+    if(passed) {
+      System.out.println("passed test: " + name);
+    } else {
+      System.out.println("failed test: " + name);
+      failed++;
+    }
+  }
+  
+  public int finish() {
+    if(failed == 0) {
+      System.out.println("passed all tests");
+    } else {
+      System.out.println("failed " + failed + " test(s)");
+    }
+    return failed;
+  }
+  
+  public static File file(String name) {
+    return new File(CHUNKS + name + ".luac");
+  }
+  
+  public static byte[] bytes(String name) throws IOException {
+    return Files.readAllBytes(file(name).toPath());
+  }
+  
+  public static String expected(String name) throws IOException {
+    String expected = new String(Files.readAllBytes(new File(EXPECTED + name + ".lua").toPath()), StandardCharsets.ISO_8859_1);
+    return expected.replace("\r\n", "\n");
+  }
+  
+  public static ByteBuffer chunk(String name) throws IOException {
+    return BufferLoader.load(file(name));
+  }
+  
+  public static LFunction parse(ByteBuffer buffer) {
+    BHeader header = new BHeader(buffer);
+    return header.function.parse(buffer, header);
+  }
+  
+  public static String decompile(LFunction function) {
+    StringBuilder s = new StringBuilder();
+    new Decompiler(function, output(s)).decompile();
+    return s.toString();
+  }
+  
+  public static Output output(final StringBuilder s) {
+    return new Output(new OutputProvider() {
+
+      @Override
+      public void print(String string) {
+        s.append(string);
+      }
+
+      @Override
+      public void println() {
+        s.append('\n');
+      }
+      
+    });
+  }
+  
+  public static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int count;
+    while((count = in.read(buffer)) != -1) {
+      bytes.write(buffer, 0, count);
+    }
+    return bytes.toByteArray();
+  }
+  
+  public static void delete(File file) {
+    File[] files = file.listFiles();
+    if(files != null) {
+      for(File child : files) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+  
+}
@@ -1,15 +1,13 @@
 package unluac.test;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.channels.FileChannel;
 
 import unluac.parse.BHeader;
 import unluac.parse.LFunction;
 import unluac.parse.LLocal;
 import unluac.parse.LObject;
+import unluac.util.BufferLoader;
 
 public class Compare {
 
@@ -44,19 +42,21 @@ public class Compare {
         return false;
       }
     }
-    if(f1.constants.length != f2.constants.length) {
+    if(f1.constants.length() != f2.constants.length()) {
       return false;
     }
-    for(int i = 0; i < f1.constants.length; i++) {
-      if(!object_equal(f1.constants[i], f2.constants[i])) {
+    for(int i = 0; i < f1.constants.length(); i++) {
+      if(!object_equal(f1.constants.get(i), f2.constants.get(i))) {
         return false;
       }
     }
-    if(f1.locals.length != f2.locals.length) {
+    LLocal[] locals1 = f1.getLocals();
+    LLocal[] locals2 = f2.getLocals();
+    if(locals1.length != locals2.length) {
       return false;
     }
-    for(int i = 0; i < f1.locals.length; i++) {
-      if(!local_equal(f1.locals[i], f2.locals[i])) {
+    for(int i = 0; i < locals1.length; i++) {
+      if(!local_equal(locals1[i], locals2[i])) {
         return false;
       }
     }
@@ -98,13 +98,7 @@ public class Compare {
   
   public static LFunction file_to_function(String filename) {
     try {
-      RandomAccessFile file = new RandomAccessFile(filename, "r");
-      ByteBuffer buffer = ByteBuffer.allocate((int) file.length());
-      buffer.order(ByteOrder.LITTLE_ENDIAN);
-      int len = (int) file.length();
-      FileChannel in = file.getChannel();
-      while(len > 0) len -= in.read(buffer);
-      buffer.rewind();
+      ByteBuffer buffer = BufferLoader.load(filename);
       BHeader header = new BHeader(buffer);
       return header.function.parse(buffer, header);
     } catch(IOException e) {
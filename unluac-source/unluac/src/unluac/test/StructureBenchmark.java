@@ -0,0 +1,98 @@
+package unluac.test;
+
+import unluac.decompile.Decompiler;
+import unluac.decompile.OutputProvider;
+import unluac.parse.BSizeT;
+import unluac.parse.LFunction;
+import unluac.parse.LLocal;
+import unluac.parse.LNumber;
+import unluac.parse.LObject;
+import unluac.parse.LString;
+
+public class StructureBenchmark {
+
+  private static final int GETGLOBAL = 5;
+  private static final int SETGLOBAL = 7;
+  private static final int LOADK = 1;
+  private static final int TEST = 26;
+  private static final int JMP = 22;
+  private static final int RETURN = 30;
+
+  private static int iABC(int op, int A, int B, int C) {
+    return op | (A << 6) | (C << 14) | (B << 23);
+  }
+
+  private static int iABx(int op, int A, int Bx) {
+    return op | (A << 6) | (Bx << 14);
+  }
+
+  private static int iAsBx(int op, int A, int sBx) {
+    return iABx(op, A, sBx + 131071);
+  }
+
+  public static LFunction generate(int blocks) {
+    int[] code = new int[blocks * 6 + 1];
+    int pc = 0;
+    for(int i = 0; i < blocks; i++) {
+      int loop = pc;
+      code[pc++] = iABx(GETGLOBAL, 0, 0);
+      code[pc++] = iABC(TEST, 0, 0, 0);
+      if(i % 2 == 0) {
+        code[pc++] = iAsBx(JMP, 0, 2);
+        code[pc++] = iABx(LOADK, 0, 1);
+        code[pc++] = iABx(SETGLOBAL, 0, 0);
+      } else {
+        code[pc++] = iAsBx(JMP, 0, 3);
+        code[pc++] = iABx(LOADK, 0, 1);
+        code[pc++] = iABx(SETGLOBAL, 0, 0);
+        code[pc] = iAsBx(JMP, 0, loop - (pc + 1));
+        pc++;
+      }
+    }
+    code[pc++] = iABC(RETURN, 0, 1, 0);
+    int[] trimmed = new int[pc];
+    System.arraycopy(code, 0, trimmed, 0, pc);
+    LObject[] constants = {
+      new LString(new BSizeT(2), "g\0"),
+      new LNumber(1.0),
+    };
+    return new LFunction(trimmed, new LLocal[0], constants, new String[0], new LFunction[0], 2, 0, 0, 2);
+  }
+
+  private static final OutputProvider discard = new OutputProvider() {
+
+    @Override
+    public void print(String s) {
+
+    }
+
+    @Override
+    public void println() {
+
+    }
+
+  };
+
+  public static void main(String[] args) {
+    int[] sizes = {1000, 2000, 4000, 8000, 16000};
+    for(int size : sizes) {
+      /* warm up */
+      run(generate(size), 3);
+    }
+    for(int size : sizes) {
+      LFunction function = generate(size);
+      int iterations = Math.max(1, 64000 / size);
+      double ms = run(function, iterations) / 1e6 / iterations;
+      System.out.printf("%6d blocks: %9.3f ms/op  %7.3f us/block%n", size, ms, ms * 1000.0 / size);
+    }
+  }
+
+  private static long run(LFunction function, int iterations) {
+    long start = System.nanoTime();
+    for(int i = 0; i < iterations; i++) {
+      new Decompiler(function, discard).decompile();
+    }
+    return System.nanoTime() - start;
+  }
+
+}
@@ -3,15 +3,13 @@ package unluac.test;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.channels.FileChannel;
 
 import unluac.decompile.Decompiler;
 import unluac.decompile.OutputProvider;
 import unluac.parse.BHeader;
 import unluac.parse.LFunction;
+import unluac.util.BufferLoader;
 
 public class Test {
   
@@ -130,20 +128,9 @@ public class Test {
   private static int line;
   
   private static boolean compare(String bin, String src) throws IOException {
-    RandomAccessFile file;
-    FileChannel in;
-    ByteBuffer buffer;
-    int length;
-    file = new RandomAccessFile(bin, "r");
-    in = file.getChannel();
-    buffer = ByteBuffer.allocate((int) file.length());
-    buffer.order(ByteOrder.LITTLE_ENDIAN);
-    length = (int) file.length();    
-    while(length > 0) length -= in.read(buffer);
-    buffer.rewind();
+    ByteBuffer buffer = BufferLoader.load(bin);
     BHeader header = new BHeader(buffer);
     LFunction lmain = header.function.parse(buffer, header);
-    file.close();
     TestOutput out = new TestOutput(new File(src));
     Decompiler d = new Decompiler(lmain, out);
     d.decompile();
@@ -0,0 +1,37 @@
+package unluac.test;
+
+import java.io.IOException;
+
+public class TestAll {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    TestBufferLoader.run(check);
+    TestBatch.run(check);
+    TestParallel.run(check);
+    TestRegisters.run(check);
+    TestBlockIndex.run(check);
+    TestCode.run(check);
+    TestBenchmark.run(check);
+    TestListener.run(check);
+    TestChannelOutput.run(check);
+    TestStrings.run(check);
+    TestFunctionIndex.run(check);
+    TestParallelParse.run(check);
+    TestConstants.run(check);
+    TestHeaders.run(check);
+    TestLuaJIT.run(check);
+    TestExtractor.run(check);
+    TestFingerprint.run(check);
+    TestDiskCache.run(check);
+    TestServer.run(check);
+    TestBudget.run(check);
+    TestDisassembler.run(check);
+    TestAnalysis.run(check);
+    TestIndex.run(check);
+    TestStreaming.run(check);
+    TestStraightLine.run(check);
+    System.exit(check.finish());
+  }
+  
+}
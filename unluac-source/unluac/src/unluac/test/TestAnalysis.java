@@ -0,0 +1,103 @@
+package unluac.test;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import unluac.Analysis;
+import unluac.decompile.Decompiler;
+import unluac.decompile.Disassembler;
+import unluac.parse.BSizeT;
+import unluac.parse.LConstants;
+import unluac.parse.LFunction;
+import unluac.parse.LLocal;
+import unluac.parse.LObject;
+import unluac.parse.LString;
+
+public class TestAnalysis {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    String json = Analysis.analyze(Check.chunk("wax"), "wax.luac");
+    check.check("analysis totals", json.startsWith("{\"file\":\"wax.luac\",\"format\":\"lua51\",\"functions\":172,\"instructions\":4937,"));
+    check.check("analysis globals", section(json, "globalsRead").contains("\"require\":26,") && section(json, "globalsRead").contains("\"setmetatable\":17,") && section(json, "globalsWritten").contains("\"waxClass\":1,"));
+    check.check("analysis calls", section(json, "calls").contains("\"require\":26,") && section(json, "calls").contains("\"waxClass\":2,") && section(json, "calls").contains("\"NSDate:date\":3,") && section(json, "calls").contains("\"string.format\":4,"));
+    check.check("analysis keys", section(json, "keys").contains("\"format\":14,") && section(json, "keys").contains("\"cache\":14,"));
+    LFunction function = Check.parse(Check.chunk("wax"));
+    long[] opcodes = new long[64];
+    Set<String> strings = new LinkedHashSet<String>();
+    tally(function, opcodes, strings);
+    StringBuilder histogram = new StringBuilder("\"opcodes\":{");
+    for(int op = 0; op < opcodes.length; op++) {
+      if(opcodes[op] != 0) {
+        if(histogram.charAt(histogram.length() - 1) != '{') histogram.append(',');
+        histogram.append('"').append(Disassembler.opcodeName(op)).append("\":").append(opcodes[op]);
+      }
+    }
+    check.check("analysis opcodes", json.endsWith(histogram + "}}"));
+    String list = section(json, "strings");
+    check.check("analysis strings", list.startsWith("[\"package\",\"preload\",\"wax.enums\",") && list.split("\",\"").length == strings.size());
+    /* No name is carried to the line after a LOADBOOL that skips */
+    LFunction skip = new LFunction(new int[] {
+      TestDisassembler.abx(Decompiler.GETGLOBAL, 0, 0),
+      TestDisassembler.abc(Decompiler.LOADBOOL, 1, 1, 1),
+      TestDisassembler.abc(Decompiler.LOADBOOL, 1, 0, 0),
+      TestDisassembler.abc(Decompiler.CALL, 0, 2, 1),
+      TestDisassembler.abc(Decompiler.RETURN, 0, 1, 0),
+    }, new LLocal[0], new LObject[] {TestDisassembler.string("f")}, new String[0], new LFunction[0], 2, 0, 0, 2);
+    String skipped = section(analyze(skip), "calls");
+    skip.code[1] = TestDisassembler.abc(Decompiler.LOADBOOL, 1, 1, 0);
+    check.check("analysis loadbool", skipped.equals("{}") && section(analyze(skip), "calls").equals("{\"f\":1}"));
+    /* SETGLOBAL only reads its register */
+    LFunction store = new LFunction(new int[] {
+      TestDisassembler.abx(Decompiler.GETGLOBAL, 0, 0),
+      TestDisassembler.abx(Decompiler.SETGLOBAL, 0, 1),
+      TestDisassembler.abc(Decompiler.CALL, 0, 1, 1),
+      TestDisassembler.abc(Decompiler.RETURN, 0, 1, 0),
+    }, new LLocal[0], new LObject[] {TestDisassembler.string("f"), TestDisassembler.string("g")}, new String[0], new LFunction[0], 2, 0, 0, 2);
+    check.check("analysis setglobal", section(analyze(store), "calls").equals("{\"f\":1}"));
+    /* UTF-8 text as is, other bytes as \xNN escapes */
+    LFunction text = new LFunction(new int[] {
+      TestDisassembler.abc(Decompiler.RETURN, 0, 1, 0),
+    }, new LLocal[0], new LObject[] {
+      new LString(new BSizeT(0), new byte[] {(byte) 0xc3, (byte) 0xa9}),
+      new LString(new BSizeT(0), new byte[] {'a', (byte) 0xe9, '\\'}),
+    }, new String[0], new LFunction[0], 2, 0, 0, 2);
+    check.check("analysis utf-8", section(analyze(text), "strings").equals("[\"\\u00e9\",\"a\\\\xe9\\\\\\\\\"]"));
+    check.check("analysis json", Analysis.error("\u20ac", "\u0100").equals("{\"file\":\"\\u20ac\",\"error\":\"\\u0100\"}"));
+    check.check("analysis error", Analysis.error("a\"b\\\n\u0001", null).equals("{\"file\":\"a\\\"b\\\\\\n\\u0001\",\"error\":\"unknown error\"}"));
+  }
+  
+  static String analyze(LFunction function) {
+    return Analysis.analyze(TestHeaders.dump(function, ByteOrder.LITTLE_ENDIAN, 4, 4), "test");
+  }
+  
+  /* The value of one top-level field, an object or the strings */
+  private static String section(String json, String name) {
+    int begin = json.indexOf(",\"" + name + "\":" + (name.equals("strings") ? "[" : "{")) + name.length() + 4;
+    int end = name.equals("strings") ? json.indexOf("],\"opcodes\":{", begin) : json.indexOf('}', begin);
+    return json.substring(begin, end + 1);
+  }
+  
+  private static void tally(LFunction function, long[] opcodes, Set<String> strings) {
+    for(int codepoint : function.code) {
+      opcodes[codepoint & 0x3F]++;
+    }
+    LConstants constants = function.constants;
+    for(int i = 0; i < constants.length(); i++) {
+      if(constants.type(i) == LConstants.STRING) {
+        strings.add(constants.string(i).deref());
+      }
+    }
+    for(LFunction child : function.functions) {
+      tally(child, opcodes, strings);
+    }
+  }
+  
+}
@@ -0,0 +1,74 @@
+package unluac.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import unluac.Batch;
+import unluac.Configuration;
+
+public class TestBatch {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    File directory = Files.createTempDirectory("unluac").toFile();
+    try {
+      File inputs = new File(directory, "in");
+      File outputs = new File(directory, "out");
+      byte[] wax = Check.bytes("wax");
+      write(new File(inputs, "a/wax.luac"), wax);
+      write(new File(inputs, "b/wax.luac"), wax);
+      write(new File(inputs, "b/bad.luac"), Arrays.copyOf(wax, wax.length / 2));
+      write(new File(inputs, "b/notes.txt"), "wax".getBytes(StandardCharsets.US_ASCII));
+      Configuration config = new Configuration();
+      Batch batch = new Batch(config, outputs, 2, null);
+      batch.add(inputs);
+      int failed = batch.run();
+      String expected = Check.decompile(Check.parse(Check.chunk("wax")));
+      check.check("batch", failed == 1 && expected.equals(read(new File(outputs, "a/wax.lua"))) && expected.equals(read(new File(outputs, "b/wax.lua"))));
+      check.check("batch skips others", !new File(outputs, "b/notes.txt.lua").exists() && !new File(outputs, "b/notes.lua").exists());
+      check.check("batch removes failed output", !new File(outputs, "b/bad.lua").exists());
+      /* Plain files from different directories cannot share an output */
+      Batch files = new Batch(config, outputs, 2, null);
+      files.add(new File(inputs, "a/wax.luac"));
+      files.add(new File(inputs, "b/bad.luac"));
+      files.add(new File(inputs, "b/../b/bad.luac"));
+      String collision = null;
+      try {
+        files.add(new File(inputs, "b/wax.luac"));
+      } catch(IOException e) {
+        collision = e.getMessage();
+      }
+      check.check("batch collision", collision != null && collision.endsWith(" would both be written to " + new File(outputs, "wax.lua").getPath()));
+      Batch beside = new Batch(new Configuration(), null, 2, null);
+      beside.add(new File(inputs, "a/wax.luac"));
+      beside.add(new File(inputs, "b/wax.luac"));
+      check.check("batch repeated input", files.run() == 1 && expected.equals(read(new File(outputs, "wax.lua"))));
+      check.check("batch beside inputs", beside.run() == 0 && expected.equals(read(new File(inputs, "a/wax.lua"))) && expected.equals(read(new File(inputs, "b/wax.lua"))));
+      /* Each run has its own caches */
+      check.check("batch configuration", !config.cacheReport().startsWith("fragment cache: 0 hits, 0 misses") && new Configuration().cacheReport().startsWith("fragment cache: 0 hits, 0 misses"));
+    } finally {
+      Check.delete(directory);
+    }
+  }
+  
+  static void write(File file, byte[] bytes) throws IOException {
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), bytes);
+  }
+  
+  static String read(File file) throws IOException {
+    if(!file.exists()) {
+      return null;
+    }
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+  }
+  
+}
@@ -0,0 +1,25 @@
+package unluac.test;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+import unluac.decompile.Fragment;
+import unluac.parse.LFunction;
+
+public class TestBenchmark {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  /* The phases the benchmark times, run one by one, make the whole decompile */
+  public static void run(Check check) throws IOException {
+    LFunction function = Check.parse(Check.chunk("wax"));
+    StringBuilder s = new StringBuilder();
+    new Benchmark(new byte[0]).decompile(function, Check.output(s), new HashMap<LFunction, Fragment>());
+    check.check("benchmark phases", s.toString().equals(Check.decompile(function)));
+  }
+  
+}
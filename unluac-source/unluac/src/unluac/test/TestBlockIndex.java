@@ -0,0 +1,83 @@
+package unluac.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import unluac.decompile.BlockIndex;
+import unluac.decompile.block.Block;
+import unluac.decompile.block.DoEndBlock;
+import unluac.decompile.block.OuterBlock;
+
+public class TestBlockIndex {
+
+  public static void main(String[] args) {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) {
+    Random random = new Random(5);
+    int length = 200;
+    OuterBlock outer = new OuterBlock(length);
+    BlockIndex index = new BlockIndex(outer);
+    List<Block> blocks = new ArrayList<Block>();
+    blocks.add(outer);
+    for(int i = 0; i < 300; i++) {
+      int begin = 1 + random.nextInt(length);
+      Block block = new DoEndBlock(begin, begin + 1 + random.nextInt(Math.min(20, length + 1 - begin)));
+      boolean nests = true;
+      for(Block other : blocks) {
+        boolean disjoint = block.end <= other.begin || other.end <= block.begin;
+        nests = nests && (disjoint || block.contains(other) || other.contains(block));
+      }
+      if(nests) {
+        blocks.add(block);
+        index.add(block);
+      }
+    }
+    /* The innermost block is the last one added of those containing the line */
+    boolean passed = index.isNested() && blocks.size() > 50;
+    for(int line = 0; line <= length; line++) {
+      Block enclosing = outer;
+      for(Block block : blocks) {
+        if(enclosing.contains(block) && block.contains(line)) {
+          enclosing = block;
+        }
+      }
+      Block found = index.find(line);
+      passed = passed && (found != null ? found : outer) == enclosing;
+    }
+    check.check("block index", passed);
+    /* The innermost block around the line that lasts until the end, the later of equal ones */
+    passed = true;
+    for(int line = 0; line <= length; line++) {
+      for(int end = line; end <= length; end += 7) {
+        Block scope = null;
+        for(Block block : blocks) {
+          if(block.contains(line) && block.scopeEnd() >= end && (scope == null || block.end - block.begin <= scope.end - scope.begin)) {
+            scope = block;
+          }
+        }
+        passed = passed && index.findScope(line, end) == scope;
+      }
+    }
+    check.check("block index scope", passed);
+    Block overlapped = null;
+    for(Block block : blocks) {
+      if(block != outer && block.end - block.begin >= 2 && block.end <= length) {
+        overlapped = block;
+      }
+    }
+    index.add(new DoEndBlock(overlapped.begin + 1, overlapped.end + 1));
+    boolean fallback = !index.isNested();
+    try {
+      index.find(1);
+      fallback = false;
+    } catch(IllegalStateException e) {
+    }
+    check.check("block index overlap", fallback);
+  }
+  
+}
@@ -0,0 +1,65 @@
+package unluac.test;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import unluac.decompile.Budget;
+import unluac.decompile.Decompiler;
+import unluac.parse.LFunction;
+
+public class TestBudget {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    LFunction function = TestConstants.rebuild(Check.parse(Check.chunk("wax")));
+    String path = "main";
+    LFunction leaf = function;
+    while(leaf.functions.length > 0) {
+      path += "/" + (leaf.functions.length - 1);
+      leaf = leaf.functions[leaf.functions.length - 1];
+    }
+    leaf.code[0] = Decompiler.JMP | ((131071 + 100000) << 14);
+    String sequential = decompile(check, "budget fallback", function, path, null);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      check.check("budget fallback parallel", sequential.equals(decompile(check, "budget fallback pooled", function, path, pool)));
+    } finally {
+      pool.shutdown();
+    }
+    Budget budget = new Budget(0);
+    budget.cancel();
+    Decompiler d = new Decompiler(function, Check.output(new StringBuilder()));
+    d.setBudget(budget);
+    boolean cancelled = false;
+    try {
+      d.decompile();
+    } catch(Budget.Cancelled e) {
+      cancelled = true;
+    }
+    check.check("budget cancel", cancelled && budget.failed() == 0);
+  }
+  
+  /* Only the corrupted function is disassembled */
+  private static String decompile(Check check, String name, LFunction function, String path, ForkJoinPool pool) {
+    StringBuilder s = new StringBuilder();
+    Budget budget = new Budget(0);
+    Decompiler d = new Decompiler(function, Check.output(s));
+    d.setBudget(budget);
+    if(pool != null) {
+      d.decompile(pool);
+    } else {
+      d.decompile();
+    }
+    String text = s.toString();
+    String marker = "-- " + path + ": not decompiled (";
+    int first = text.indexOf(marker);
+    check.check(name, budget.failed() == 1 && budget.exceeded() == 0 && first >= 0 && text.indexOf("not decompiled", first + marker.length()) < 0 && text.startsWith("package.preload"));
+    return text;
+  }
+  
+}
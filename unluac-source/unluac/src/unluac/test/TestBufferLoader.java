@@ -0,0 +1,45 @@
+package unluac.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import unluac.util.BufferLoader;
+
+public class TestBufferLoader {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    byte[] bytes = Check.bytes("wax");
+    ByteBuffer mapped = Check.chunk("wax");
+    check.check("mapped", mapped.isDirect() && mapped.isReadOnly() && mapped.order() == ByteOrder.LITTLE_ENDIAN && Arrays.equals(contents(mapped), bytes));
+    /* A stream that returns a few bytes at a time, as a pipe would */
+    InputStream in = new ByteArrayInputStream(bytes) {
+      
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+        return super.read(b, off, Math.min(len, 1000));
+      }
+      
+    };
+    ByteBuffer streamed = BufferLoader.stream(in);
+    check.check("streamed", Arrays.equals(contents(streamed), bytes));
+    streamed.order(ByteOrder.LITTLE_ENDIAN);
+    check.check("mapped parse", Compare.function_equal(Check.parse(mapped), Check.parse(streamed)));
+  }
+  
+  private static byte[] contents(ByteBuffer buffer) {
+    byte[] contents = new byte[buffer.remaining()];
+    buffer.duplicate().get(contents);
+    return contents;
+  }
+  
+}
@@ -0,0 +1,84 @@
+package unluac.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import unluac.decompile.ChannelOutputProvider;
+import unluac.decompile.Decompiler;
+import unluac.decompile.Output;
+
+public class TestChannelOutput {
+
+  /* Takes at most a few bytes per write, as a socket may */
+  private static class PartialChannel implements WritableByteChannel {
+    
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    
+    @Override
+    public int write(ByteBuffer src) {
+      int count = Math.min(src.remaining(), 7);
+      for(int i = 0; i < count; i++) {
+        bytes.write(src.get());
+      }
+      return count;
+    }
+    
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+    
+    @Override
+    public void close() {
+    }
+    
+  }
+  
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    String separator = System.getProperty("line.separator");
+    PartialChannel channel = new PartialChannel();
+    ChannelOutputProvider out = new ChannelOutputProvider(channel);
+    new Decompiler(Check.parse(Check.chunk("wax")), out).decompile();
+    out.close();
+    String expected = Check.decompile(Check.parse(Check.chunk("wax"))).replace("\n", separator);
+    check.check("channel output", Arrays.equals(channel.bytes.toByteArray(), encode(expected)));
+    /* Ranges across the chunk size, each char written as one byte */
+    StringBuilder s = new StringBuilder();
+    while(s.length() < 40 * 1024) {
+      s.append("x\u00e9\u00ff");
+    }
+    channel = new PartialChannel();
+    out = new ChannelOutputProvider(channel);
+    Output output = new Output(out);
+    output.print(s.toString(), 1, s.length());
+    output.println();
+    out.close();
+    check.check("channel output chunks", Arrays.equals(channel.bytes.toByteArray(), encode(s.substring(1) + separator)));
+    /* Chars past 0xFF as UTF-8, and bytes as they are */
+    channel = new PartialChannel();
+    out = new ChannelOutputProvider(channel);
+    output = new Output(out);
+    output.print("a\u20ac\ud83d\ude00\u00e9");
+    byte[] raw = encode(s.toString());
+    output.print(raw, 0, raw.length);
+    out.close();
+    byte[] expectedBytes = Arrays.copyOf(new byte[] {'a', (byte) 0xE2, (byte) 0x82, (byte) 0xAC, (byte) 0xF0, (byte) 0x9F, (byte) 0x98, (byte) 0x80, (byte) 0xE9}, 9 + raw.length);
+    System.arraycopy(raw, 0, expectedBytes, 9, raw.length);
+    check.check("channel output utf-8", Arrays.equals(channel.bytes.toByteArray(), expectedBytes));
+  }
+  
+  private static byte[] encode(String s) {
+    return s.getBytes(StandardCharsets.ISO_8859_1);
+  }
+  
+}
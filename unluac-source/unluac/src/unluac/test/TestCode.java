@@ -0,0 +1,45 @@
+package unluac.test;
+
+import unluac.decompile.Code;
+import unluac.decompile.Decompiler;
+
+public class TestCode {
+
+  public static void main(String[] args) {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) {
+    Code code = new Code(new int[] {
+      abc(Decompiler.MOVE, 0, 1, 0),
+      abc(Decompiler.CALL, 255, 511, 511),
+      abc(Decompiler.EQ, 1, 256, 511),
+      abx(Decompiler.LOADK, 2, 262143),
+      asbx(Decompiler.JMP, 0, -5),
+      asbx(Decompiler.FORLOOP, 3, 131072),
+    });
+    check.check("code fields", code.length() == 6
+      && code.op(1) == Decompiler.MOVE && code.A(1) == 0 && code.B(1) == 1 && code.C(1) == 0
+      && code.op(2) == Decompiler.CALL && code.A(2) == 255 && code.B(2) == 511 && code.C(2) == 511
+      && code.op(3) == Decompiler.EQ && code.B(3) == 256 && code.C(3) == 511
+      && code.op(4) == Decompiler.LOADK && code.A(4) == 2 && code.Bx(4) == 262143
+      && code.op(5) == Decompiler.JMP && code.sBx(5) == -5 && code.Bx(5) == 131066
+      && code.op(6) == Decompiler.FORLOOP && code.A(6) == 3 && code.sBx(6) == 131072
+      && code.codepoint(5) == asbx(Decompiler.JMP, 0, -5));
+  }
+  
+  private static int abc(int op, int a, int b, int c) {
+    return op | a << 6 | c << 14 | b << 23;
+  }
+  
+  private static int abx(int op, int a, int bx) {
+    return op | a << 6 | bx << 14;
+  }
+  
+  private static int asbx(int op, int a, int sbx) {
+    return abx(op, a, sbx + 131071);
+  }
+  
+}
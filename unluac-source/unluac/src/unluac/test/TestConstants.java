@@ -0,0 +1,49 @@
+package unluac.test;
+
+import java.io.IOException;
+
+import unluac.parse.BSizeT;
+import unluac.parse.LBoolean;
+import unluac.parse.LConstants;
+import unluac.parse.LFunction;
+import unluac.parse.LNil;
+import unluac.parse.LNumber;
+import unluac.parse.LObject;
+import unluac.parse.LString;
+
+public class TestConstants {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    LString string = new LString(new BSizeT(0), new byte[] {'k'});
+    LConstants constants = new LConstants(new LObject[] {LNil.NIL, LBoolean.LTRUE, LBoolean.LFALSE, new LNumber(2.5), string});
+    check.check("constants", constants.length() == 5
+      && constants.type(0) == LConstants.NIL && constants.get(0) == LNil.NIL
+      && constants.type(1) == LConstants.BOOLEAN && constants.bool(1) && constants.get(1) == LBoolean.LTRUE
+      && constants.type(2) == LConstants.BOOLEAN && !constants.bool(2) && constants.get(2) == LBoolean.LFALSE
+      && constants.type(3) == LConstants.NUMBER && constants.number(3) == 2.5 && ((LNumber) constants.get(3)).number == 2.5
+      && constants.type(4) == LConstants.STRING && constants.string(4) == string && constants.get(4) == string);
+    LFunction function = Check.parse(Check.chunk("wax"));
+    LFunction rebuilt = rebuild(function);
+    check.check("constants from objects", Compare.function_equal(rebuilt, function) && Check.decompile(rebuilt).equals(Check.decompile(function)));
+  }
+  
+  /* The same function, built from constant and local objects */
+  static LFunction rebuild(LFunction function) {
+    LObject[] constants = new LObject[function.constants.length()];
+    for(int i = 0; i < constants.length; i++) {
+      constants[i] = function.constants.get(i);
+    }
+    LFunction[] functions = new LFunction[function.functions.length];
+    for(int i = 0; i < functions.length; i++) {
+      functions[i] = rebuild(function.functions[i]);
+    }
+    return new LFunction(function.code.clone(), function.getLocals(), constants, function.upvalues, functions, function.maximumStackSize, function.numUpvalues, function.numParams, function.vararg);
+  }
+  
+}
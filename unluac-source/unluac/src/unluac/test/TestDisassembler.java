@@ -0,0 +1,108 @@
+package unluac.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import unluac.decompile.Decompiler;
+import unluac.decompile.Disassembler;
+import unluac.parse.BSizeT;
+import unluac.parse.LFunction;
+import unluac.parse.LLocal;
+import unluac.parse.LNumber;
+import unluac.parse.LObject;
+import unluac.parse.LString;
+
+public class TestDisassembler {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    LFunction child = new LFunction(new int[] {abc(Decompiler.RETURN, 0, 1, 0)}, new LLocal[0], new LObject[0], new String[0], new LFunction[0], 2, 0, 0, 0);
+    LFunction function = new LFunction(new int[] {
+      abx(Decompiler.LOADK, 0, 0),
+      abx(Decompiler.GETGLOBAL, 1, 1),
+      abc(Decompiler.EQ, 0, 0, 256),
+      asbx(Decompiler.JMP, 0, 1),
+      abx(Decompiler.CLOSURE, 1, 0),
+      abc(Decompiler.RETURN, 0, 1, 0),
+    }, new LLocal[] {local("a", 2, 5)}, new LObject[] {new LNumber(1), string("print")}, new String[0], new LFunction[] {child}, 2, 0, 0, 0);
+    StringBuilder s = new StringBuilder();
+    Disassembler.disassembleAll(function, "main", Check.output(s));
+    check.check("disassembler", s.toString().equals(
+      "-- function main\n" +
+      "-- 0 params, 2 registers, 0 upvalues, 2 constants, 6 instructions\n" +
+      "--     1   LOADK     0 0 ; 1\n" +
+      "--     2   GETGLOBAL 1 1 ; \"print\"\n" +
+      "--     3   EQ        0 0 256 ; a 1\n" +
+      "--     4   JMP       1 ; to 6\n" +
+      "--     5   CLOSURE   1 0 ; main/0\n" +
+      "--     6 > RETURN    0 1 0\n" +
+      "\n" +
+      "-- function main/0\n" +
+      "-- 0 params, 2 registers, 0 upvalues, 0 constants, 1 instructions\n" +
+      "--     1   RETURN    0 1 0\n"
+    ));
+    /* A LOADBOOL that skips makes the line after next a target */
+    function = new LFunction(new int[] {
+      abc(Decompiler.LOADBOOL, 0, 1, 1),
+      abc(Decompiler.LOADBOOL, 0, 0, 0),
+      abc(Decompiler.RETURN, 0, 2, 0),
+    }, new LLocal[0], new LObject[0], new String[0], new LFunction[0], 2, 0, 0, 0);
+    s.setLength(0);
+    new Disassembler(function, "main").print(Check.output(s));
+    check.check("disassembler loadbool", s.toString().endsWith(
+      "--     1   LOADBOOL  0 1 1\n" +
+      "--     2   LOADBOOL  0 0 0\n" +
+      "--     3 > RETURN    0 2 0\n"
+    ));
+    LFunction wax = Check.parse(Check.chunk("wax"));
+    s.setLength(0);
+    Disassembler.disassembleAll(wax, "main", Check.output(s));
+    List<String> expected = new ArrayList<String>();
+    listing(wax, "main", expected);
+    List<String> actual = new ArrayList<String>();
+    for(String line : s.toString().split("\n")) {
+      if(line.startsWith("-- function ") || line.matches("-- [ 0-9]{5} .*")) {
+        actual.add(line.startsWith("-- function ") ? line : line.substring(0, 8));
+      }
+    }
+    check.check("disassembler listing", actual.equals(expected));
+  }
+  
+  /* The function headers and instruction numbers of a whole tree */
+  private static void listing(LFunction function, String path, List<String> lines) {
+    lines.add("-- function " + path);
+    for(int line = 1; line <= function.code.length; line++) {
+      lines.add(String.format("-- %5d", line));
+    }
+    for(int i = 0; i < function.functions.length; i++) {
+      listing(function.functions[i], path + "/" + i, lines);
+    }
+  }
+  
+  static LLocal local(String name, int start, int end) {
+    return new LLocal(string(name), start, end);
+  }
+  
+  static LString string(String s) {
+    return new LString(new BSizeT(0), s + "\0");
+  }
+  
+  static int abc(int op, int a, int b, int c) {
+    return op | a << 6 | c << 14 | b << 23;
+  }
+  
+  static int abx(int op, int a, int bx) {
+    return op | a << 6 | bx << 14;
+  }
+  
+  static int asbx(int op, int a, int sbx) {
+    return abx(op, a, sbx + 131071);
+  }
+  
+}
@@ -0,0 +1,103 @@
+package unluac.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import unluac.util.DiskCache;
+
+public class TestDiskCache {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    File directory = Files.createTempDirectory("unluac").toFile();
+    try {
+      DiskCache cache = new DiskCache(directory, 1 << 20, "test");
+      byte[] wax = Check.bytes("wax");
+      String key = cache.key(ByteBuffer.wrap(wax));
+      boolean salted = !key.equals(new DiskCache(directory, 1 << 20, "other").key(ByteBuffer.wrap(wax)));
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      boolean missed = !cache.read(key, Channels.newChannel(out));
+      put(cache, key, wax, true);
+      DiskCache.Writer aborted = cache.write(cache.key(ByteBuffer.wrap(new byte[1])), Channels.newChannel(new ByteArrayOutputStream()));
+      aborted.write(ByteBuffer.wrap(wax));
+      aborted.abort();
+      boolean hit = cache.read(key, Channels.newChannel(out)) && Arrays.equals(out.toByteArray(), wax);
+      boolean abort = !cache.read(cache.key(ByteBuffer.wrap(new byte[1])), Channels.newChannel(out)) && count(directory) == 1;
+      check.check("disk cache", salted && missed && hit && abort);
+      
+      File file = entry(directory, key);
+      RandomAccessFile damage = new RandomAccessFile(file, "rw");
+      damage.setLength(damage.length() / 2);
+      damage.close();
+      ByteArrayOutputStream partial = new ByteArrayOutputStream();
+      boolean damaged = !cache.read(key, Channels.newChannel(partial)) && partial.size() == 0;
+      check.check("disk cache damaged", damaged && !file.exists() && !cache.read(key, Channels.newChannel(out)) && cache.report().endsWith("1 damaged"));
+      
+      File small = new File(directory, "small");
+      cache = new DiskCache(small, 3500, "test");
+      Random random = new Random(18);
+      String[] keys = new String[4];
+      for(int i = 0; i < keys.length; i++) {
+        byte[] bytes = new byte[900];
+        random.nextBytes(bytes);
+        keys[i] = cache.key(ByteBuffer.wrap(bytes));
+        put(cache, keys[i], bytes, false);
+        entry(small, keys[i]).setLastModified(1000000000000L + i * 10000L);
+        if(i == 2) {
+          cache.read(keys[0], Channels.newChannel(new ByteArrayOutputStream()));
+        }
+      }
+      boolean[] kept = new boolean[keys.length];
+      for(int i = 0; i < keys.length; i++) {
+        kept[i] = entry(small, keys[i]).exists();
+      }
+      check.check("disk cache eviction", Arrays.equals(kept, new boolean[] {true, false, true, true}) && cache.report().endsWith("1 evicted, 0 damaged"));
+    } finally {
+      Check.delete(directory);
+    }
+  }
+  
+  private static void put(DiskCache cache, String key, byte[] bytes, boolean chunked) throws IOException {
+    ByteArrayOutputStream copy = new ByteArrayOutputStream();
+    WritableByteChannel out = Channels.newChannel(copy);
+    DiskCache.Writer writer = cache.write(key, out);
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    while(buffer.hasRemaining()) {
+      if(chunked) {
+        buffer.limit(Math.min(buffer.position() + 1000, bytes.length));
+      }
+      writer.write(buffer);
+      buffer.limit(bytes.length);
+    }
+    writer.commit();
+    if(!Arrays.equals(copy.toByteArray(), bytes)) {
+      throw new IllegalStateException("output not passed through");
+    }
+  }
+  
+  private static File entry(File directory, String key) {
+    return new File(new File(directory, key.substring(0, 2)), key + ".gz");
+  }
+  
+  private static int count(File directory) {
+    int count = 0;
+    for(File parent : directory.listFiles()) {
+      count += parent.listFiles().length;
+    }
+    return count;
+  }
+  
+}
@@ -0,0 +1,85 @@
+package unluac.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import unluac.Extractor;
+import unluac.util.CSourceInputStream;
+
+public class TestExtractor {
+
+  private static class Chunks implements Extractor.Handler {
+    
+    final List<Long> offsets = new ArrayList<Long>();
+    final List<byte[]> chunks = new ArrayList<byte[]>();
+    
+    @Override
+    public void chunk(long offset, ByteBuffer chunk) {
+      byte[] bytes = new byte[chunk.remaining()];
+      chunk.get(bytes);
+      offsets.add(offset);
+      chunks.add(bytes);
+    }
+    
+  }
+  
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    byte[] wax = Check.bytes("wax");
+    byte[] lj = Check.bytes("wax_lj");
+    ByteArrayOutputStream blob = new ByteArrayOutputStream();
+    byte[] junk = new byte[5000];
+    new Random(16).nextBytes(junk);
+    blob.write(junk);
+    /* A signature with no chunk after it */
+    blob.write(new byte[] {0x1B, 'L', 'u', 'a', 0x51, 0, 7});
+    blob.write(wax);
+    blob.write(junk);
+    blob.write(lj);
+    blob.write(junk, 0, 100);
+    Chunks chunks = new Chunks();
+    int found = new Extractor(chunks).extract(new ByteArrayInputStream(blob.toByteArray()));
+    check.check("extract binary", found == 2
+      && chunks.offsets.get(0) == 5007 && Arrays.equals(chunks.chunks.get(0), wax)
+      && chunks.offsets.get(1) == 5007 + wax.length + 5000 && Arrays.equals(chunks.chunks.get(1), lj));
+    String source = "/* not \"\\x1bLua\" */\nstatic const char *s = \"\\x1bL\\165a\" \"Q\";\nint a[] = { 0x1b, 'L', 117, '\\x61', -1 };\n";
+    InputStream in = new CSourceInputStream(new ByteArrayInputStream(source.getBytes(StandardCharsets.US_ASCII)));
+    byte[] bytes = Check.readAll(in);
+    check.check("c source bytes", Arrays.equals(bytes, new byte[] {0x1B, 'L', 'u', 'a', 'Q', 0x1B, 'L', 'u', 'a', (byte) 0xFF}));
+    File file = File.createTempFile("unluac", ".c");
+    try {
+      StringBuilder array = new StringBuilder("/* wax */\nstatic const unsigned char wax[] = {\n");
+      for(int i = 0; i < wax.length; i++) {
+        array.append(String.format("0x%02x,", wax[i] & 0xFF)).append(i % 16 == 15 ? "\n" : " ");
+      }
+      array.append("\n};\n");
+      Files.write(file.toPath(), array.toString().getBytes(StandardCharsets.US_ASCII));
+      chunks = new Chunks();
+      in = Extractor.open(file);
+      try {
+        found = new Extractor(chunks).extract(in);
+      } finally {
+        in.close();
+      }
+      check.check("extract c array", found == 1 && chunks.offsets.get(0) == 0 && Arrays.equals(chunks.chunks.get(0), wax));
+    } finally {
+      file.delete();
+    }
+  }
+  
+}
@@ -0,0 +1,58 @@
+package unluac.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import unluac.decompile.Decompiler;
+import unluac.decompile.FragmentCache;
+import unluac.decompile.LJLowering;
+import unluac.parse.Fingerprint;
+import unluac.parse.LFunction;
+import unluac.parse.LJHeader;
+
+public class TestFingerprint {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    LFunction wax = Check.parse(Check.chunk("wax"));
+    ByteBuffer buffer = Check.chunk("wax_lj");
+    LFunction lj = LJLowering.lower(new LJHeader(buffer).parse(buffer));
+    Map<Fingerprint, String> texts = new HashMap<Fingerprint, String>();
+    boolean passed = same(wax, texts) && same(lj, texts);
+    check.check("fingerprint text", passed && texts.size() > 1);
+    LFunction rebuilt = TestConstants.rebuild(wax);
+    LFunction changed = TestConstants.rebuild(wax);
+    changed.code[0] ^= 1 << 6;
+    check.check("fingerprint structure", rebuilt.fingerprint().equals(wax.fingerprint()) && !changed.fingerprint().equals(wax.fingerprint()));
+    String expected = Check.decompile(wax);
+    FragmentCache cache = new FragmentCache(1 << 24);
+    passed = true;
+    for(int run = 0; run < 2; run++) {
+      StringBuilder s = new StringBuilder();
+      Decompiler d = new Decompiler(wax, Check.output(s));
+      d.setCache(cache);
+      d.decompile();
+      passed = passed && s.toString().equals(expected);
+    }
+    check.check("fragment cache", passed && !cache.report().startsWith("fragment cache: 0 hits"));
+  }
+  
+  /* Functions with equal fingerprints decompile to equal text */
+  private static boolean same(LFunction function, Map<Fingerprint, String> texts) {
+    String text = Check.decompile(function);
+    String previous = texts.put(function.fingerprint(), text);
+    boolean passed = previous == null || previous.equals(text);
+    for(LFunction child : function.functions) {
+      passed = same(child, texts) && passed;
+    }
+    return passed;
+  }
+  
+}
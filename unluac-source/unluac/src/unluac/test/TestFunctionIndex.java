@@ -0,0 +1,41 @@
+package unluac.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import unluac.parse.BHeader;
+import unluac.parse.LFunction;
+import unluac.parse.LFunctionIndex;
+
+public class TestFunctionIndex {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    ByteBuffer buffer = Check.chunk("wax");
+    ByteBuffer scan = buffer.duplicate();
+    scan.order(buffer.order());
+    BHeader header = new BHeader(scan);
+    int start = scan.position();
+    LFunctionIndex index = LFunctionIndex.scan(scan, header);
+    boolean passed = !scan.hasRemaining() && index.offset == start && index.length == scan.position() - start;
+    passed = passed && index.find("main/x") == null && index.find("main/999") == null && index.find("other") == null;
+    check.check("function paths", passed && paths(Check.parse(buffer.duplicate().order(buffer.order())), "main", index, scan, header));
+  }
+  
+  /* Each function parsed alone is the same as in the whole tree */
+  private static boolean paths(LFunction function, String path, LFunctionIndex index, ByteBuffer buffer, BHeader header) {
+    LFunctionIndex found = index.find(path);
+    int position = buffer.position();
+    boolean passed = found != null && Compare.function_equal(found.parse(buffer, header), function) && buffer.position() == position;
+    for(int i = 0; i < function.functions.length; i++) {
+      passed = passed && paths(function.functions[i], path + "/" + i, index, buffer, header);
+    }
+    return passed;
+  }
+  
+}
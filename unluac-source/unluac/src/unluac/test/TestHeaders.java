@@ -0,0 +1,116 @@
+package unluac.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import unluac.parse.LConstants;
+import unluac.parse.LFunction;
+
+public class TestHeaders {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    LFunction function = Check.parse(Check.chunk("wax"));
+    check.check("header big 4/8", Compare.function_equal(Check.parse(dump(function, ByteOrder.BIG_ENDIAN, 4, 8)), function));
+    check.check("header little 8/8", Compare.function_equal(Check.parse(dump(function, ByteOrder.LITTLE_ENDIAN, 8, 8)), function));
+    check.check("header big 8/4", Compare.function_equal(Check.parse(dump(function, ByteOrder.BIG_ENDIAN, 8, 4)), function));
+    ByteBuffer buffer = header(ByteOrder.LITTLE_ENDIAN, 4, 4);
+    buffer.put(9, (byte) 8);
+    buffer.flip();
+    check.check("header instruction size", error(buffer, "Unsupported instruction size 8"));
+    buffer = header(ByteOrder.BIG_ENDIAN, 8, 4);
+    buffer.putInt(0);
+    buffer.putLong(1L << 40);
+    buffer.flip();
+    check.check("header int range", error(buffer, "Integer value out of range: " + (1L << 40)));
+  }
+  
+  private static boolean error(ByteBuffer buffer, String message) {
+    try {
+      Check.parse(buffer);
+      return false;
+    } catch(IllegalStateException e) {
+      return message.equals(e.getMessage());
+    }
+  }
+  
+  private static ByteBuffer header(ByteOrder order, int intSize, int sizeTSize) {
+    ByteBuffer buffer = ByteBuffer.allocate(1 << 22).order(order);
+    buffer.put(new byte[] {0x1B, 'L', 'u', 'a', 0x51, 0});
+    buffer.put((byte) (order == ByteOrder.LITTLE_ENDIAN ? 1 : 0));
+    buffer.put(new byte[] {(byte) intSize, (byte) sizeTSize, 4, 8, 0});
+    return buffer;
+  }
+  
+  /* Writes the function as luac would with the given header */
+  static ByteBuffer dump(LFunction function, ByteOrder order, int intSize, int sizeTSize) {
+    ByteBuffer buffer = header(order, intSize, sizeTSize);
+    dump(buffer, function, intSize, sizeTSize);
+    buffer.flip();
+    return buffer;
+  }
+  
+  private static void dump(ByteBuffer buffer, LFunction function, int intSize, int sizeTSize) {
+    /* No source name, and no line defined */
+    put(buffer, 0, sizeTSize);
+    put(buffer, 0, intSize);
+    put(buffer, 0, intSize);
+    buffer.put(new byte[] {(byte) function.numUpvalues, (byte) function.numParams, (byte) function.vararg, (byte) function.maximumStackSize});
+    put(buffer, function.code.length, intSize);
+    for(int instruction : function.code) {
+      buffer.putInt(instruction);
+    }
+    put(buffer, function.constants.length(), intSize);
+    for(int i = 0; i < function.constants.length(); i++) {
+      int type = function.constants.type(i);
+      buffer.put((byte) type);
+      if(type == LConstants.BOOLEAN) {
+        buffer.put((byte) (function.constants.bool(i) ? 1 : 0));
+      } else if(type == LConstants.NUMBER) {
+        buffer.putDouble(function.constants.number(i));
+      } else if(type == LConstants.STRING) {
+        put(buffer, function.constants.string(i).bytes, sizeTSize);
+      }
+    }
+    put(buffer, function.functions.length, intSize);
+    for(LFunction child : function.functions) {
+      dump(buffer, child, intSize, sizeTSize);
+    }
+    put(buffer, function.lines.length, intSize);
+    for(int line : function.lines) {
+      put(buffer, line, intSize);
+    }
+    put(buffer, function.localNames.length, intSize);
+    for(int i = 0; i < function.localNames.length; i++) {
+      put(buffer, function.localNames[i].bytes, sizeTSize);
+      put(buffer, function.localStarts[i], intSize);
+      put(buffer, function.localEnds[i], intSize);
+    }
+    put(buffer, function.upvalues.length, intSize);
+    for(String upvalue : function.upvalues) {
+      put(buffer, upvalue.getBytes(StandardCharsets.ISO_8859_1), sizeTSize);
+    }
+  }
+  
+  private static void put(ByteBuffer buffer, int value, int size) {
+    if(size == 8) {
+      buffer.putLong(value);
+    } else {
+      buffer.putInt(value);
+    }
+  }
+  
+  private static void put(ByteBuffer buffer, byte[] string, int sizeTSize) {
+    put(buffer, string.length + 1, sizeTSize);
+    buffer.put(string);
+    buffer.put((byte) 0);
+  }
+  
+}
@@ -0,0 +1,67 @@
+package unluac.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import unluac.Index;
+
+public class TestIndex {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    File directory = Files.createTempDirectory("unluac").toFile();
+    try {
+      File a = new File(directory, "a.luac");
+      File b = new File(directory, "b.luac");
+      File c = new File(directory, "c.luac");
+      TestBatch.write(a, Check.bytes("wax"));
+      TestBatch.write(b, Check.bytes("wax_lj"));
+      TestBatch.write(c, Check.bytes("wax"));
+      File file = new File(directory, "index");
+      int failed = Index.update(file, Arrays.asList(a, b, c), 2);
+      Index index = Index.open(file);
+      check.check("index", failed == 0 && index.files() == 3
+        && query(index, "call:waxClass").equals(Arrays.asList("a#main/13", "a#main/15", "b#main/13", "b#main/15", "c#main/13", "c#main/15"))
+        && query(index, "write:waxClass").equals(Arrays.asList("a#main/22", "b#main/22", "c#main/22"))
+        && query(index, "write:package.preload.wax.enums").equals(Arrays.asList("a#main", "b#main", "c#main"))
+        && query(index, "NSDate:date").equals(Arrays.asList("a#main/14/5", "a#main/14/7", "a#main/14/8", "b#main/14/5", "b#main/14/7", "b#main/14/8", "c#main/14/5", "c#main/14/7", "c#main/14/8"))
+        && query(index, "string:wax.enums").equals(Arrays.asList("a#main", "a#main/16", "a#main/23", "b#main", "b#main/16", "c#main", "c#main/16", "c#main/23"))
+        && query(index, "call:waxClass", "read:UIView").equals(Arrays.asList("a#main/13", "b#main/13", "c#main/13"))
+        && query(index, "call:nothing").isEmpty());
+      TestBatch.write(b, Check.bytes("wax"));
+      Check.delete(c);
+      failed = Index.update(file, Arrays.asList(a, b), 2);
+      index = Index.open(file);
+      check.check("index update", failed == 0 && index.files() == 2
+        && query(index, "call:waxClass").equals(Arrays.asList("a#main/13", "a#main/15", "b#main/13", "b#main/15"))
+        && query(index, "string:wax.enums").equals(Arrays.asList("a#main", "a#main/16", "a#main/23", "b#main", "b#main/16", "b#main/23")));
+    } finally {
+      Check.delete(directory);
+    }
+  }
+  
+  /* The functions with all of the terms, as file#path */
+  private static List<String> query(Index index, String... terms) {
+    long[] found = index.lookup(terms[0]);
+    for(int i = 1; i < terms.length; i++) {
+      found = Index.intersect(found, index.lookup(terms[i]));
+    }
+    List<String> functions = new ArrayList<String>();
+    for(long posting : found) {
+      int file = (int) (posting >>> 32);
+      String name = new File(index.file(file)).getName();
+      functions.add(name.substring(0, name.indexOf('.')) + "#" + index.function(file, (int) posting));
+    }
+    return functions;
+  }
+  
+}
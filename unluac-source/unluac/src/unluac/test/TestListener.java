@@ -0,0 +1,78 @@
+package unluac.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import unluac.decompile.DecompileListener;
+import unluac.decompile.Decompiler;
+import unluac.parse.LFunction;
+
+public class TestListener {
+
+  private static class Recorder implements DecompileListener {
+    
+    final Map<String, List<String>> phases = new HashMap<String, List<String>>();
+    final Map<String, LFunction> functions = new HashMap<String, LFunction>();
+    boolean negative = false;
+    
+    @Override
+    public synchronized void phase(String path, String phase, long nanos, long bytes) {
+      if(!phases.containsKey(path)) {
+        phases.put(path, new ArrayList<String>());
+      }
+      phases.get(path).add(phase);
+      negative = negative || nanos < 0 || bytes < 0;
+    }
+    
+    @Override
+    public synchronized void function(String path, LFunction function, int blocks, long nanos, long bytes) {
+      negative = negative || functions.put(path, function) != null || blocks < 1 || nanos < 0 || bytes < 0;
+    }
+    
+  }
+  
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    LFunction function = Check.parse(Check.chunk("wax"));
+    Map<String, LFunction> paths = new HashMap<String, LFunction>();
+    paths(function, "main", paths);
+    String expected = Check.decompile(function);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    for(int parallel = 0; parallel < 2; parallel++) {
+      Recorder recorder = new Recorder();
+      StringBuilder s = new StringBuilder();
+      Decompiler d = new Decompiler(function, Check.output(s));
+      d.setListener(recorder);
+      if(parallel != 0) {
+        d.decompile(pool);
+      } else {
+        d.decompile();
+      }
+      /* Each function once, by path, with its phases in order */
+      boolean passed = s.toString().equals(expected) && !recorder.negative && recorder.functions.equals(paths) && recorder.phases.keySet().equals(paths.keySet());
+      for(List<String> phases : recorder.phases.values()) {
+        passed = passed && phases.equals(Arrays.asList("handleBranches", "processSequence", "print"));
+      }
+      check.check(parallel != 0 ? "listener parallel" : "listener", passed);
+    }
+    pool.shutdown();
+  }
+  
+  private static void paths(LFunction function, String path, Map<String, LFunction> paths) {
+    paths.put(path, function);
+    for(int i = 0; i < function.functions.length; i++) {
+      paths(function.functions[i], path + "/" + i, paths);
+    }
+  }
+  
+}
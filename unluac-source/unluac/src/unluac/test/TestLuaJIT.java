@@ -0,0 +1,49 @@
+package unluac.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import unluac.Main;
+import unluac.decompile.Decompiler;
+import unluac.decompile.LJLowering;
+import unluac.parse.LFunction;
+import unluac.parse.LJHeader;
+
+public class TestLuaJIT {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    ByteBuffer buffer = Check.chunk("wax_lj");
+    check.check("luajit signature", LJHeader.isLuaJIT(buffer) && !LJHeader.isLuaJIT(Check.chunk("wax")));
+    LJHeader header = new LJHeader(buffer);
+    LFunction function = LJLowering.lower(header.parse(buffer));
+    String expected = Check.expected("wax_lj");
+    check.check("luajit", !buffer.hasRemaining() && returns(function) && Check.decompile(function).equals(expected));
+    File output = File.createTempFile("unluac", ".lua");
+    try {
+      Main.decompile(Check.file("wax_lj").getPath(), output.getPath());
+      String text = new String(Files.readAllBytes(output.toPath()), StandardCharsets.ISO_8859_1);
+      check.check("luajit file", text.replace(System.getProperty("line.separator"), "\n").equals(expected));
+    } finally {
+      output.delete();
+    }
+  }
+  
+  /* Lowered like luac's output, every function ends with a return */
+  private static boolean returns(LFunction function) {
+    boolean passed = (function.code[function.code.length - 1] & 0x3F) == Decompiler.RETURN;
+    for(LFunction child : function.functions) {
+      passed = passed && returns(child);
+    }
+    return passed;
+  }
+  
+}
@@ -0,0 +1,56 @@
+package unluac.test;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import unluac.decompile.Decompiler;
+import unluac.decompile.Fragment;
+import unluac.decompile.Output;
+import unluac.parse.LFunction;
+
+public class TestParallel {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    LFunction function = Check.parse(Check.chunk("wax"));
+    String sequential = Check.decompile(function);
+    boolean passed = true;
+    for(int threads = 1; threads <= 8; threads *= 2) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      passed = passed && parallel(function, pool).equals(sequential);
+      pool.shutdown();
+    }
+    check.check("parallel", passed);
+    Fragment fragment = new Fragment();
+    fragment.println("x = [[");
+    int level = fragment.getIndentationLevel();
+    fragment.setIndentationLevel(0);
+    fragment.println("raw]]");
+    fragment.setIndentationLevel(level);
+    fragment.println("do");
+    fragment.indent();
+    fragment.println("y = 1");
+    fragment.dedent();
+    fragment.println("end");
+    StringBuilder s = new StringBuilder();
+    Output out = Check.output(s);
+    out.println("local f = function()");
+    out.indent();
+    out.print(fragment);
+    out.dedent();
+    out.println("end");
+    check.check("fragment replay", s.toString().equals("local f = function()\n  x = [[\nraw]]\n  do\n    y = 1\n  end\nend\n"));
+  }
+  
+  private static String parallel(LFunction function, ForkJoinPool pool) {
+    StringBuilder s = new StringBuilder();
+    new Decompiler(function, Check.output(s)).decompile(pool);
+    return s.toString();
+  }
+  
+}
@@ -0,0 +1,38 @@
+package unluac.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import unluac.parse.BHeader;
+import unluac.parse.LFunction;
+import unluac.parse.LFunctionIndex;
+import unluac.parse.LString;
+
+public class TestParallelParse {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    LFunction sequential = Check.parse(Check.chunk("wax"));
+    boolean passed = true;
+    boolean pooled = true;
+    for(int threads = 1; threads <= 8; threads *= 2) {
+      ByteBuffer buffer = Check.chunk("wax");
+      BHeader header = new BHeader(buffer);
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      LFunction function = LFunctionIndex.scan(buffer, header).parse(buffer, header, pool);
+      pool.shutdown();
+      passed = passed && Compare.function_equal(function, sequential);
+      pooled = pooled && TestStrings.pooled(function, new HashMap<String, LString>(), new int[2]);
+    }
+    check.check("parallel parse", passed);
+    check.check("parallel parse strings", pooled);
+  }
+  
+}
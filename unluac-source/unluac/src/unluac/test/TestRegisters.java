@@ -0,0 +1,70 @@
+package unluac.test;
+
+import java.util.Random;
+
+import unluac.decompile.Constant;
+import unluac.decompile.Declaration;
+import unluac.decompile.Registers;
+import unluac.decompile.expression.ConstantExpression;
+import unluac.decompile.expression.Expression;
+
+public class TestRegisters {
+
+  public static void main(String[] args) {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) {
+    check.check("registers", registers(4, false));
+    check.check("registers late sets", registers(4, true));
+  }
+  
+  /* Compares the change lists with a value per register per line, optionally setting earlier lines */
+  private static boolean registers(long seed, boolean late) {
+    Random random = new Random(seed);
+    int count = 6;
+    int length = 400;
+    Registers r = new Registers(count, length, new Declaration[0], new Constant[0]);
+    Expression[][] values = new Expression[count][length + 1];
+    int[][] updated = new int[count][length + 1];
+    for(int register = 0; register < count; register++) {
+      values[register][0] = Expression.NIL;
+    }
+    boolean passed = true;
+    for(int line = 1; line <= length; line++) {
+      /* Lines are sometimes started again, dropping what was set */
+      int starts = random.nextInt(5) == 0 ? 2 : 1;
+      for(int start = 0; start < starts; start++) {
+        r.startLine(line);
+        for(int register = 0; register < count; register++) {
+          values[register][line] = values[register][line - 1];
+          updated[register][line] = updated[register][line - 1];
+        }
+        for(int set = random.nextInt(3); set > 0; set--) {
+          int register = random.nextInt(count);
+          Expression value = new ConstantExpression(new Constant(line), 0);
+          r.setValue(register, line, value);
+          values[register][line] = value;
+          updated[register][line] = line;
+        }
+      }
+      if(late && line > 1 && random.nextInt(8) == 0) {
+        int earlier = line - 1 - random.nextInt(Math.min(3, line - 1));
+        int register = random.nextInt(count);
+        Expression value = new ConstantExpression(new Constant(-earlier), 0);
+        r.setValue(register, earlier, value);
+        values[register][earlier] = value;
+        updated[register][earlier] = earlier;
+      }
+      for(int register = 0; register < count; register++) {
+        for(int l = 0; l <= line; l++) {
+          passed = passed && r.getValue(register, l + 1) == values[register][l] && r.getUpdated(register, l) == updated[register][l];
+        }
+      }
+    }
+    return passed;
+  }
+  
+}
@@ -0,0 +1,201 @@
+package unluac.test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import unluac.Configuration;
+import unluac.Server;
+import unluac.decompile.Decompiler;
+import unluac.parse.BSizeT;
+import unluac.parse.LFunction;
+import unluac.parse.LLocal;
+import unluac.parse.LObject;
+import unluac.parse.LString;
+
+public class TestServer {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    Server server = new Server(new Configuration(), 2, 60000, null);
+    String base = "http://127.0.0.1:" + server.start(0) + "/";
+    try {
+      String expected = Check.decompile(Check.parse(Check.chunk("wax")));
+      String file = URLEncoder.encode(Check.file("wax").getPath(), "UTF-8");
+      check.check("server get", expected.equals(text(request(base + "decompile?file=" + file, null), 200)));
+      check.check("server post", expected.equals(text(request(base + "decompile", Check.bytes("wax")), 200)));
+      check.check("server errors", text(request(base + "decompile", new byte[] {0x1b, 'L', 'u', 'a'}), 422) != null && text(request(base + "decompile", null), 400) != null && text(request(base + "decompile?file=" + file + "&timeout=x", null), 400) != null);
+      String metrics = text(request(base + "metrics", null), 200);
+      check.check("server metrics", metrics != null && metrics.contains("failed: 1,") && metrics.startsWith("in flight: 0 "));
+      String delivered = line(metrics, "large: ");
+      hangUp(base, large());
+      settle(base, "abandoned: 1");
+      metrics = settle(base, "in flight: 0 ");
+      check.check("server hang-up", metrics.contains("failed: 1, too large: 0, abandoned: 1") && metrics.startsWith("in flight: 0 "));
+      check.check("server hang-up latency", delivered.equals(line(metrics, "large: ")));
+      /* A 504, or a cut-off 200 if the output started before the deadline */
+      drain(request(base + "decompile?timeout=0", large()));
+      metrics = settle(base, "in flight: 0 ");
+      check.check("server timeout counted once", metrics.contains("timed out: 1, failed: 1, too large: 0, abandoned: 1\n"));
+      check.check("server chunked too large", overflow(base) == 413);
+      metrics = settle(base, "too large: 1");
+      check.check("server chunked counted", metrics.contains("too large: 1, abandoned: 1\n"));
+    } finally {
+      server.stop();
+    }
+  }
+  
+  /* Polls the metrics until they contain the text */
+  static String settle(String base, String text) throws IOException {
+    String metrics = text(request(base + "metrics", null), 200);
+    for(int i = 0; i < 200 && !metrics.contains(text); i++) {
+      sleep(50);
+      metrics = text(request(base + "metrics", null), 200);
+    }
+    return metrics;
+  }
+  
+  static String line(String text, String prefix) {
+    int start = text.indexOf("\n" + prefix) + 1;
+    return text.substring(start, text.indexOf('\n', start));
+  }
+  
+  /* Streams a chunked body past the budget without ever ending it; returns the status */
+  static int overflow(String base) throws IOException {
+    URL url = new URL(base + "decompile");
+    final Socket socket = new Socket(url.getHost(), url.getPort());
+    try {
+      socket.setSoTimeout(30000);
+      final OutputStream out = socket.getOutputStream();
+      out.write(("POST /decompile HTTP/1.1\r\nHost: " + url.getHost() + "\r\nTransfer-Encoding: chunked\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+      Thread writer = new Thread() {
+        
+        @Override
+        public void run() {
+          byte[] chunk = new byte[1024 * 1024];
+          try {
+            for(int i = 0; i < Server.BUDGET / chunk.length + 4; i++) {
+              out.write((Integer.toHexString(chunk.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+              out.write(chunk);
+              out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+            }
+            out.flush();
+          } catch(IOException e) {
+            /* The server stopped reading */
+          }
+        }
+        
+      };
+      writer.setDaemon(true);
+      writer.start();
+      InputStream in = socket.getInputStream();
+      StringBuilder status = new StringBuilder();
+      try {
+        int c;
+        while((c = in.read()) >= 0 && c != '\r') {
+          status.append((char) c);
+        }
+      } catch(SocketTimeoutException e) {
+        return -1;
+      }
+      String[] parts = status.toString().split(" ");
+      return parts.length > 1 ? Integer.parseInt(parts[1]) : -1;
+    } finally {
+      socket.setSoLinger(true, 0);
+      socket.close();
+    }
+  }
+  
+  /* A chunk whose output is far more than the socket buffers hold */
+  static byte[] large() {
+    byte[] bytes = new byte[1024 * 1024];
+    Arrays.fill(bytes, (byte) 'x');
+    int[] code = new int[33];
+    for(int i = 0; i < 16; i++) {
+      code[2 * i] = TestDisassembler.abx(Decompiler.LOADK, 0, 0);
+      code[2 * i + 1] = TestDisassembler.abx(Decompiler.SETGLOBAL, 0, 1);
+    }
+    code[32] = TestDisassembler.abc(Decompiler.RETURN, 0, 1, 0);
+    LFunction function = new LFunction(code, new LLocal[0], new LObject[] {new LString(new BSizeT(0), bytes), TestDisassembler.string("x")}, new String[0], new LFunction[0], 2, 0, 0, 2);
+    ByteBuffer buffer = TestHeaders.dump(function, ByteOrder.LITTLE_ENDIAN, 4, 4);
+    byte[] chunk = new byte[buffer.remaining()];
+    buffer.get(chunk);
+    return chunk;
+  }
+  
+  /* Posts the chunk, then resets the connection once the response starts */
+  static void hangUp(String base, byte[] chunk) throws IOException {
+    URL url = new URL(base + "decompile");
+    Socket socket = new Socket(url.getHost(), url.getPort());
+    try {
+      OutputStream out = socket.getOutputStream();
+      out.write(("POST /decompile HTTP/1.1\r\nHost: " + url.getHost() + "\r\nContent-Length: " + chunk.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+      out.write(chunk);
+      out.flush();
+      socket.getInputStream().read();
+      socket.setSoLinger(true, 0);
+    } finally {
+      socket.close();
+    }
+  }
+  
+  static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+  
+  static HttpURLConnection request(String url, byte[] body) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    if(body != null) {
+      connection.setDoOutput(true);
+      connection.setFixedLengthStreamingMode(body.length);
+      OutputStream out = connection.getOutputStream();
+      out.write(body);
+      out.close();
+    }
+    return connection;
+  }
+  
+  static void drain(HttpURLConnection connection) throws IOException {
+    InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+    try {
+      Check.readAll(in);
+    } catch(IOException e) {
+      /* A cut-off response */
+    } finally {
+      in.close();
+    }
+  }
+  
+  /* The body with \n line endings, or null for another status */
+  static String text(HttpURLConnection connection, int status) throws IOException {
+    if(connection.getResponseCode() != status) {
+      return null;
+    }
+    InputStream in = status == 200 ? connection.getInputStream() : connection.getErrorStream();
+    try {
+      String text = new String(Check.readAll(in), StandardCharsets.ISO_8859_1);
+      return text.replace(System.getProperty("line.separator"), "\n");
+    } finally {
+      in.close();
+    }
+  }
+  
+}
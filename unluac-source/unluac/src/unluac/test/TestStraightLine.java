@@ -0,0 +1,41 @@
+package unluac.test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import unluac.decompile.Decompiler;
+import unluac.parse.LFunction;
+import unluac.parse.LLocal;
+import unluac.parse.LNumber;
+import unluac.parse.LObject;
+
+public class TestStraightLine {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    int[] code = {
+      TestDisassembler.abx(Decompiler.LOADK, 0, 0),
+      TestDisassembler.abx(Decompiler.LOADK, 1, 1),
+      TestDisassembler.abx(Decompiler.GETGLOBAL, 2, 2),
+      TestDisassembler.abc(Decompiler.MOVE, 3, 0, 0),
+      TestDisassembler.abc(Decompiler.MOVE, 4, 1, 0),
+      TestDisassembler.abc(Decompiler.CALL, 2, 3, 1),
+      TestDisassembler.abc(Decompiler.RETURN, 0, 1, 0),
+    };
+    LObject[] constants = {new LNumber(1), TestDisassembler.string("x"), TestDisassembler.string("print")};
+    LFunction function = new LFunction(code, new LLocal[] {TestDisassembler.local("a", 1, 6), TestDisassembler.local("b", 2, 6)}, constants, new String[0], new LFunction[0], 5, 0, 0, 2);
+    check.check("straight line", Check.decompile(function).equals("local a = 1\nlocal b = \"x\"\nprint(a, b)\n"));
+    code = Arrays.copyOf(code, 9);
+    code[6] = TestDisassembler.abx(Decompiler.GETGLOBAL, 0, 2);
+    code[7] = TestDisassembler.abc(Decompiler.CALL, 0, 1, 1);
+    code[8] = TestDisassembler.abc(Decompiler.RETURN, 0, 1, 0);
+    function = new LFunction(code, new LLocal[] {TestDisassembler.local("a", 1, 6), TestDisassembler.local("b", 2, 6)}, constants, new String[0], new LFunction[0], 5, 0, 0, 2);
+    check.check("straight line scope", Check.decompile(function).equals("do\n  local a = 1\n  local b = \"x\"\n  print(a, b)\nend\nprint()\n"));
+  }
+  
+}
@@ -0,0 +1,78 @@
+package unluac.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ForkJoinPool;
+
+import unluac.decompile.Budget;
+import unluac.decompile.DecompileListener;
+import unluac.decompile.Decompiler;
+import unluac.parse.LFunction;
+
+public class TestStreaming {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    LFunction function = Check.parse(Check.chunk("wax"));
+    String expected = Check.decompile(function);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for(int parallel = 0; parallel < 2; parallel++) {
+        final StringBuilder s = new StringBuilder();
+        final int[] printed = {-1};
+        Decompiler d = new Decompiler(function, Check.output(s));
+        d.setStreaming(true);
+        d.setListener(new DecompileListener() {
+          
+          @Override
+          public void phase(String path, String phase, long nanos, long bytes) {
+            if(path.equals("main") && phase.equals("processSequence")) {
+              printed[0] = s.length();
+            }
+          }
+          
+          @Override
+          public void function(String path, LFunction function, int blocks, long nanos, long bytes) {
+          }
+          
+        });
+        if(parallel != 0) {
+          d.decompile(pool);
+        } else {
+          d.decompile();
+        }
+        /* Most of the text is out before main's statements are all built */
+        check.check(parallel != 0 ? "streaming parallel" : "streaming", s.toString().equals(expected) && printed[0] > expected.length() / 2);
+      }
+      /* The tree is left whole for the next decompile */
+      check.check("streaming keeps tree", Compare.function_equal(function, Check.parse(Check.chunk("wax"))) && Check.decompile(function).equals(expected));
+      /* With a budget the text is held until main is done, past 64K chars in a file */
+      LFunction large = Check.parse(ByteBuffer.wrap(TestServer.large()).order(ByteOrder.LITTLE_ENDIAN));
+      StringBuilder held = new StringBuilder();
+      Decompiler h = new Decompiler(large, Check.output(held));
+      h.setBudget(new Budget(0));
+      h.setStreaming(true);
+      h.decompile();
+      check.check("streaming held", held.length() > 1024 * 1024 && held.toString().equals(Check.decompile(large)));
+      /* Main fails on its last statement: nothing it streamed is shown */
+      LFunction broken = TestConstants.rebuild(function);
+      broken.code[broken.code.length - 2] = 63;
+      StringBuilder s = new StringBuilder();
+      Budget budget = new Budget(0);
+      Decompiler d = new Decompiler(broken, Check.output(s));
+      d.setBudget(budget);
+      d.setStreaming(true);
+      d.decompile();
+      check.check("streaming fallback", budget.failed() == 1 && s.toString().startsWith("-- main: not decompiled (Illegal instruction: 63), disassembly follows\n") && s.indexOf("\n-- main/0:\n") > 0);
+    } finally {
+      pool.shutdown();
+    }
+  }
+  
+}
@@ -0,0 +1,69 @@
+package unluac.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import unluac.decompile.ChannelOutputProvider;
+import unluac.decompile.Constant;
+import unluac.decompile.Output;
+import unluac.parse.BSizeT;
+import unluac.parse.LConstants;
+import unluac.parse.LFunction;
+import unluac.parse.LString;
+
+public class TestStrings {
+
+  public static void main(String[] args) throws IOException {
+    Check check = new Check();
+    run(check);
+    System.exit(check.finish());
+  }
+  
+  public static void run(Check check) throws IOException {
+    Map<String, LString> strings = new HashMap<String, LString>();
+    int[] counts = new int[2];
+    check.check("string pool", pooled(Check.parse(Check.chunk("wax")), strings, counts) && counts[1] > 0);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ChannelOutputProvider provider = new ChannelOutputProvider(Channels.newChannel(bytes));
+    Output out = new Output(provider);
+    new Constant(new LString(new BSizeT(0), new byte[] {'a', (byte) 0xE9, '"'})).print(out);
+    out.print(" ");
+    new Constant(new LString(new BSizeT(0), new byte[] {(byte) 0xE9, '\n', ']', ']', '\n', 'x'})).print(out);
+    provider.close();
+    byte[] expected = {
+      '"', 'a', '\\', '2', '3', '3', '\\', '"', '"', ' ',
+      '[', '=', '[', '\n', (byte) 0xE9, '\n', ']', ']', '\n', 'x', ']', '=', ']',
+    };
+    check.check("string bytes", Arrays.equals(bytes.toByteArray(), expected));
+    LString e1 = new LString(new BSizeT(0), new byte[] {(byte) 0xE9});
+    LString e2 = new LString(new BSizeT(0), new byte[] {(byte) 0xE9});
+    check.check("string equality", e1.equals(e2) && e1.hashCode() == e2.hashCode() && e1.deref().equals("\u00e9") && !e1.equals(new LString(new BSizeT(0), new byte[] {(byte) 0xEA})));
+  }
+  
+  /* Equal strings anywhere in the chunk are one LString; counts strings seen and shared */
+  static boolean pooled(LFunction function, Map<String, LString> strings, int[] counts) {
+    boolean passed = true;
+    for(int i = 0; i < function.constants.length(); i++) {
+      if(function.constants.type(i) == LConstants.STRING) {
+        LString string = function.constants.string(i);
+        LString seen = strings.get(string.deref());
+        if(seen == null) {
+          strings.put(string.deref(), string);
+        } else {
+          passed = passed && seen == string;
+          counts[1]++;
+        }
+        counts[0]++;
+      }
+    }
+    for(LFunction child : function.functions) {
+      passed = passed && pooled(child, strings, counts);
+    }
+    return passed;
+  }
+  
+}
@@ -0,0 +1,74 @@
+package unluac.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+public class BufferLoader {
+
+  private static final int MAX_STREAM_SIZE = Integer.MAX_VALUE - 8;
+
+  private static final int STREAM_CHUNK = 64 * 1024;
+
+  public static ByteBuffer load(String filename) throws IOException {
+    return load(new File(filename));
+  }
+
+  public static ByteBuffer load(File file) throws IOException {
+    ByteBuffer buffer;
+    if(file.isFile() && file.length() <= Integer.MAX_VALUE) {
+      buffer = map(file);
+    } else {
+      InputStream in = new FileInputStream(file);
+      try {
+        buffer = stream(in);
+      } finally {
+        in.close();
+      }
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    return buffer;
+  }
+
+  private static ByteBuffer map(File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } finally {
+      raf.close();
+    }
+  }
+
+  public static ByteBuffer stream(InputStream in) throws IOException {
+    ByteBuffer buffer = stream(in, MAX_STREAM_SIZE);
+    if(buffer.remaining() == MAX_STREAM_SIZE && in.read() >= 0) {
+      throw new IOException("input too large");
+    }
+    return buffer;
+  }
+
+  /* Reads no further than the limit, so the caller can refuse longer input */
+  public static ByteBuffer stream(InputStream in, int limit) throws IOException {
+    byte[] data = new byte[Math.min(STREAM_CHUNK, limit)];
+    int length = 0;
+    while(length < limit) {
+      if(length == data.length) {
+        int capacity = (int) Math.min((long) length * 2, limit);
+        byte[] grown = new byte[capacity];
+        System.arraycopy(data, 0, grown, 0, length);
+        data = grown;
+      }
+      int read = in.read(data, length, data.length - length);
+      if(read < 0) break;
+      length += read;
+    }
+    return ByteBuffer.wrap(data, 0, length).slice();
+  }
+
+}
@@ -0,0 +1,222 @@
+package unluac.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public class CSourceInputStream extends InputStream {
+
+  private static final int MAX_TOKEN = 64;
+
+  private final InputStream in;
+  private int lookahead = -2;
+  private int depth = 0;
+  private boolean lineStart = true;
+  private boolean string = false;
+  private boolean negative = false;
+  private final StringBuilder token = new StringBuilder();
+
+  /* Read a byte at a time, so the stream should be buffered */
+  public CSourceInputStream(InputStream in) {
+    this.in = in;
+  }
+
+  private int next() throws IOException {
+    if(lookahead != -2) {
+      int c = lookahead;
+      lookahead = -2;
+      return c;
+    }
+    return in.read();
+  }
+
+  private int peek() throws IOException {
+    if(lookahead == -2) {
+      lookahead = in.read();
+    }
+    return lookahead;
+  }
+
+  @Override
+  public int read() throws IOException {
+    while(true) {
+      int c = next();
+      if(c < 0) {
+        return -1;
+      }
+      if(string) {
+        if(c == '"' || c == '\n') {
+          string = false;
+        } else if(c == '\\') {
+          int value = escape();
+          if(value >= 0) {
+            return value;
+          }
+        } else {
+          return c;
+        }
+        continue;
+      }
+      if(c == '\n') {
+        lineStart = true;
+        negative = false;
+        continue;
+      }
+      if(c == ' ' || c == '\t' || c == '\r' || c == '\f') {
+        continue;
+      }
+      boolean preprocessor = lineStart && c == '#';
+      lineStart = false;
+      if(preprocessor) {
+        skipLine();
+      } else if(c == '/' && peek() == '*') {
+        next();
+        skipComment();
+      } else if(c == '/' && peek() == '/') {
+        skipLine();
+      } else if(c == '"') {
+        string = true;
+      } else if(c == '\'') {
+        int value = character();
+        if(depth > 0 && value >= 0) {
+          return 0xFF & (negative ? -value : value);
+        }
+      } else if(c == '{') {
+        depth++;
+      } else if(c == '}') {
+        if(depth > 0) depth--;
+      } else if(c == '-') {
+        negative = true;
+        continue;
+      } else if(isWordChar(c)) {
+        token.setLength(0);
+        token.append((char) c);
+        while(isWordChar(peek()) || peek() == '.' || ((peek() == '+' || peek() == '-') && isExponent(token))) {
+          c = next();
+          if(token.length() < MAX_TOKEN) {
+            token.append((char) c);
+          }
+        }
+        if(depth > 0 && token.charAt(0) >= '0' && token.charAt(0) <= '9') {
+          long value = integer(token);
+          if(value >= 0) {
+            boolean sign = negative;
+            negative = false;
+            return (int) (0xFF & (sign ? -value : value));
+          }
+        }
+      }
+      negative = false;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  private static boolean isWordChar(int c) {
+    return c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_';
+  }
+
+  /* Whether a sign would continue the token, as in 1e-5 */
+  private static boolean isExponent(StringBuilder token) {
+    char first = token.charAt(0);
+    char last = token.charAt(token.length() - 1);
+    boolean hex = token.length() > 1 && first == '0' && (token.charAt(1) == 'x' || token.charAt(1) == 'X');
+    return first >= '0' && first <= '9' && (hex ? last == 'p' || last == 'P' : last == 'e' || last == 'E');
+  }
+
+  private static long integer(StringBuilder token) {
+    int end = token.length();
+    while(end > 0 && "uUlL".indexOf(token.charAt(end - 1)) >= 0) {
+      end--;
+    }
+    int radix = 10;
+    int begin = 0;
+    if(end > 2 && token.charAt(0) == '0' && (token.charAt(1) == 'x' || token.charAt(1) == 'X')) {
+      radix = 16;
+      begin = 2;
+    } else if(end > 1 && token.charAt(0) == '0') {
+      radix = 8;
+      begin = 1;
+    }
+    if(begin == end || end - begin > 16) {
+      return -1;
+    }
+    long value = 0;
+    for(int i = begin; i < end; i++) {
+      int digit = Character.digit(token.charAt(i), radix);
+      if(digit < 0) {
+        return -1;
+      }
+      value = value * radix + digit;
+    }
+    return value;
+  }
+
+  private int character() throws IOException {
+    int value = -1;
+    while(true) {
+      int c = next();
+      if(c < 0 || c == '\n' || c == '\'') {
+        return value;
+      }
+      int v = c == '\\' ? escape() : c;
+      if(value < 0) {
+        value = v;
+      }
+    }
+  }
+
+  private int escape() throws IOException {
+    int c = next();
+    switch(c) {
+      case 'n': return '\n';
+      case 't': return '\t';
+      case 'r': return '\r';
+      case 'a': return 0x07;
+      case 'b': return '\b';
+      case 'f': return '\f';
+      case 'v': return 0x0B;
+      case '\n': return -1;
+      case 'x': {
+        int value = 0;
+        while(Character.digit(peek(), 16) >= 0) {
+          value = (value << 4) | Character.digit(next(), 16);
+        }
+        return 0xFF & value;
+      }
+      default:
+        if(c >= '0' && c <= '7') {
+          int value = c - '0';
+          for(int i = 1; i < 3 && peek() >= '0' && peek() <= '7'; i++) {
+            value = (value << 3) | (next() - '0');
+          }
+          return 0xFF & value;
+        }
+        return c < 0 ? -1 : c;
+    }
+  }
+
+  private void skipLine() throws IOException {
+    int c;
+    while((c = next()) >= 0 && c != '\n') {
+      if(c == '\\') {
+        next();
+      }
+    }
+    lineStart = true;
+  }
+
+  private void skipComment() throws IOException {
+    int c = next();
+    while(c >= 0) {
+      int d = next();
+      if(c == '*' && d == '/') {
+        return;
+      }
+      c = d;
+    }
+  }
+
+}
@@ -0,0 +1,276 @@
+package unluac.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class DiskCache {
+
+  private static final String SUFFIX = ".gz";
+  private static final String TEMPORARY = ".tmp";
+
+  /* Temporary files older than this were left by a failed run */
+  private static final long STALE = 60L * 60 * 1000;
+
+  private final File directory;
+  private final long capacity;
+  private final byte[] salt;
+
+  /* Approximate total size of the entries, or -1 until measured */
+  private final AtomicLong size = new AtomicLong(-1);
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evicted = new AtomicLong();
+  private final AtomicLong damaged = new AtomicLong();
+
+  public DiskCache(File directory, long capacity, String salt) throws IOException {
+    if(!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+      throw new IOException("cannot create directory " + directory.getPath());
+    }
+    this.directory = directory;
+    this.capacity = capacity;
+    this.salt = salt.getBytes(StandardCharsets.UTF_8);
+  }
+
+  public String key(ByteBuffer input) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch(NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    digest.update(salt);
+    digest.update((byte) 0);
+    digest.update(input.duplicate());
+    StringBuilder key = new StringBuilder(64);
+    for(byte b : digest.digest()) {
+      key.append(Character.forDigit((b >> 4) & 0xF, 16));
+      key.append(Character.forDigit(b & 0xF, 16));
+    }
+    return key.toString();
+  }
+
+  private File entry(String key) {
+    return new File(new File(directory, key.substring(0, 2)), key + SUFFIX);
+  }
+
+  public boolean read(String key, WritableByteChannel out) throws IOException {
+    File file = entry(key);
+    InputStream in;
+    try {
+      in = new FileInputStream(file);
+    } catch(FileNotFoundException e) {
+      misses.incrementAndGet();
+      return false;
+    }
+    byte[] bytes = new byte[64 * 1024];
+    int length = 0;
+    try {
+      InputStream gzip = new GZIPInputStream(in, 64 * 1024);
+      int read;
+      while((read = gzip.read(bytes, length, bytes.length - length)) >= 0) {
+        length += read;
+        if(length == bytes.length) {
+          bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+      }
+    } catch(IOException e) {
+      in.close();
+      file.delete();
+      damaged.incrementAndGet();
+      misses.incrementAndGet();
+      return false;
+    } finally {
+      in.close();
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+    while(buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+    file.setLastModified(System.currentTimeMillis());
+    hits.incrementAndGet();
+    return true;
+  }
+
+  public Writer write(String key, WritableByteChannel out) throws IOException {
+    return new Writer(key, out);
+  }
+
+  public class Writer implements WritableByteChannel {
+
+    private final String key;
+    private final WritableByteChannel out;
+    private final File temporary;
+    private final OutputStream gzip;
+    private final byte[] copy = new byte[16 * 1024];
+    private boolean open = true;
+
+    private Writer(String key, WritableByteChannel out) throws IOException {
+      this.key = key;
+      this.out = out;
+      File parent = entry(key).getParentFile();
+      if(!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+        throw new IOException("cannot create directory " + parent.getPath());
+      }
+      temporary = File.createTempFile(key, TEMPORARY, parent);
+      gzip = new GZIPOutputStream(new FileOutputStream(temporary), 64 * 1024) {
+
+        {
+          /* Compressing better would cost more than the space saved */
+          def.setLevel(Deflater.BEST_SPEED);
+        }
+
+      };
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      ByteBuffer view = src.duplicate();
+      int written = out.write(src);
+      view.limit(view.position() + written);
+      while(view.hasRemaining()) {
+        int count = Math.min(view.remaining(), copy.length);
+        view.get(copy, 0, count);
+        gzip.write(copy, 0, count);
+      }
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if(open) {
+        open = false;
+        gzip.close();
+      }
+    }
+
+    public void commit() throws IOException {
+      close();
+      if(size.get() < 0) {
+        measure();
+      }
+      File file = entry(key);
+      try {
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch(AtomicMoveNotSupportedException e) {
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      added(file.length());
+    }
+
+    public void abort() {
+      try {
+        close();
+      } catch(IOException e) {
+        /* The file is deleted either way */
+      }
+      temporary.delete();
+    }
+
+  }
+
+  private void added(long length) {
+    if(size.addAndGet(length) > capacity) {
+      evict();
+    }
+  }
+
+  private synchronized void measure() {
+    if(size.get() >= 0) {
+      return;
+    }
+    long total = 0;
+    for(File file : entries()) {
+      total += file.length();
+    }
+    size.set(total);
+  }
+
+  private synchronized void evict() {
+    if(size.get() <= capacity) {
+      return;
+    }
+    List<File> files = entries();
+    final long[] modified = new long[files.size()];
+    final long[] lengths = new long[files.size()];
+    Integer[] order = new Integer[files.size()];
+    long total = 0;
+    for(int i = 0; i < order.length; i++) {
+      order[i] = i;
+      modified[i] = files.get(i).lastModified();
+      lengths[i] = files.get(i).length();
+      total += lengths[i];
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+
+      @Override
+      public int compare(Integer i1, Integer i2) {
+        return Long.compare(modified[i1], modified[i2]);
+      }
+
+    });
+    long target = capacity / 10 * 9;
+    for(int i = 0; i < order.length && total > target; i++) {
+      if(files.get(order[i]).delete()) {
+        evicted.incrementAndGet();
+      }
+      total -= lengths[order[i]];
+    }
+    size.set(total);
+  }
+
+  private List<File> entries() {
+    File[] parents = directory.listFiles();
+    if(parents == null) {
+      return Collections.emptyList();
+    }
+    List<File> files = new ArrayList<File>();
+    long stale = System.currentTimeMillis() - STALE;
+    for(File parent : parents) {
+      File[] children = parent.isDirectory() ? parent.listFiles() : null;
+      if(children == null) continue;
+      for(File child : children) {
+        String name = child.getName();
+        if(name.endsWith(SUFFIX)) {
+          files.add(child);
+        } else if(name.endsWith(TEMPORARY) && child.lastModified() < stale) {
+          child.delete();
+        }
+      }
+    }
+    return files;
+  }
+
+  public String report() {
+    long h = hits.get();
+    long m = misses.get();
+    return String.format("disk cache: %d hits, %d misses (%.1f%% hit rate), %d evicted, %d damaged", h, m, h + m == 0 ? 0.0 : 100.0 * h / (h + m), evicted.get(), damaged.get());
+  }
+
+}
@@ -0,0 +1,59 @@
+package unluac.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+
+  /* Bucket i holds latencies below 2^i microseconds; the last holds the rest */
+  private static final int BUCKETS = 40;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong total = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  public void record(long nanos) {
+    long micros = Math.max(nanos / 1000, 0);
+    int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+    counts.incrementAndGet(bucket);
+    total.addAndGet(nanos);
+    long previous;
+    while(nanos > (previous = max.get()) && !max.compareAndSet(previous, nanos));
+  }
+
+  public long count() {
+    long count = 0;
+    for(int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  public long percentile(double fraction) {
+    long[] snapshot = new long[BUCKETS];
+    long count = 0;
+    for(int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      count += snapshot[i];
+    }
+    if(count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(fraction * count);
+    long seen = 0;
+    for(int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if(seen >= rank && snapshot[i] != 0) {
+        return Math.min((1L << i) * 1000, max.get());
+      }
+    }
+    return max.get();
+  }
+
+  public String report() {
+    long count = count();
+    return String.format("%d, mean %.2f ms, p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms",
+      count, count == 0 ? 0.0 : total.get() / 1e6 / count, percentile(0.5) / 1e6, percentile(0.9) / 1e6, percentile(0.99) / 1e6, max.get() / 1e6);
+  }
+
+}
@@ -0,0 +1,30 @@
+package unluac.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public class ThreadAllocation {
+
+  private static final com.sun.management.ThreadMXBean bean = find();
+
+  private static com.sun.management.ThreadMXBean find() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if(threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+      if(allocation.isThreadAllocatedMemorySupported()) {
+        allocation.setThreadAllocatedMemoryEnabled(true);
+        return allocation;
+      }
+    }
+    return null;
+  }
+
+  public static boolean isSupported() {
+    return bean != null;
+  }
+
+  public static long current() {
+    return bean != null ? bean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+  }
+
+}
@@ -0,0 +1,1875 @@
+package.preload["wax.enums"] = function()
+  UIViewContentModeScaleToFill = 0
+  UIViewContentModeScaleAspectFit = 1
+  UIViewContentModeScaleAspectFill = 2
+  UIViewContentModeRedraw = 3
+  UIViewContentModeCenter = 4
+  UIViewContentModeTop = 5
+  UIViewContentModeBottom = 6
+  UIViewContentModeLeft = 7
+  UIViewContentModeRight = 8
+  UIViewContentModeTopLeft = 9
+  UIViewContentModeTopRight = 10
+  UIViewContentModeBottomLeft = 11
+  UIViewContentModeBottomRight = 12
+  UIBarButtonItemStylePlain = 0
+  UIBarButtonItemStyleBordered = 1
+  UIBarButtonItemStyleDone = 2
+  UIButtonTypeCustom = 0
+  UIButtonTypeRoundedRect = 1
+  UIButtonTypeDetailDisclosure = 2
+  UIButtonTypeInfoLight = 3
+  UIButtonTypeInfoDark = 4
+  UIButtonTypeContactAdd = 5
+  UILineBreakModeWordWrap = 0
+  UILineBreakModeCharacterWrap = 1
+  UILineBreakModeClip = 2
+  UILineBreakModeHeadTruncation = 3
+  UILineBreakModeTailTruncation = 4
+  UILineBreakModeMiddleTruncation = 5
+  UITableViewCellSelectionStyleNone = 0
+  UITableViewCellSelectionStyleBlue = 1
+  UITableViewCellSelectionStyleGray = 2
+  UITableViewCellStyleDefault = 0
+  UITableViewCellStyleValue1 = 1
+  UITableViewCellStyleValue2 = 2
+  UITableViewCellStyleSubtitle = 3
+  UITableViewCellAccessoryNone = 0
+  UITableViewCellAccessoryDisclosureIndicator = 1
+  UITableViewCellAccessoryDetailDisclosureButton = 2
+  UITableViewCellAccessoryCheckmark = 3
+  UIActivityIndicatorViewStyleWhiteLarge = 0
+  UIActivityIndicatorViewStyleWhite = 1
+  UIActivityIndicatorViewStyleGray = 2
+  UITableViewStylePlain = 0
+  UITableViewStyleGrouped = 1
+  UIControlStateNormal = 0
+  UIControlStateHighlighted = 1
+  UIControlStateDisabled = 2
+  UIControlStateSelected = 4
+  UIControlStateApplication = 16711680
+  UIControlStateReserved = 4278190080
+  NSASCIIStringEncoding = 1
+  NSNEXTSTEPStringEncoding = 2
+  NSJapaneseEUCStringEncoding = 3
+  NSUTF8StringEncoding = 4
+  NSISOLatin1StringEncoding = 5
+  NSSymbolStringEncoding = 6
+  NSNonLossyASCIIStringEncoding = 7
+  NSShiftJISStringEncoding = 8
+  NSISOLatin2StringEncoding = 9
+  NSUnicodeStringEncoding = 10
+  NSWindowsCP1251StringEncoding = 11
+  NSWindowsCP1252StringEncoding = 12
+  NSWindowsCP1253StringEncoding = 13
+  NSWindowsCP1254StringEncoding = 14
+  NSWindowsCP1250StringEncoding = 15
+  NSISO2022JPStringEncoding = 21
+  NSMacOSRomanStringEncoding = 30
+  NSUTF16BigEndianStringEncoding = 2415919360
+  NSUTF16LittleEndianStringEncoding = 2483028224
+  NSUTF32StringEncoding = 2348810496
+  NSUTF32BigEndianStringEncoding = 2550137088
+  NSUTF32LittleEndianStringEncoding = 2617245952
+  NSProprietaryStringEncoding = 65536
+  UITextAlignmentLeft = 0
+  UITextAlignmentCenter = 1
+  UITextAlignmentRight = 2
+  UILineBreakModeWordWrap = 0
+  UILineBreakModeCharacterWrap = 1
+  UILineBreakModeClip = 2
+  UILineBreakModeHeadTruncation = 3
+  UILineBreakModeTailTruncation = 4
+  UILineBreakModeMiddleTruncation = 5
+  UIModalTransitionStyleCoverVertical = 0
+  UIModalTransitionStyleFlipHorizontal = 1
+  UIModalTransitionStyleCrossDissolve = 2
+  UIKeyboardTypeDefault = 0
+  UIKeyboardTypeASCIICapable = 1
+  UIKeyboardTypeNumbersAndPunctuation = 2
+  UIKeyboardTypeURL = 3
+  UIKeyboardTypeNumberPad = 4
+  UIKeyboardTypePhonePad = 5
+  UIKeyboardTypeNamePhonePad = 6
+  UIKeyboardTypeEmailAddress = 7
+  UIKeyboardTypeAlphabet = UIKeyboardTypeASCIICapable
+  UIReturnKeyDefault = 0
+  UIReturnKeyGo = 1
+  UIReturnKeyGoogle = 2
+  UIReturnKeyJoin = 3
+  UIReturnKeyNext = 4
+  UIReturnKeyRoute = 5
+  UIReturnKeySearch = 6
+  UIReturnKeySend = 7
+  UIReturnKeyYahoo = 8
+  UIReturnKeyDone = 9
+  UIReturnKeyEmergencyCall = 10
+  UIControlEventTouchDown = math.pow(2, 0)
+  UIControlEventTouchDownRepeat = math.pow(2, 1)
+  UIControlEventTouchDragInside = math.pow(2, 2)
+  UIControlEventTouchDragOutside = math.pow(2, 3)
+  UIControlEventTouchDragEnter = math.pow(2, 4)
+  UIControlEventTouchDragExit = math.pow(2, 5)
+  UIControlEventTouchUpInside = math.pow(2, 6)
+  UIControlEventTouchUpOutside = math.pow(2, 7)
+  UIControlEventTouchCancel = math.pow(2, 8)
+  UIControlEventValueChanged = math.pow(2, 12)
+  UIControlEventEditingDidBegin = math.pow(2, 16)
+  UIControlEventEditingChanged = math.pow(2, 17)
+  UIControlEventEditingDidEnd = math.pow(2, 18)
+  UIControlEventEditingDidEndOnExit = math.pow(2, 19)
+  UIControlEventAllTouchEvents = 4095
+  UIControlEventAllEditingEvents = 983040
+  UIControlEventApplicationReserved = 251658240
+  UIControlEventSystemReserved = 4026531840
+  UIControlEventAllEvents = 4294967295
+  UITableViewCellEditingStyleNone = 0
+  UITableViewCellEditingStyleDelete = 1
+  UITableViewCellEditingStyleInsert = 2
+  MFMailComposeResultCancelled = 0
+  MFMailComposeResultSaved = 1
+  MFMailComposeResultSent = 2
+  MFMailComposeResultFailed = 3
+  UIBarButtonSystemItemDone = 0
+  UIBarButtonSystemItemCancel = 1
+  UIBarButtonSystemItemEdit = 2
+  UIBarButtonSystemItemSave = 3
+  UIBarButtonSystemItemAdd = 4
+  UIBarButtonSystemItemFlexibleSpace = 5
+  UIBarButtonSystemItemFixedSpace = 6
+  UIBarButtonSystemItemCompose = 7
+  UIBarButtonSystemItemReply = 8
+  UIBarButtonSystemItemAction = 9
+  UIBarButtonSystemItemOrganize = 10
+  UIBarButtonSystemItemBookmarks = 11
+  UIBarButtonSystemItemSearch = 12
+  UIBarButtonSystemItemRefresh = 13
+  UIBarButtonSystemItemStop = 14
+  UIBarButtonSystemItemCamera = 15
+  UIBarButtonSystemItemTrash = 16
+  UIBarButtonSystemItemPlay = 17
+  UIBarButtonSystemItemPause = 18
+  UIBarButtonSystemItemRewind = 19
+  UIBarButtonSystemItemFastForward = 20
+  UIBarButtonSystemItemUndo = 21
+  UIBarButtonSystemItemRedo = 22
+  UITextBorderStyleNone = 0
+  UITextBorderStyleLine = 1
+  UITextBorderStyleBezel = 2
+  UITextBorderStyleRoundedRect = 3
+  UITableViewScrollPositionNone = 0
+  UITableViewScrollPositionTop = 1
+  UITableViewScrollPositionMiddle = 2
+  UITableViewScrollPositionBottom = 3
+  UIKeyboardAppearanceDefault = 0
+  UIKeyboardAppearanceAlert = 1
+  UITextFieldViewModeNever = 0
+  UITextFieldViewModeWhileEditing = 1
+  UITextFieldViewModeUnlessEditing = 2
+  UITextFieldViewModeAlways = 3
+  UITextAutocorrectionTypeDefault = 0
+  UITextAutocorrectionTypeNo = 1
+  UITextAutocorrectionTypeYes = 2
+  UIBarStyleDefault = 0
+  UIBarStyleBlack = 1
+  UIBarStyleBlackOpaque = 1
+  UIBarStyleBlackTranslucent = 2
+  NSURLRequestUseProtocolCachePolicy = 0
+  NSURLRequestReloadIgnoringLocalCacheData = 1
+  NSURLRequestReloadIgnoringLocalAndRemoteCacheData = 4
+  NSURLRequestReloadIgnoringCacheData = NSURLRequestReloadIgnoringLocalCacheData
+  NSURLRequestReturnCacheDataElseLoad = 2
+  NSURLRequestReturnCacheDataDontLoad = 3
+  NSURLRequestReloadRevalidatingCacheData = 5
+  UISegmentedControlStylePlain = 0
+  UISegmentedControlStyleBordered = 1
+  UISegmentedControlStyleBar = 2
+  UIRemoteNotificationTypeNone = 0
+  UIRemoteNotificationTypeBadge = math.pow(2, 0)
+  UIRemoteNotificationTypeSound = math.pow(2, 1)
+  UIRemoteNotificationTypeAlert = math.pow(2, 2)
+  NSURLCredentialPersistenceNone = 0
+  NSURLCredentialPersistenceForSession = 1
+  NSURLCredentialPersistencePermanent = 2
+  UIDeviceOrientationUnknown = 0
+  UIDeviceOrientationPortrait = 1
+  UIDeviceOrientationPortraitUpsideDown = 2
+  UIDeviceOrientationLandscapeLeft = 3
+  UIDeviceOrientationLandscapeRight = 4
+  UIDeviceOrientationFaceUp = 5
+  UIDeviceOrientationFaceDown = 6
+  UIInterfaceOrientationPortrait = UIDeviceOrientationPortrait
+  UIInterfaceOrientationPortraitUpsideDown = UIDeviceOrientationPortraitUpsideDown
+  UIInterfaceOrientationLandscapeLeft = UIDeviceOrientationLandscapeRight
+  UIInterfaceOrientationLandscapeRight = UIDeviceOrientationLandscapeLeft
+  UIViewAnimationCurveEaseInOut = 0
+  UIViewAnimationCurveEaseIn = 1
+  UIViewAnimationCurveEaseOut = 2
+  UIViewAnimationCurveLinear = 3
+  UITableViewRowAnimationFade = 0
+  UITableViewRowAnimationRight = 1
+  UITableViewRowAnimationLeft = 2
+  UITableViewRowAnimationTop = 3
+  UITableViewRowAnimationBottom = 4
+  UITableViewRowAnimationNone = 5
+  UITableViewRowAnimationMiddle = 6
+  UIViewAnimationTransitionNone = 0
+  UIViewAnimationTransitionFlipFromLeft = 1
+  UIViewAnimationTransitionFlipFromRight = 2
+  UIViewAnimationTransitionCurlUp = 3
+  UIViewAnimationTransitionCurlDown = 4
+  UIViewAutoresizingNone = 0
+  UIViewAutoresizingFlexibleLeftMargin = math.pow(2, 0)
+  UIViewAutoresizingFlexibleWidth = math.pow(2, 1)
+  UIViewAutoresizingFlexibleRightMargin = math.pow(2, 2)
+  UIViewAutoresizingFlexibleTopMargin = math.pow(2, 3)
+  UIViewAutoresizingFlexibleHeight = math.pow(2, 4)
+  UIViewAutoresizingFlexibleBottomMargin = math.pow(2, 5)
+  UIWebViewNavigationTypeLinkClicked = 0
+  UIWebViewNavigationTypeFormSubmitted = 1
+  UIWebViewNavigationTypeBackForward = 2
+  UIWebViewNavigationTypeReload = 3
+  UIWebViewNavigationTypeFormResubmitted = 4
+  UIWebViewNavigationTypeOther = 5
+  NSHTTPCookieAcceptPolicyAlways = 0
+  NSHTTPCookieAcceptPolicyNever = 1
+  NSHTTPCookieAcceptPolicyOnlyFromMainDocumentDomain = 2
+  SKPaymentTransactionStatePurchasing = 0
+  SKPaymentTransactionStatePurchased = 1
+  SKPaymentTransactionStateFailed = 2
+  SKPaymentTransactionStateRestored = 3
+  SKErrorUnknown = 0
+  SKErrorClientInvalid = 1
+  SKErrorPaymentCancelled = 2
+  SKErrorPaymentInvalid = 3
+  SKErrorPaymentNotAllowed = 4
+  UIStatusBarStyleDefault = 0
+  UIStatusBarStyleBlackTranslucent = 1
+  UIStatusBarStyleBlackOpaque = 2
+  UIControlContentHorizontalAlignmentCenter = 0
+  UIControlContentHorizontalAlignmentLeft = 1
+  UIControlContentHorizontalAlignmentRight = 2
+  UIControlContentHorizontalAlignmentFill = 3
+  GKPeerStateAvailable = 0
+  GKPeerStateUnavailable = 1
+  GKPeerStateConnected = 2
+  GKPeerStateDisconnected = 3
+  GKPeerStateConnecting = 4
+  GKSessionModeServer = 0
+  GKSessionModeClient = 1
+  GKSessionModePeer = 2
+  GKSendDataReliable = 0
+  GKSendDataUnreliable = 1
+  UIImagePickerControllerSourceTypePhotoLibrary = 0
+  UIImagePickerControllerSourceTypeCamera = 1
+  UIImagePickerControllerSourceTypeSavedPhotosAlbum = 2
+  NSOrderedAscending = -1
+  NSOrderedSame = 0
+  NSOrderedDescending = 1
+  UITableViewCellSeparatorStyleNone = 0
+  UITableViewCellSeparatorStyleSingleLine = 1
+  UITableViewCellSeparatorStyleSingleLineEtched = 2
+  kCLAuthorizationStatusNotDetermined = 0
+  kCLAuthorizationStatusRestricted = 1
+  kCLAuthorizationStatusDenied = 2
+  kCLAuthorizationStatusAuthorized = 3
+  UISwipeGestureRecognizerDirectionRight = math.pow(2, 0)
+  UISwipeGestureRecognizerDirectionLeft = math.pow(2, 1)
+  UISwipeGestureRecognizerDirectionUp = math.pow(2, 2)
+  UISwipeGestureRecognizerDirectionDown = math.pow(2, 3)
+  UIControlContentHorizontalAlignmentCenter = 0
+  UIControlContentHorizontalAlignmentLeft = 1
+  UIControlContentHorizontalAlignmentRight = 2
+  UIControlContentHorizontalAlignmentFill = 3
+  UIControlContentVerticalAlignmentCenter = 0
+  UIControlContentVerticalAlignmentTop = 1
+  UIControlContentVerticalAlignmentBottom = 2
+  UIControlContentVerticalAlignmentFill = 3
+  UIEventTypeTouches = 0
+  UIEventTypeMotion = 1
+  UIEventTypeRemoteControl = 2
+end
+package.preload["wax.ext.http"] = function()
+  if not wax.http then
+    return
+  end
+  function wax.http.post(L0_2)
+    L0_2.method = "POST"
+    return wax.http.request(L0_2)
+  end
+  function wax.http.get(L0_2)
+    L0_2.method = "GET"
+    return wax.http.request(L0_2)
+  end
+  function wax.http.delete(L0_2)
+    L0_2.method = "DELETE"
+    return wax.http.request(L0_2)
+  end
+  function wax.http.put(L0_2)
+    L0_2.method = "PUT"
+    return wax.http.request(L0_2)
+  end
+  function wax.http.escapeParams(L0_2, L1_2)
+    if not L0_2 then
+      return nil
+    end
+    if type(L0_2) == "string" then
+      return L0_2
+    end
+    local L2_2 = table.map(L0_2, function(L0_3, L1_3)
+      if type(L0_3) == "table" then
+        return wax.http.escapeParams(L0_3, L1_3)
+      else
+        L0_3 = string.escape(tostring(L0_3))
+        if L1_2 then
+          if type(L1_3) == "number" then
+            L1_3 = string.format("%s[]", L1_2)
+          else
+            L1_3 = string.format("%s[%s]", L1_2, L1_3)
+          end
+        end
+        return L1_3 .. "=" .. L0_3
+      end
+    end)
+    return table.concat(L2_2, "&")
+  end
+end
+package.preload["wax.ext"] = function()
+  require("wax.ext.table")
+  require("wax.ext.string")
+  require("wax.ext.number")
+  require("wax.ext.http")
+end
+package.preload["wax.ext.number"] = function()
+  number = {}
+  local L0_1 = {
+    "January",
+    "February",
+    "March",
+    "April",
+    "May",
+    "June",
+    "July",
+    "August",
+    "September",
+    "October",
+    "November",
+    "December"
+  }
+  function number.toMonth(L0_2)
+    L0_2 = tonumber(L0_2)
+    return L0_1[L0_2]
+  end
+  function number.tocurrency(L0_2)
+    return "$" .. number.commaSeperate(L0_2)
+  end
+  function number.commaSeperate(L0_2)
+    local L1_2 = tostring(L0_2)
+    while true do
+      L1_2, k = string.gsub(L1_2, "^(-?%d+)(%d%d%d)", "%1,%2")
+      if k == 0 then
+        break
+      end
+    end
+    return L1_2
+  end
+end
+package.preload["wax.ext.string"] = function()
+  function string.unescape(L0_2)
+    L0_2 = string.gsub(L0_2, "+", " ")
+    L0_2 = string.gsub(L0_2, "%%(%x%x)", function(L0_3)
+      return string.char(tonumber(L0_3, 16))
+    end)
+    return L0_2
+  end
+  function string.split(L0_2, L1_2)
+    local L2_2 = {}
+    for L6_2 in string.gmatch(L0_2, "([^" .. (L1_2 or " ") .. "]+)") do
+      table.insert(L2_2, L6_2)
+    end
+    return L2_2
+  end
+  function string.strip(L0_2, L1_2)
+    L1_2 = L1_2 or "%s+"
+    L0_2 = L0_2:gsub("^" .. L1_2, "")
+    L0_2 = L0_2:gsub(L1_2 .. "$", "")
+    return L0_2
+  end
+  function string.camelCase(L0_2)
+    local L1_2 = L0_2:split("_-")
+    local L2_2 = table.remove(L1_2, 1)
+    for L6_2, L7_2 in ipairs(L1_2) do
+      L2_2 = L2_2 .. L7_2:sub(1, 1):upper() .. L7_2:sub(2)
+    end
+    return L2_2
+  end
+  function string.escape(L0_2)
+    L0_2 = string.gsub(L0_2, "([!%*'%(%);:@&=%+%$,/%?#%[%]<>~%.\"{}|\\%-`_%^%%%c])", function(L0_3)
+      return string.format("%%%02X", string.byte(L0_3))
+    end)
+    L0_2 = string.gsub(L0_2, " ", "+")
+    return L0_2
+  end
+  function string.decodeEntities(L0_2)
+    local L1_2 = {
+      iexcl = "\194\161",
+      iquest = "\194\191",
+      acute = "\194\180",
+      sup2 = "\194\178",
+      para = "\194\182",
+      lt = "<",
+      cent = "\194\162",
+      frac14 = "\194\188",
+      frac12 = "\194\189",
+      quot = "\"",
+      frac34 = "\194\190",
+      apos = "'",
+      plusmn = "\194\177",
+      sect = "\194\167",
+      ordf = "\194\170",
+      laquo = "\194\171",
+      divide = "\195\183",
+      raquo = "\194\187",
+      gt = ">",
+      ordm = "\194\186",
+      cedil = "\194\184",
+      sup1 = "\194\185",
+      macr = "\194\175",
+      shy = "\194\173",
+      sup3 = "\194\179",
+      reg = "\194\174",
+      yen = "\194\165",
+      pound = "\194\163",
+      uml = "\194\168",
+      nbsp = " ",
+      brvbar = "\194\166",
+      copy = "\194\169",
+      amp = "&",
+      deg = "\194\176",
+      curren = "\194\164",
+      times = "\195\151",
+      micro = "\194\181",
+      middot = "\194\183"
+    }
+    return string.gsub(L0_2, "&(%w+);", L1_2)
+  end
+  function string.caseInsensitive(L0_2)
+    L0_2 = string.gsub(L0_2, "%a", function(L0_3)
+      return string.format("[%s%s]", string.lower(L0_3), string.upper(L0_3))
+    end)
+    return L0_2
+  end
+end
+package.preload["wax.ext.table"] = function()
+  function table.clone(L0_2, L1_2)
+    local L2_2 = {}
+    if not L1_2 then
+      setmetatable(L2_2, getmetatable(L0_2))
+    end
+    for L6_2, L7_2 in pairs(L0_2) do
+      if type(L7_2) == "table" then
+        L2_2[L6_2] = table.clone(L7_2)
+      else
+        L2_2[L6_2] = L7_2
+      end
+    end
+    return L2_2
+  end
+  function table.merge(L0_2, L1_2)
+    local L2_2 = table.clone(L0_2)
+    for L6_2, L7_2 in pairs(L1_2) do
+      L2_2[L6_2] = L7_2
+    end
+    return L2_2
+  end
+  function table.keys(L0_2)
+    local L1_2 = {}
+    for L5_2, L6_2 in pairs(L0_2) do
+      table.insert(L1_2, L5_2)
+    end
+    return L1_2
+  end
+  function table.unique(L0_2)
+    local L1_2 = {}
+    for L5_2, L6_2 in ipairs(L0_2) do
+      if not table.includes(L1_2, L6_2) then
+        table.insert(L1_2, L6_2)
+      end
+    end
+    return L1_2
+  end
+  function table.values(L0_2)
+    local L1_2 = {}
+    for L5_2, L6_2 in pairs(L0_2) do
+      table.insert(L1_2, L6_2)
+    end
+    return L1_2
+  end
+  function table.last(L0_2)
+    return L0_2[#L0_2]
+  end
+  function table.append(L0_2, L1_2)
+    for L5_2, L6_2 in ipairs(L1_2) do
+      table.insert(L0_2, L6_2)
+    end
+    return L0_2
+  end
+  function table.indexOf(L0_2, L1_2)
+    for L5_2, L6_2 in pairs(L0_2) do
+      if type(L1_2) == "function" then
+        if L1_2(L6_2) then
+          return L5_2
+        end
+      elseif L6_2 == L1_2 then
+        return L5_2
+      end
+    end
+    return nil
+  end
+  function table.includes(L0_2, L1_2)
+    return table.indexOf(L0_2, L1_2)
+  end
+  function table.removeValue(L0_2, L1_2)
+    local L2_2 = table.indexOf(L0_2, L1_2)
+    if L2_2 then
+      table.remove(L0_2, L2_2)
+    end
+    return L0_2
+  end
+  function table.each(L0_2, L1_2)
+    for L5_2, L6_2 in pairs(L0_2) do
+      L1_2(L6_2, L5_2)
+    end
+  end
+  function table.find(L0_2, L1_2)
+    for L5_2, L6_2 in pairs(L0_2) do
+      if L1_2(L6_2) then
+        return L6_2, L5_2
+      end
+    end
+    return nil
+  end
+  function table.filter(L0_2, L1_2)
+    local L2_2 = {}
+    for L6_2, L7_2 in pairs(L0_2) do
+      if L1_2(L7_2) then
+        table.insert(L2_2, L7_2)
+      end
+    end
+    return L2_2
+  end
+  function table.map(L0_2, L1_2)
+    local L2_2 = {}
+    for L6_2, L7_2 in pairs(L0_2) do
+      table.insert(L2_2, L1_2(L7_2, L6_2))
+    end
+    return L2_2
+  end
+  function table.groupBy(L0_2, L1_2)
+    local L2_2 = {}
+    for L6_2, L7_2 in pairs(L0_2) do
+      local L8_2 = L1_2(L7_2)
+      if not L2_2[L8_2] then
+        L2_2[L8_2] = {}
+      end
+      table.insert(L2_2[L8_2], L7_2)
+    end
+    return L2_2
+  end
+  function table.tostring(L0_2, L1_2, L2_2, L3_2, L4_2)
+    L2_2 = L2_2 or 1000
+    L3_2 = L3_2 or 7
+    L4_2 = L4_2 or {}
+    local L5_2 = 0
+    local L6_2 = {}
+    if type(L0_2) == "table" then
+      for L10_2, L11_2 in ipairs(L4_2) do
+        if L0_2 == L11_2 then
+          return "<self>,\n"
+        end
+      end
+      table.insert(L4_2, L0_2)
+      table.insert(L6_2, "{\n")
+      for L10_2, L11_2 in pairs(L0_2) do
+        local L12_2 = (L1_2 or " ") .. (L1_2 or " ")
+        table.insert(L6_2, L12_2 .. tostring(L10_2) .. " = ")
+        if L11_2 == L0_2 then
+          break
+        end
+        table.insert(L6_2, (table.tostring(L11_2, L12_2, L2_2, L3_2, L4_2)))
+        L5_2 = L5_2 + 1
+        if L2_2 < L5_2 then
+          table.insert(L6_2, (L12_2 or "") .. "...\n")
+          break
+        end
+      end
+      if L1_2 then
+        break
+      end
+      table.insert(L6_2, (L1_2 or "") .. "},\n" or "}")
+    else
+      if type(L0_2) == "string" then
+        L0_2 = string.format("%q", L0_2)
+      end
+      table.insert(L6_2, tostring(L0_2) .. ",\n")
+    end
+    return table.concat(L6_2)
+  end
+end
+package.preload["wax.helpers.autoload"] = function()
+  function wax.autoload(...)
+    for L3_2, L4_2 in ipairs({
+      ...
+    }) do
+      local L5_2 = wax.filesystem.search(wax.root(L4_2), "lua$")
+      for L9_2, L10_2 in ipairs(L5_2) do
+        local L11_2 = L10_2:match(wax.root() .. "/(.*)%.lua$"):gsub("/", ".")
+        require(L11_2)
+      end
+    end
+  end
+end
+package.preload["wax.helpers.base64"] = function()
+  module("wax.base64", package.seeall)
+  function lsh(L0_2, L1_2)
+    return L0_2 * 2 ^ L1_2 % 256
+  end
+  function rsh(L0_2, L1_2)
+    return math.floor(L0_2 / 2 ^ L1_2) % 256
+  end
+  function bit(L0_2, L1_2)
+    return L0_2 % 2 ^ L1_2 - L0_2 % 2 ^ (L1_2 - 1) > 0
+  end
+  function lor(L0_2, L1_2)
+    result = 0
+    for L5_2 = 1, 8 do
+      result = result + ((bit(L0_2, L5_2) or bit(L1_2, L5_2)) == true and 2 ^ (L5_2 - 1) or 0)
+    end
+    return result
+  end
+  local L0_1 = {
+    "B",
+    "C",
+    "D",
+    "E",
+    "F",
+    "G",
+    "H",
+    "I",
+    "J",
+    "K",
+    "L",
+    "M",
+    "N",
+    "O",
+    "P",
+    "Q",
+    "R",
+    "S",
+    "T",
+    "U",
+    "V",
+    "W",
+    "X",
+    "Y",
+    "Z",
+    "a",
+    "b",
+    "c",
+    "d",
+    "e",
+    "f",
+    "g",
+    "h",
+    "i",
+    "j",
+    "k",
+    "l",
+    "m",
+    "n",
+    "o",
+    "p",
+    "q",
+    "r",
+    "s",
+    "t",
+    "u",
+    "v",
+    "w",
+    "x",
+    "y",
+    "z",
+    "0",
+    "1",
+    "2",
+    "3",
+    "4",
+    "5",
+    "6",
+    "7",
+    "8",
+    "9",
+    "+",
+    "/",
+    [0] = "A"
+  }
+  function encode(L0_2)
+    local L1_2 = {}
+    local L2_2 = ""
+    for L6_2 = 0, string.len(L0_2) - 1, 3 do
+      for L10_2 = 1, 3 do
+        L1_2[L10_2] = string.byte(string.sub(L0_2, L6_2 + L10_2)) or 0
+      end
+      L2_2 = string.format("%s%s%s%s%s", L2_2, L0_1[rsh(L1_2[1], 2)], L0_1[lor(lsh(L1_2[1] % 4, 4), rsh(L1_2[2], 4))] or "=", #L0_2 - L6_2 > 1 and L0_1[lor(lsh(L1_2[2] % 16, 2), rsh(L1_2[3], 6))] or "=", #L0_2 - L6_2 > 2 and L0_1[L1_2[3] % 64] or "=")
+    end
+    return L2_2
+  end
+  local L1_1 = {
+    ["p"] = 41,
+    ["G"] = 6,
+    ["I"] = 8,
+    ["2"] = 54,
+    ["M"] = 12,
+    ["3"] = 55,
+    ["o"] = 40,
+    ["n"] = 39,
+    ["P"] = 15,
+    ["i"] = 34,
+    ["O"] = 14,
+    ["U"] = 20,
+    ["q"] = 42,
+    ["1"] = 53,
+    ["m"] = 38,
+    ["Q"] = 16,
+    ["0"] = 52,
+    ["l"] = 37,
+    ["u"] = 46,
+    ["a"] = 26,
+    ["7"] = 59,
+    ["j"] = 35,
+    ["/"] = 63,
+    ["k"] = 36,
+    ["L"] = 11,
+    ["J"] = 9,
+    ["f"] = 31,
+    ["K"] = 10,
+    ["h"] = 33,
+    ["F"] = 5,
+    ["+"] = 62,
+    ["g"] = 32,
+    ["H"] = 7,
+    ["e"] = 30,
+    ["d"] = 29,
+    ["b"] = 27,
+    ["E"] = 4,
+    ["c"] = 28,
+    ["D"] = 3,
+    ["B"] = 1,
+    ["C"] = 2,
+    ["A"] = 0,
+    ["z"] = 51,
+    ["Z"] = 25,
+    ["v"] = 47,
+    ["y"] = 50,
+    ["x"] = 49,
+    ["V"] = 21,
+    ["Y"] = 24,
+    ["w"] = 48,
+    ["X"] = 23,
+    ["6"] = 58,
+    ["9"] = 61,
+    ["W"] = 22,
+    ["8"] = 60,
+    ["t"] = 45,
+    ["r"] = 43,
+    ["N"] = 13,
+    ["s"] = 44,
+    ["T"] = 19,
+    ["R"] = 17,
+    ["5"] = 57,
+    ["S"] = 18,
+    ["4"] = 56
+  }
+  function decode(L0_2)
+    local L1_2 = {}
+    local L2_2 = ""
+    for L6_2 = 0, string.len(L0_2) - 1, 4 do
+      for L10_2 = 1, 4 do
+        L1_2[L10_2] = L1_1[string.sub(L0_2, L6_2 + L10_2, L6_2 + L10_2) or "="]
+      end
+      L2_2 = L2_2 .. string.char(lor(lsh(L1_2[1], 2), rsh(L1_2[2], 4)))
+      L2_2 = L2_2 .. (L1_2[3] ~= nil and string.char(lor(lsh(L1_2[2], 4), rsh(L1_2[3], 2))) or "")
+      L2_2 = L2_2 .. (L1_2[4] ~= nil and string.char(lor(lsh(L1_2[3] % 4, 6), L1_2[4])) or "")
+    end
+    return L2_2
+  end
+end
+package.preload["wax.helpers.bit"] = function()
+  local L0_1, L1_1 = function(L0_2)
+    if L0_2 - math.floor(L0_2) > 0 then
+      error("trying to use bitwise operation on non-integer!")
+    end
+  end, nil
+  function L1_1(L0_2)
+    L0_1(L0_2)
+    if L0_2 < 0 then
+      return L1_1(bit.bnot(math.abs(L0_2)) + 1)
+    end
+    local L1_2 = {}
+    local L2_2 = 1
+    while L0_2 > 0 do
+      local L3_2 = math.mod(L0_2, 2)
+      if L3_2 == 1 then
+        L1_2[L2_2] = 1
+      else
+        L1_2[L2_2] = 0
+      end
+      L0_2 = (L0_2 - L3_2) / 2
+      L2_2 = L2_2 + 1
+    end
+    return L1_2
+  end
+  local L2_1 = function(L0_2)
+    local L1_2 = table.getn(L0_2)
+    local L2_2 = 0
+    local L3_2 = 1
+    for L7_2 = 1, L1_2 do
+      L2_2 = L2_2 + L0_2[L7_2] * L3_2
+      L3_2 = L3_2 * 2
+    end
+    return L2_2
+  end
+  local L3_1, L4_1 = function(L0_2, L1_2)
+    local L2_2 = {}
+    local L3_2 = {}
+    if table.getn(L0_2) > table.getn(L1_2) then
+      L2_2 = L0_2
+      L3_2 = L1_2
+    else
+      L2_2 = L1_2
+      L3_2 = L0_2
+    end
+    for L7_2 = table.getn(L3_2) + 1, table.getn(L2_2) do
+      L3_2[L7_2] = 0
+    end
+  end, nil
+  function L4_1(L0_2, L1_2, ...)
+    local L2_2 = L1_1(L0_2)
+    local L3_2 = L1_1(L1_2)
+    L3_1(L2_2, L3_2)
+    local L4_2 = {}
+    local L5_2 = math.max(table.getn(L2_2), table.getn(L3_2))
+    for L9_2 = 1, L5_2 do
+      if L2_2[L9_2] == 0 and L3_2[L9_2] == 0 then
+        L4_2[L9_2] = 0
+      else
+        L4_2[L9_2] = 1
+      end
+    end
+    local L6_2 = L2_1(L4_2)
+    if (...) then
+      local L7_2 = {
+        ...
+      }
+      local L8_2 = table.remove(L7_2, 1)
+      return L4_1(L6_2, L8_2, #L7_2 > 0 and L7_2 or nil)
+    else
+      return L6_2
+    end
+  end
+  local L5_1
+  function L5_1(L0_2, L1_2, ...)
+    local L2_2 = L1_1(L0_2)
+    local L3_2 = L1_1(L1_2)
+    L3_1(L2_2, L3_2)
+    local L4_2 = {}
+    local L5_2 = math.max(table.getn(L2_2), table.getn(L3_2))
+    for L9_2 = 1, L5_2 do
+      if L2_2[L9_2] == 0 or L3_2[L9_2] == 0 then
+        L4_2[L9_2] = 0
+      else
+        L4_2[L9_2] = 1
+      end
+    end
+    local L6_2 = L2_1(L4_2)
+    if (...) then
+      local L7_2 = {
+        ...
+      }
+      local L8_2 = table.remove(L7_2, 1)
+      return L5_1(L6_2, L8_2, #L7_2 > 0 and L7_2 or nil)
+    else
+      return L6_2
+    end
+  end
+  local L6_1 = function(L0_2)
+    local L1_2 = L1_1(L0_2)
+    local L2_2 = math.max(table.getn(L1_2), 32)
+    for L6_2 = 1, L2_2 do
+      if L1_2[L6_2] == 1 then
+        L1_2[L6_2] = 0
+      else
+        L1_2[L6_2] = 1
+      end
+    end
+    return L2_1(L1_2)
+  end
+  local L7_1 = function(L0_2, L1_2)
+    local L2_2 = L1_1(L0_2)
+    local L3_2 = L1_1(L1_2)
+    L3_1(L2_2, L3_2)
+    local L4_2 = {}
+    local L5_2 = math.max(table.getn(L2_2), table.getn(L3_2))
+    for L9_2 = 1, L5_2 do
+      if L2_2[L9_2] ~= L3_2[L9_2] then
+        L4_2[L9_2] = 1
+      else
+        L4_2[L9_2] = 0
+      end
+    end
+    return L2_1(L4_2)
+  end
+  local L8_1 = function(L0_2, L1_2)
+    L0_1(L0_2)
+    local L2_2 = 0
+    if L0_2 < 0 then
+      L0_2 = L6_1(math.abs(L0_2)) + 1
+      L2_2 = 2147483648
+    end
+    for L6_2 = 1, L1_2 do
+      L0_2 = L0_2 / 2
+      L0_2 = L4_1(math.floor(L0_2), L2_2)
+    end
+    return math.floor(L0_2)
+  end
+  local L9_1 = function(L0_2, L1_2)
+    L0_1(L0_2)
+    if L0_2 < 0 then
+      L0_2 = L6_1(math.abs(L0_2)) + 1
+    end
+    for L5_2 = 1, L1_2 do
+      L0_2 = L0_2 / 2
+    end
+    return math.floor(L0_2)
+  end
+  local L10_1 = function(L0_2, L1_2)
+    L0_1(L0_2)
+    if L0_2 < 0 then
+      L0_2 = L6_1(math.abs(L0_2)) + 1
+    end
+    for L5_2 = 1, L1_2 do
+      L0_2 = L0_2 * 2
+    end
+    return L5_1(L0_2, 4294967295)
+  end
+  local L11_1 = function(L0_2, L1_2)
+    local L2_2 = L4_1(L6_1(L0_2), L6_1(L1_2))
+    local L3_2 = L4_1(L0_2, L1_2)
+    return (L5_1(L3_2, L2_2))
+  end
+  wax.bit = {
+    bnot = L6_1,
+    band = L5_1,
+    bor = L4_1,
+    bxor = L7_1,
+    brshift = L8_1,
+    blshift = L10_1,
+    bxor2 = L11_1,
+    blogic_rshift = L9_1,
+    tobits = L1_1,
+    tonumb = L2_1
+  }
+end
+package.preload["wax.helpers.cache"] = function()
+  wax.cache = {}
+  setmetatable(wax.cache, wax.cache)
+  function wax.cache.get(L0_2, L1_2)
+    local L2_2 = wax.cache.pathFor(L0_2)
+    if not wax.filesystem.isFile(L2_2) then
+      return nil
+    end
+    if L1_2 and L1_2 < os.time() - wax.filesystem.attributes(L2_2).modifiedAt then
+      return nil
+    end
+    local L3_2, L4_2 = pcall(function()
+      return NSKeyedUnarchiver:unarchiveObjectWithFile(L2_2)
+    end)
+    if not L3_2 then
+      puts("Error: Couldn't read cache with key %s", L0_2)
+      wax.cache.clear(L0_2)
+      return nil
+    else
+      return L4_2
+    end
+  end
+  function wax.cache.set(L0_2, L1_2)
+    local L2_2 = wax.cache.pathFor(L0_2)
+    if not L1_2 then
+      wax.cache.clear(L0_2)
+    elseif not NSKeyedArchiver:archiveRootObject_toFile(L1_2, L2_2) then
+      puts("Couldn't archive cache '%s' to '%s'", L0_2, L2_2)
+    end
+  end
+  function wax.cache.age(L0_2)
+    local L1_2 = wax.cache.pathFor(L0_2)
+    if not wax.filesystem.isFile(L1_2) then
+      return wax.time.days(1000)
+    end
+    return os.time() - wax.filesystem.attributes(L1_2).modifiedAt
+  end
+  function wax.cache.clear(...)
+    for L3_2, L4_2 in ipairs({
+      ...
+    }) do
+      local L5_2 = wax.cache.pathFor(L4_2)
+      wax.filesystem.delete(L5_2)
+    end
+  end
+  function wax.cache.clearAll()
+    wax.filesystem.delete(NSCacheDirectory)
+    wax.filesystem.createDir(NSCacheDirectory)
+  end
+  function wax.cache.pathFor(L0_2)
+    return NSCacheDirectory .. "/" .. wax.base64.encode(L0_2)
+  end
+end
+package.preload["wax.helpers.callback"] = function()
+  function wax.callback(L0_2)
+    local L1_2 = {
+      callback = L0_2,
+      cancel = function(L0_3)
+        L0_3.canceled = true
+      end,
+      __call = function(L0_3, ...)
+        if L0_3.canceled then
+          return
+        end
+        L0_3.callback(unpack(args))
+      end
+    }
+    setmetatable(L1_2, L1_2)
+    return L1_2
+  end
+end
+package.preload["wax.helpers.frame"] = function()
+  function wax.frame(L0_2)
+    return wax.dimensions(L0_2, "frame")
+  end
+  function wax.bounds(L0_2)
+    return wax.dimensions(L0_2, "bounds")
+  end
+  function wax.dimensions(L0_2, L1_2)
+    return setmetatable({
+      object = L0_2,
+      center = function(L0_3)
+        L0_3.x = (wax.dimensions(L0_3.object:superview(), L1_2).width - L0_3.width) / 2
+        return L0_3
+      end
+    }, {
+      __index = function(L0_3, L1_3)
+        if L1_3 == "y" then
+          L1_3 = "top"
+        elseif L1_3 == "x" then
+          L1_3 = "left"
+        end
+        if L1_2 == "frame" then
+          local L2_3 = L0_2:frame()
+        elseif not L2_3 then
+          L2_3 = L0_2
+          L2_3 = L2_3.bounds
+          L2_3 = L2_3(L2_3)
+        end
+        if L1_3 == "left" then
+          return L2_3.x
+        elseif L1_3 == "right" then
+          return L2_3.x + L2_3.width
+        elseif L1_3 == "top" then
+          return L2_3.y
+        elseif L1_3 == "bottom" then
+          return L2_3.y + L2_3.height
+        elseif L1_3 == "height" then
+          return L2_3.height
+        elseif L1_3 == "width" then
+          return L2_3.width
+        elseif L1_3 == "size" then
+          return CGSize(L2_3.width, L2_3.height)
+        elseif L1_3 == "origin" then
+          return CGPoint(L2_3.x, L2_3.y)
+        else
+          error("Unknown frame key: " .. L1_3)
+        end
+      end,
+      __newindex = function(L0_3, L1_3, L2_3)
+        if L1_3 == "y" then
+          L1_3 = "top"
+        elseif L1_3 == "x" then
+          L1_3 = "left"
+        end
+        if L1_2 == "frame" then
+          local L3_3 = L0_2:frame()
+        elseif not L3_3 then
+          L3_3 = L0_2
+          L3_3 = L3_3.bounds
+          L3_3 = L3_3(L3_3)
+        end
+        if L1_3 == "left" then
+          L3_3.x = L2_3
+        elseif L1_3 == "right" then
+          L3_3.x = L2_3 - L3_3.width
+        elseif L1_3 == "top" then
+          L3_3.y = L2_3
+        elseif L1_3 == "bottom" then
+          L3_3.y = L2_3 - L3_3.height
+        elseif L1_3 == "height" then
+          L3_3.height = L2_3
+        elseif L1_3 == "width" then
+          L3_3.width = L2_3
+        elseif L1_3 == "size" then
+          L3_3.width = L2_3.width
+          L3_3.height = L2_3.height
+        elseif L1_3 == "origin" then
+          L3_3.x = L2_3.x
+          L3_3.y = L2_3.y
+        elseif L1_3 == "stretchTop" then
+          L3_3.height = L3_3.height - (L2_3 - L3_3.y)
+          L3_3.y = L2_3
+        elseif L1_3 == "stretchBottom" then
+          L3_3.height = L3_3.height + (L2_3 - (L3_3.height + L3_3.y))
+        elseif L1_3 == "stretchRight" then
+          L3_3.width = L3_3.width + (L2_3 - (L3_3.width + L3_3.x))
+        else
+          error("Unknown frame key: " .. L1_3)
+        end
+        if L1_2 == "frame" then
+          L0_2:setFrame(L3_3)
+        else
+          L0_2:setBounds(L3_3)
+        end
+        return L0_3
+      end
+    })
+  end
+end
+package.preload["wax.helpers"] = function()
+  require("wax.helpers.bit")
+  require("wax.helpers.callback")
+  require("wax.helpers.frame")
+  require("wax.helpers.base64")
+  require("wax.helpers.time")
+  require("wax.helpers.cache")
+  require("wax.helpers.autoload")
+  require("wax.helpers.WaxServer")
+  require("wax.helpers.pickView")
+  function IBOutlet(...)
+  end
+  function wax.alert(L0_2, L1_2, ...)
+    local L2_2 = UIAlertView:init()
+    L2_2:setTitle(L0_2)
+    L2_2:setMessage(L1_2)
+    if not (...) then
+      L2_2:addButtonWithTitle("OK")
+    else
+      for L6_2, L7_2 in ipairs({
+        ...
+      }) do
+        L2_2:addButtonWithTitle(L7_2)
+      end
+    end
+    L2_2:show()
+    return L2_2
+  end
+  if not UIDevice:currentDevice():model():match("iPhone Simulator") then
+    function print(L0_2)
+      pcall(function()
+        wax.print(tostring(L0_2))
+      end)
+    end
+  end
+  function wax.tostring(L0_2, ...)
+    if type(L0_2) == "table" then
+      return table.tostring(L0_2)
+    end
+    if (...) then
+      L0_2 = string.format(tostring(L0_2), ...)
+    else
+      L0_2 = tostring(L0_2)
+    end
+    return L0_2
+  end
+  function puts(L0_2, ...)
+    print(wax.tostring(L0_2, ...))
+  end
+  function wax.guid()
+    return NSProcessInfo:processInfo():globallyUniqueString()
+  end
+  function wax.eval(L0_2)
+    return pcall(function()
+      if not L0_2:match("=") then
+        L0_2 = "do return (" .. L0_2 .. ") end"
+      end
+      local L0_3, L1_3 = loadstring(L0_2, "REPL")
+      if L1_3 then
+        error("Syntax Error: " .. L1_3)
+      else
+        puts(L0_3())
+      end
+    end)
+  end
+end
+package.preload["wax.helpers.pickView"] = function()
+  function startPick()
+    local L0_2 = UIApplication:sharedApplication():keyWindow()
+    _interceptor = InterceptorView:alloc():initWithFrame(L0_2:bounds())
+    L0_2:addSubview(_interceptor)
+    return "Go on, touch something. Get the view by calling endPick() when you're done."
+  end
+  function endPick()
+    local L0_2 = _interceptor:pickedView()
+    _interceptor:removeFromSuperview()
+    return L0_2
+  end
+  function CGRectContainsPoint(L0_2, L1_2)
+    return L0_2.x <= L1_2.x and L1_2.x <= L0_2.x + L0_2.width and L0_2.y <= L1_2.y and L1_2.y <= L0_2.y + L0_2.height
+  end
+  waxClass({
+    "InterceptorView",
+    UIView
+  })
+  function touchesEnded_withEvent(L0_2, L1_2, L2_2)
+    local L3_2 = L1_2:anyObject():locationInView(L0_2)
+    local L4_2 = UIApplication:sharedApplication():keyWindow()
+    local L5_2 = L4_2:convertPoint_fromView(L3_2, L0_2)
+    L0_2.pickedView_ = L0_2:findOwnerOfPoint_startingWith(L5_2, L4_2)
+    print(L0_2.pickedView_:class())
+  end
+  function pickedView(L0_2)
+    return L0_2.pickedView_
+  end
+  function findOwnerOfPoint_startingWith(L0_2, L1_2, L2_2)
+    if L2_2 == L0_2 then
+      return nil
+    end
+    if not CGRectContainsPoint(L2_2:bounds(), L1_2) then
+      return nil
+    end
+    local L3_2
+    for L7_2, L8_2 in ipairs(L2_2:subviews()) do
+      pointInSubview = L8_2:convertPoint_fromView(L1_2, L2_2)
+      L3_2 = L0_2:findOwnerOfPoint_startingWith(pointInSubview, L8_2) or L3_2
+    end
+    return L3_2 or L2_2
+  end
+end
+package.preload["wax.helpers.time"] = function()
+  wax.time = {}
+  function wax.time.minutes(L0_2)
+    return L0_2 * 60
+  end
+  function wax.time.hours(L0_2)
+    return L0_2 * wax.time.minutes(60)
+  end
+  function wax.time.days(L0_2)
+    return L0_2 * wax.time.hours(24)
+  end
+  function wax.time.formatDate(L0_2, L1_2)
+    if not wax.time._outputFormatter then
+      wax.time._outputFormatter = NSDateFormatter:init()
+      local L2_2 = NSLocale:initWithLocaleIdentifier("en_US_POSIX")
+      wax.time._outputFormatter:setLocale(L2_2)
+    end
+    wax.time._outputFormatter:setDateFormat(L1_2 or "MMMM d")
+    return wax.time._outputFormatter:stringFromDate(L0_2)
+  end
+  function wax.time.parseDate(L0_2, L1_2)
+    L0_2 = L0_2:gsub("Z$", " GMT")
+    if not wax.time._inputFormatter then
+      wax.time._inputFormatter = NSDateFormatter:init()
+      locale = NSLocale:initWithLocaleIdentifier("en_US_POSIX")
+      wax.time._inputFormatter:setLocale(locale)
+    end
+    wax.time._inputFormatter:setDateFormat(L1_2 or "yyyy-MM-dd'T'HH:mm:ss ZZZ")
+    return wax.time._inputFormatter:dateFromString(L0_2)
+  end
+  function wax.time.beginingOfDay(L0_2)
+    local L1_2 = NSCalendar:currentCalendar()
+    local L2_2 = L1_2:components_fromDate(-1, L0_2 or NSDate:date())
+    local L3_2 = NSDateComponents:init()
+    L3_2:setYear(L2_2:year())
+    L3_2:setMonth(L2_2:month())
+    L3_2:setDay(L2_2:day())
+    return L1_2:dateFromComponents(L3_2)
+  end
+  function wax.time.endOfDay(L0_2)
+    local L1_2 = NSCalendar:currentCalendar()
+    local L2_2 = L1_2:components_fromDate(-1, L0_2)
+    local L3_2 = NSDateComponents:init()
+    L3_2:setYear(L2_2:year())
+    L3_2:setMonth(L2_2:month())
+    L3_2:setDay(L2_2:day())
+    L3_2:setHour(24)
+    L3_2:setMinute(59)
+    L3_2:setSecond(59)
+    return L1_2:dateFromComponents(L3_2)
+  end
+  function wax.time.timeAgoInWords(L0_2, L1_2)
+    local L2_2 = L1_2 or NSDate:date():timeIntervalSince1970() - L0_2:timeIntervalSince1970()
+    local L3_2 = math.abs(L2_2)
+    local L4_2 = math.floor(L3_2 / 60)
+    local L5_2 = math.floor(L4_2 / 60)
+    local L6_2 = math.floor(L5_2 / 24)
+    local L7_2 = math.floor(L6_2 / 30)
+    if L4_2 <= 1 then
+      return "less than a minute"
+    elseif L4_2 <= 44 then
+      return string.format("%d minutes", L4_2)
+    elseif L4_2 <= 89 then
+      return "about 1 hour"
+    elseif L5_2 <= 24 then
+      return string.format("about %d hours", L5_2)
+    elseif L5_2 <= 47 then
+      return "1 day"
+    elseif L6_2 <= 29 then
+      return string.format("%d days", L6_2)
+    elseif L6_2 <= 59 then
+      return "about 1 month"
+    elseif L7_2 <= 15 then
+      return "about 1 year"
+    elseif L7_2 <= 22 then
+      return "over 1 year"
+    elseif years < 2 then
+      return "almost 2 years"
+    elseif L4_2 <= 1051199 then
+      return "about 1 year"
+    else
+      return string.format("over %d years", years)
+    end
+  end
+  function wax.time.since(L0_2, L1_2)
+    L1_2 = L1_2 or NSDate:date()
+    local L2_2 = L1_2:timeIntervalSince1970() - L0_2:timeIntervalSince1970()
+    local L3_2 = L0_2:timeIntervalSince1970() - wax.time.beginingOfDay():timeIntervalSince1970()
+    if L2_2 < wax.time.days(1) and L3_2 > 0 then
+      return wax.time.formatDate(L0_2, "h:mm a"), "at"
+    elseif L2_2 < wax.time.days(2) then
+      return "Yesterday", ""
+    elseif L2_2 < wax.time.days(7) then
+      return wax.time.formatDate(L0_2, "EEEE"), "on"
+    else
+      return wax.time.formatDate(L0_2, "MM/dd/yy"), "on"
+    end
+  end
+end
+package.preload["wax.helpers.WaxServer"] = function()
+  waxClass({"WaxServer"})
+  function start(L0_2)
+    L0_2.server = wax.class.wax_server:init()
+    local L1_2 = L0_2.server and L0_2.server:startOnPort(9000)
+    if L1_2 then
+      puts("Failed creating server: %s", L1_2 and L1_2:description() or "Server Not Created")
+      return L1_2
+    end
+    L0_2.server:setDelegate(L0_2)
+    local L2_2 = print
+    function _G.print(...)
+      L2_2(...)
+      local L0_3 = table.map({
+        ...
+      }, function(L0_4)
+        return tostring(L0_4)
+      end)
+      L0_2.server:send(table.concat(L0_3, "\t") .. "\n")
+    end
+    return nil
+  end
+  function showPrompt(L0_2)
+    L0_2.server:send("> ")
+  end
+  function connected(L0_2)
+    L0_2:showPrompt()
+  end
+  function disconnected(L0_2)
+    L0_2.server:send("GOODBYE!")
+  end
+  function dataReceived(L0_2, L1_2)
+    local L2_2 = NSString:initWithData_encoding(L1_2, NSASCIIStringEncoding)
+    local L3_2, L4_2 = wax.eval(L2_2)
+    if not L3_2 then
+      L0_2.server:send("Error: " .. L4_2 .. "\n")
+    end
+    L0_2:showPrompt()
+  end
+end
+package.preload["wax.init"] = function()
+  setmetatable(_G, {
+    __index = function(L0_2, L1_2)
+      local L2_2 = wax.class[L1_2]
+      if L2_2 then
+        L0_2[L1_2] = L2_2
+      end
+      if not L2_2 and L1_2:match("^[A-Z][A-Z][A-Z][^A-Z]") then
+        print("WARNING: No object named '" .. L1_2 .. "' found.")
+      end
+      return L2_2
+    end
+  })
+  require("wax.ext")
+  require("wax.enums")
+  require("wax.structs")
+  require("wax.waxClass")
+  require("wax.helpers")
+end
+package.preload["wax.luaspec"] = function()
+  require("wax.luaspec.luaspec")
+  require("wax.luaspec.luamock")
+end
+package.preload["wax.luaspec.luamock"] = function()
+  Mock = {
+    calls = {},
+    return_values = {}
+  }
+  setmetatable(Mock.calls, {__mode = "k"})
+  setmetatable(Mock.return_values, {__mode = "k"})
+  function Mock.__call(L0_2, ...)
+    Mock.calls[L0_2] = Mock.calls[L0_2] or {}
+    local L1_2 = Mock.calls[L0_2]
+    L1_2[#L1_2 + 1] = {
+      ...
+    }
+    local L2_2 = Mock.return_values[L0_2]
+    if L2_2 and L2_2[#L1_2] then
+      return unpack(L2_2[#L1_2])
+    end
+  end
+  function Mock.__index(L0_2, L1_2)
+    local L2_2 = Mock:new()
+    rawset(L0_2, L1_2, L2_2)
+    return L2_2
+  end
+  function Mock.new(L0_2)
+    local L1_2 = {
+      returns = L0_2.returns,
+      then_returns = L0_2.returns
+    }
+    setmetatable(L1_2, L0_2)
+    return L1_2
+  end
+  function Mock.returns(L0_2, ...)
+    if getmetatable(L0_2) ~= Mock then
+      error("returns must be called with : operator", 2)
+    end
+    local L1_2 = Mock.return_values[L0_2] or {}
+    L1_2[#L1_2 + 1] = {
+      ...
+    }
+    Mock.return_values[L0_2] = L1_2
+    return L0_2
+  end
+  matchers = matchers or {}
+  function matchers.was_called(L0_2, L1_2)
+    if getmetatable(L0_2) ~= Mock then
+      return false, "target must be a Mock"
+    end
+    local L2_2 = Mock.calls[L0_2] or {}
+    if #L2_2 ~= L1_2 then
+      return false, "expecting " .. tostring(L1_2) .. " calls, actually " .. #L2_2
+    end
+    return true
+  end
+  function matchers.was_called_with(L0_2, ...)
+    if getmetatable(L0_2) ~= Mock then
+      return false, "target must be a Mock"
+    end
+    local L1_2 = Mock.calls[L0_2] or {}
+    if #L1_2 ~= 1 then
+      return false, "expecting " .. tostring(1) .. " call, actually " .. #L1_2
+    end
+    local L2_2 = L1_2[1] or {}
+    local L3_2 = {
+      ...
+    }
+    if #L3_2 ~= #L2_2 then
+      return false, "expecting " .. #L3_2 .. " parameters, actually " .. #L2_2
+    end
+    for L7_2 = 1, #L3_2 do
+      if L3_2[L7_2] ~= L2_2[L7_2] then
+        return false, "expecting parameter #" .. tostring(L7_2) .. " to be " .. tostring(L3_2[L7_2]) .. " actually " .. tostring(L2_2[L7_2])
+      end
+    end
+    return true
+  end
+end
+package.preload["wax.luaspec.luaspec"] = function()
+  spec = {
+    passed = 0,
+    failed = 0,
+    pending = 0,
+    contexts = {}
+  }
+  Report = {}
+  Report.__index = Report
+  function Report.new(L0_2, L1_2)
+    local L2_2 = {
+      num_passed = L1_2.passed,
+      num_failed = L1_2.failed,
+      num_pending = L1_2.pending,
+      total = L1_2.passed + L1_2.failed + L1_2.pending,
+      results = {}
+    }
+    L2_2.percent = L2_2.num_passed / L2_2.total * 100
+    local L3_2 = L1_2.contexts
+    for L7_2 = 1, #L3_2 do
+      L2_2.results[L7_2] = {
+        name = L3_2[L7_2],
+        spec_results = L3_2[L3_2[L7_2]]
+      }
+    end
+    return L2_2
+  end
+  function spec.report(L0_2, L1_2)
+    local L2_2 = Report:new(L0_2)
+    if L2_2.num_failed ~= 0 or L1_2 then
+      for L6_2, L7_2 in pairs(L2_2.results) do
+        print(string.format("[[%s================================]]", L7_2.name))
+        for L11_2, L12_2 in pairs(L7_2.spec_results) do
+          if L12_2.passed then
+            local L13_2 = "pass"
+          else
+            L13_2 = "FAILED"
+          end
+          if L1_2 or not L1_2 or not L12_2.passed then
+            print(string.format("%-70s [ %s ]", L11_2, L13_2))
+            table.foreach(L12_2.errors, function(L0_3, L1_3)
+              print("   " .. L0_3 .. ". Failed expectation : " .. L1_3.message .. "   " .. L1_3.trace)
+            end)
+          end
+        end
+      end
+    end
+    local L3_2 = [[
+
+========== %s =============
+%s Failed
+%s Passed
+--------------------------------
+%s Run, %.2f%% Success rate
+]]
+    if L2_2.num_failed == 0 then
+    else
+    end
+    print(L3_2:format("Failure", L2_2.num_failed, L2_2.num_passed, L2_2.total, L2_2.percent))
+  end
+  function spec.add_results(L0_2, L1_2, L2_2, L3_2)
+    if L0_2.current.passed then
+      L0_2.current.passed = L1_2
+    end
+    if L1_2 then
+      L0_2.passed = L0_2.passed + 1
+    else
+      table.insert(L0_2.current.errors, {message = L2_2, trace = L3_2})
+      L0_2.failed = L0_2.failed + 1
+    end
+  end
+  function spec.add_context(L0_2, L1_2)
+    L0_2.contexts[#L0_2.contexts + 1] = L1_2
+    L0_2.contexts[L1_2] = {}
+  end
+  function spec.add_spec(L0_2, L1_2, L2_2)
+    L0_2.contexts[L1_2][L2_2] = {
+      passed = true,
+      errors = {}
+    }
+    L0_2.current = L0_2.contexts[L1_2][L2_2]
+  end
+  function spec.add_pending_spec(L0_2, L1_2, L2_2, L3_2)
+  end
+  local L0_1 = {
+    __newindex = function()
+      error("You can't set properties on pending")
+    end,
+    __index = function(L0_2, L1_2)
+      if L1_2 == "description" then
+        return nil
+      else
+        error("You can't get properties on pending")
+      end
+    end
+  }
+  function L0_1.__call(L0_2, L1_2)
+    local L2_2 = {description = L1_2}
+    setmetatable(L2_2, L0_1)
+    return L2_2
+  end
+  setmetatable(L0_1, L0_1)
+  matchers = {
+    should_be = function(L0_2, L1_2)
+      if L0_2 ~= L1_2 then
+        return false, "expecting " .. tostring(L1_2) .. ", not " .. tostring(L0_2)
+      end
+      return true
+    end,
+    should_not_be = function(L0_2, L1_2)
+      if L0_2 == L1_2 then
+        return false, "should not be " .. tostring(L0_2)
+      end
+      return true
+    end,
+    should_be_greater_than = function(L0_2, L1_2)
+      if L0_2 <= L1_2 then
+        return false, "got " .. tostring(L0_2) .. " expecting value > " .. tostring(L1_2)
+      end
+      return true
+    end,
+    should_be_less_than = function(L0_2, L1_2)
+      if L1_2 <= L0_2 then
+        return false, "got " .. tostring(L0_2) .. " expecting value < " .. tostring(L1_2)
+      end
+      return true
+    end,
+    should_error = function(L0_2)
+      if pcall(L0_2) then
+        return false, "expecting an error but received none"
+      end
+      return true
+    end,
+    should_match = function(L0_2, L1_2)
+      if type(L0_2) ~= "string" then
+        return false, "type error, should_match expecting target as string"
+      end
+      if not string.match(L0_2, L1_2) then
+        return false, L0_2 .. "doesn't match pattern " .. L1_2
+      end
+      return true
+    end,
+    should_be_kind_of = function(L0_2, L1_2)
+      if type(L0_2) == "userdata" then
+        if not L0_2:isKindOfClass(L1_2) then
+          return false, tostring(L0_2) .. " is not a " .. tostring(L1_2)
+        end
+      elseif type(L0_2) ~= L1_2 then
+        return false, type(L0_2) .. " is not a " .. tostring(L1_2)
+      end
+      return true
+    end,
+    should_exist = function(L0_2)
+      if not L0_2 then
+        return false, tostring(L0_2) .. " evaluates to false."
+      else
+        return true
+      end
+    end,
+    should_not_exist = function(L0_2)
+      if L0_2 then
+        return false, L0_2 .. " evaluates to true."
+      else
+        return true
+      end
+    end
+  }
+  matchers.should_equal = matchers.should_be
+  local L1_1 = function(L0_2)
+    return setmetatable({}, {
+      __index = function(L0_3, L1_3)
+        return function(...)
+          local L0_4, L1_4 = matchers[L1_3](L0_2, ...)
+          spec:add_results(L0_4, L1_4, debug.traceback())
+        end
+      end
+    })
+  end
+  Context = {}
+  Context.__index = Context
+  function Context.new(L0_2, L1_2)
+    for L5_2, L6_2 in ipairs(L1_2.children) do
+      L6_2.parent = L1_2
+    end
+    return setmetatable(L1_2, L0_2)
+  end
+  function Context.run_befores(L0_2, L1_2)
+    if L0_2.parent then
+      L0_2.parent:run_befores(L1_2)
+    end
+    if L0_2.before then
+      setfenv(L0_2.before, L1_2)
+      L0_2.before()
+    end
+  end
+  function Context.run_afters(L0_2, L1_2)
+    if L0_2.after then
+      setfenv(L0_2.after, L1_2)
+      L0_2.after()
+    end
+    if L0_2.parent then
+      L0_2.parent:run_afters(L1_2)
+    end
+  end
+  function Context.run(L0_2)
+    for L4_2, L5_2 in pairs(L0_2.specs) do
+      if getmetatable(L5_2) == L0_1 then
+      else
+        spec:add_spec(L0_2.name, L4_2)
+        local L6_2 = {}
+        local L7_2 = {
+          track_error = function(L0_3)
+            local L1_3 = pcall(L0_3)
+            return pcall(L0_3)
+          end,
+          expect = L1_1,
+          mock = function(L0_3, L1_3, L2_3)
+            L6_2[{table = L0_3, key = L1_3}] = L0_3[L1_3]
+            L0_3[L1_3] = L2_3 or Mock:new()
+            return L0_3[L1_3]
+          end
+        }
+        setmetatable(L7_2, {__index = _G})
+        L0_2:run_befores(L7_2)
+        setfenv(L5_2, L7_2)
+        local L8_2, L9_2
+        local L10_2 = xpcall(L5_2, function(L0_3)
+          L8_2 = L0_3
+          L9_2 = debug.traceback("", 2)
+        end)
+        L0_2:run_afters(L7_2)
+        if not L10_2 then
+          io.write("x")
+          spec:add_results(false, L8_2, L9_2)
+        else
+          io.write(".")
+        end
+        io.flush()
+        for L14_2, L15_2 in pairs(L6_2) do
+          L14_2.table[L14_2.key] = L15_2
+        end
+      end
+    end
+    for L4_2, L5_2 in pairs(L0_2.children) do
+      L5_2:run()
+    end
+  end
+  local L2_1 = function()
+    local L0_2 = {}
+    local L1_2 = {}
+    setmetatable(L1_2, {
+      __newindex = function(L0_3, L1_3, L2_3)
+        L0_2[L1_3] = L2_3
+      end
+    })
+    return L1_2, L0_2
+  end
+  local L3_1
+  local L4_1 = function()
+    local L0_2, L1_2 = L2_1()
+    local L2_2, L3_2 = L3_1()
+    return {
+      it = L0_2,
+      describe = L2_2,
+      pending = L0_1
+    }, L3_2, L1_2
+  end
+  function L3_1(L0_2)
+    local L1_2 = {}
+    local L2_2 = {}
+    local L3_2 = {
+      __newindex = function(L0_3, L1_3, L2_3)
+        spec:add_context(L1_3)
+        local L3_3, L4_3, L5_3 = L4_1()
+        setfenv(L2_3, L3_3)
+        L2_3()
+        L2_2[#L2_2 + 1] = Context:new({
+          name = L1_3,
+          before = L3_3.before,
+          after = L3_3.after,
+          specs = L5_3,
+          children = L4_3
+        })
+        if L0_2 then
+          L2_2[#L2_2]:run()
+        end
+      end
+    }
+    setmetatable(L1_2, L3_2)
+    return L1_2, L2_2
+  end
+  describe = L3_1(true)
+end
+package.preload["wax.repl"] = function()
+  local L0_1
+  repeat
+    io.write("wax> ")
+    L0_1 = io.read()
+    local L1_1, L2_1 = wax.eval(L0_1)
+    if not L1_1 then
+      print("Error: " .. L2_1)
+    end
+  until not L0_1
+end
+package.preload["wax.structs"] = function()
+  wax.struct.create("CGSize", "ff", "width", "height")
+  wax.struct.create("CGPoint", "ff", "x", "y")
+  wax.struct.create("UIEdgeInsets", "ffff", "top", "left", "bottom", "right")
+  wax.struct.create("CGRect", "ffff", "x", "y", "width", "height")
+  wax.struct.create("NSRange", "II", "location", "length")
+  wax.struct.create("CLLocationCoordinate2D", "dd", "latitude", "longitude")
+  wax.struct.create("MKCoordinateSpan", "dd", "latitudeDelta", "longitudeDelta")
+  wax.struct.create("MKCoordinateRegion", "dddd", "latitude", "longitude", "latitudeDelta", "longitudeDelta")
+  wax.struct.create("CGAffineTransform", "ffffff", "a", "b", "c", "d", "tx", "ty")
+end
+package.preload["wax.waxClass"] = function()
+  function waxClass(L0_2)
+    local L1_2 = waxInlineClass(L0_2)
+    setfenv(2, L1_2._M)
+    return L1_2
+  end
+  function waxInlineClass(L0_2)
+    local L1_2 = L0_2[1]
+    local L2_2 = L0_2[2]
+    local wax.class(L1_2, L2_2).className, L3_2 = L1_2, wax.class(L1_2, L2_2)
+    if L0_2.protocols then
+      if type(L0_2.protocols) ~= "table" then
+        L0_2.protocols = {
+          L0_2.protocols
+        }
+      end
+      if #L0_2.protocols == 0 then
+        error([[
+
+Empty protocol table for class ]] .. L1_2 .. [[
+.
+ Make sure you are defining your protocols with a string and not a variable. 
+ ex. protocols = {"UITableViewDelegate"}
+
+]])
+      end
+    end
+    for L7_2, L8_2 in ipairs(L0_2.protocols or {}) do
+      wax.class.addProtocols(L3_2, L8_2)
+    end
+    L3_2._M = setmetatable({self = L3_2}, {
+      __newindex = function(L0_3, L1_3, L2_3)
+        L3_2[L1_3] = L2_3
+      end,
+      __index = function(L0_3, L1_3)
+        return L3_2[L1_3] or _G[L1_3]
+      end
+    })
+    _G[L1_2] = L3_2
+    package.loaded[L1_2] = L3_2
+    return L3_2
+  end
+end
+setmetatable(_G, {
+  __index = function(L0_1, L1_1)
+    local L2_1 = wax.class[L1_1]
+    if L2_1 then
+      L0_1[L1_1] = L2_1
+    end
+    if not L2_1 and L1_1:match("^[A-Z][A-Z][A-Z][^A-Z]") then
+      print("WARNING: No object named '" .. L1_1 .. "' found.")
+    end
+    return L2_1
+  end
+})
+require("wax.ext")
+require("wax.enums")
+require("wax.structs")
+require("wax.waxClass")
+require("wax.helpers")